@@ -3,6 +3,7 @@ package org.bf2.srs.fleetmanager.common;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
@@ -15,6 +16,8 @@ public class SerDesObjectMapperProducer {
 
     private static final YAMLMapper YAML_MAPPER = new YAMLMapper();
 
+    private static final SmileMapper SMILE_MAPPER = new SmileMapper();
+
     static {
         MAPPER.registerModule(new JavaTimeModule());
         MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
@@ -26,6 +29,11 @@ public class SerDesObjectMapperProducer {
         YAML_MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
         YAML_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         YAML_MAPPER.configure(DeserializationFeature.FAIL_ON_IGNORED_PROPERTIES, true);
+
+        SMILE_MAPPER.registerModule(new JavaTimeModule());
+        SMILE_MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        SMILE_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        SMILE_MAPPER.configure(DeserializationFeature.FAIL_ON_IGNORED_PROPERTIES, true);
     }
 
     public static ObjectMapper getMapper() {
@@ -35,4 +43,11 @@ public class SerDesObjectMapperProducer {
     public static YAMLMapper getYAMLMapper() {
         return YAML_MAPPER;
     }
+
+    /**
+     * Binary JSON, for compact internal data that is not read by humans.
+     */
+    public static SmileMapper getSmileMapper() {
+        return SMILE_MAPPER;
+    }
 }
@@ -25,6 +25,11 @@ public interface Constants {
     String USAGE_STATISTICS_ACTIVE_USERS = PREFIX + "usage.users";
     String USAGE_STATISTICS_ACTIVE_ORGANISATIONS = PREFIX + "usage.organisations";
 
+    String USAGE_STATISTICS_REFRESH_TIMER = PREFIX + "usage.refresh";
+    String USAGE_STATISTICS_REFRESH_TIMER_DESCRIPTION = "Timing of the usage statistics computation";
+    String USAGE_STATISTICS_AGE = PREFIX + "usage.age";
+    String USAGE_STATISTICS_AGE_DESCRIPTION = "Time since the usage statistics were last computed";
+
     String TAG_USAGE_STATISTICS_STATUS = "status";
     String TAG_USAGE_STATISTICS_TYPE = "type";
 
@@ -33,6 +38,13 @@ public interface Constants {
     String AUTH_TIMER = PREFIX + "auth";
     String AUTH_TIMER_DESCRIPTION = "Timing and results of Auth layer";
 
+    String IDENTITY_SERVER_RESOLVER_CACHE = AUTH_TIMER + ".identity.server.cache";
+    String IDENTITY_SERVER_RESOLVER_CACHE_DESCRIPTION = "Hits and misses of the resolved identity server configuration cache";
+    String IDENTITY_SERVER_RESOLVER_REFRESH_TIMER = AUTH_TIMER + ".identity.server.refresh";
+    String IDENTITY_SERVER_RESOLVER_REFRESH_TIMER_DESCRIPTION = "Timing and results of fetching the identity server configuration";
+
+    String TAG_CACHE_RESULT = "result";
+
     String AMS_TIMER_PREFIX = PREFIX + "ams.";
     String AMS_DETERMINE_ALLOWED_INSTANCE_TIMER = Constants.AMS_TIMER_PREFIX + "determine_allowed";
     String AMS_CREATE_TIMER = Constants.AMS_TIMER_PREFIX + "create";
@@ -44,8 +56,59 @@ public interface Constants {
     String TENANT_MANAGER_DELETE_TENANT_TIMER = TENANT_MANAGER_PREFIX + "delete";
     String TENANT_MANAGER_DESCRIPTION = "Timing and results of tenant-manager client calls";
 
+    String TENANT_MANAGER_CLIENT_POOL_SIZE = TENANT_MANAGER_PREFIX + "client.pool.size";
+    String TENANT_MANAGER_CLIENT_POOL_SIZE_DESCRIPTION = "Number of cached tenant-manager clients";
+    String TENANT_MANAGER_CLIENT_POOL_EVICTIONS = TENANT_MANAGER_PREFIX + "client.pool.evictions";
+    String TENANT_MANAGER_CLIENT_POOL_EVICTIONS_DESCRIPTION = "Number of tenant-manager clients evicted from the cache";
+
     String TAG_ERROR = "error";
 
+    // task execution metrics
+
+    String WORKER_TRANSACTION_TIMER = PREFIX + "worker.transaction";
+    String WORKER_TRANSACTION_TIMER_DESCRIPTION = "Duration of database transactions in task workers, while a pooled connection is held";
+
+    String TAG_WORKER_TYPE = "worker";
+
+    String TASK_IN_FLIGHT = PREFIX + "task.in_flight";
+    String TASK_IN_FLIGHT_DESCRIPTION = "Number of tasks being executed";
+    String TASK_REJECTED = PREFIX + "task.rejected";
+    String TASK_REJECTED_DESCRIPTION = "Number of task executions postponed because the concurrency limit for the task type was reached";
+
+    String TASK_LOW_PRIORITY_IN_FLIGHT = PREFIX + "task.low_priority.in_flight";
+    String TASK_LOW_PRIORITY_IN_FLIGHT_DESCRIPTION = "Number of low priority tasks being executed";
+    String TASK_LOW_PRIORITY_DEFERRED = PREFIX + "task.low_priority.deferred";
+    String TASK_LOW_PRIORITY_DEFERRED_DESCRIPTION = "Number of low priority task executions deferred, or admitted after too many deferrals (aged)";
+
+    String TASK_RETRIES = PREFIX + "task.retries";
+    String TASK_RETRIES_DESCRIPTION = "Number of task retries scheduled, or suppressed (postponed by the maximum delay) because the retry budget was exhausted";
+
+    String TASK_DEDUPLICATED = PREFIX + "task.deduplicated";
+    String TASK_DEDUPLICATED_DESCRIPTION = "Number of task submissions ignored because a task with the same dedupe key already exists";
+
+    String TASK_CONTINUATIONS = PREFIX + "task.continuations";
+    String TASK_CONTINUATIONS_DESCRIPTION = "Number of continuation tasks executed immediately by this instance (in_process), or left to the job store (scheduled) when there was no capacity";
+
+    String TASK_LAG = PREFIX + "task.lag";
+    String TASK_LAG_DESCRIPTION = "Time between the scheduled and the actual start of task executions";
+    String TASK_EXECUTE_TIMER = PREFIX + "task.execute";
+    String TASK_EXECUTE_TIMER_DESCRIPTION = "Timing and outcomes (success, retry, stop or error) of task executions by a worker";
+    String TASK_FINALLY_EXECUTE_TIMER = PREFIX + "task.finally_execute";
+    String TASK_FINALLY_EXECUTE_TIMER_DESCRIPTION = "Timing and results of the final step of task executions by a worker";
+    String TASK_RETRIES_PER_TASK = PREFIX + "task.retries_per_task";
+    String TASK_RETRIES_PER_TASK_DESCRIPTION = "Number of retries of a task by a worker, recorded when the task is unscheduled";
+
+    String PLACEMENT_DECISIONS = PREFIX + "placement.decisions";
+    String PLACEMENT_DECISIONS_DESCRIPTION = "Number of Registry instances placed on each registry deployment, or not placed (none)";
+
+    String TAG_TASK_TYPE = "task_type";
+    String TAG_AGED = "aged";
+    String TAG_RETRY_RESULT = "result";
+    String TAG_TASK_OUTCOME = "outcome";
+    String TAG_CONTINUATION_RESULT = "result";
+    String TAG_PLACEMENT_STRATEGY = "strategy";
+    String TAG_REGISTRY_DEPLOYMENT = "deployment";
+
     // REST API metrics
 
     String REST_PREFIX = "rest.";
@@ -2,6 +2,7 @@ package org.bf2.srs.fleetmanager;
 
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.EvalInstanceExpirationSweepTask;
 import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
 import org.bf2.srs.fleetmanager.operation.OperationContext;
 import org.bf2.srs.fleetmanager.operation.logging.sentry.SentryConfiguration;
@@ -9,9 +10,11 @@ import org.bf2.srs.fleetmanager.operation.metrics.UsageMetrics;
 import org.bf2.srs.fleetmanager.rest.service.RegistryDeploymentService;
 import org.bf2.srs.fleetmanager.service.QuotaPlansService;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.migration.MigrationService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
@@ -42,6 +45,9 @@ public class App {
     @Inject
     OperationContext ctx;
 
+    @ConfigProperty(name = "srs-fleet-manager.registry.instances.eval.expiration.enabled", defaultValue = "true")
+    boolean evalExpirationEnabled;
+
     void onStart(@Observes StartupEvent ev) throws Exception {
         try {
             ctx.loadNewContextData();
@@ -52,6 +58,11 @@ public class App {
             deploymentService.init();
             plansService.init();
             taskManager.start();
+            deploymentService.startHeartbeats();
+            if (evalExpirationEnabled) {
+                // Rejected as a duplicate if the task already exists
+                taskManager.submitAll(List.of(EvalInstanceExpirationSweepTask.builder().build()));
+            }
         } catch (Exception e) {
             log.error("Error starting fleet manager app", e);
             throw e;
@@ -60,5 +71,6 @@ public class App {
 
     void onStop(@Observes ShutdownEvent ev) {
         taskManager.stop();
+        usageMetrics.stop();
     }
 }
@@ -28,20 +28,43 @@ import io.quarkus.oidc.OidcRequestContext;
 import io.quarkus.oidc.OidcTenantConfig;
 import io.quarkus.oidc.TenantConfigResolver;
 import io.quarkus.oidc.runtime.TenantConfigBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import io.vertx.ext.web.RoutingContext;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
+import java.time.Duration;
 import java.util.Collections;
-import java.util.function.Supplier;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Resolves the OIDC tenant configuration using the SSO providers endpoint, if enabled.
+ * <p>
+ * The resolved configuration is cached for the configured TTL. After it expires,
+ * the cached value is still served while it is refreshed in the background,
+ * and it keeps being served if the refresh fails.
+ * Concurrent requests that find the cache empty share a single in-flight fetch.
+ * After a failed fetch, the next one is attempted after the configured retry delay,
+ * and requests are served the stale value, or fail, in the meantime.
+ */
 @ApplicationScoped
 public class IdentityServerResolver implements TenantConfigResolver {
 
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
     @ConfigProperty(name = "srs-fleet-manager.identity.server.resolver.enabled")
     Boolean resolveIdentityServer;
 
@@ -60,6 +83,12 @@ public class IdentityServerResolver implements TenantConfigResolver {
     @ConfigProperty(name = "srs-fleet-manager.identity.server.resolver.client-secret")
     String resolverClientSecret;
 
+    @ConfigProperty(name = "srs-fleet-manager.identity.server.resolver.cache-ttl-seconds", defaultValue = "300")
+    Long cacheTtlSeconds;
+
+    @ConfigProperty(name = "srs-fleet-manager.identity.server.resolver.retry-delay-seconds", defaultValue = "30")
+    Long retryDelaySeconds;
+
     @ConfigProperty(name = "quarkus.oidc.client-id")
     String apiClientId;
 
@@ -70,16 +99,56 @@ public class IdentityServerResolver implements TenantConfigResolver {
     @Inject
     Instance<TenantConfigBean> tenantConfigBean;
 
+    @Inject
+    MeterRegistry metrics;
+
+    /**
+     * The fetch is blocking, so it must not run on the event loop.
+     */
+    Executor executor = Infrastructure.getDefaultWorkerPool();
+
+    /**
+     * Testing support
+     */
+    LongSupplier nanoTime = System::nanoTime;
+
+    private final AtomicReference<CachedConfig> cache = new AtomicReference<>();
+
+    private final AtomicReference<CompletableFuture<OidcTenantConfig>> inFlight = new AtomicReference<>();
+
+    /**
+     * Result of the last failed fetch, null after a successful one.
+     */
+    private volatile FailedFetch lastFailure;
+
+    private Counter cacheHits;
+
+    private Counter cacheMisses;
+
     @PostConstruct
     public void init() {
         if (resolveIdentityServer) {
             ApicurioHttpClient authHttpClient = ApicurioHttpClientFactory.create(resolverAuthServerUrl, new AuthErrorHandler());
             OidcAuth oidcAuth = new OidcAuth(authHttpClient, resolverClientId, resolverClientSecret);
             httpClient = new JdkHttpClientProvider().create(resolverRequestBasePath, Collections.emptyMap(), oidcAuth, new AuthErrorHandler());
+            initCache();
         }
     }
 
-    private Supplier<OidcTenantConfig> resolveIdentityServer() {
+    void initCache() {
+        cacheHits = Counter.builder(Constants.IDENTITY_SERVER_RESOLVER_CACHE)
+                .description(Constants.IDENTITY_SERVER_RESOLVER_CACHE_DESCRIPTION)
+                .tag(Constants.TAG_CACHE_RESULT, "hit")
+                .register(metrics);
+        cacheMisses = Counter.builder(Constants.IDENTITY_SERVER_RESOLVER_CACHE)
+                .description(Constants.IDENTITY_SERVER_RESOLVER_CACHE_DESCRIPTION)
+                .tag(Constants.TAG_CACHE_RESULT, "miss")
+                .register(metrics);
+        // Warm up, so the first requests do not have to wait
+        refresh();
+    }
+
+    OidcTenantConfig resolveIdentityServer() {
         final SsoProviders ssoProviders = httpClient.sendRequest(getSSOProviders());
         final OidcTenantConfig config = new OidcTenantConfig();
 
@@ -87,7 +156,7 @@ public class IdentityServerResolver implements TenantConfigResolver {
         config.setAuthServerUrl(ssoProviders.getValidIssuer());
         config.setClientId(apiClientId);
 
-        return () -> config;
+        return config;
     }
 
     public Request<SsoProviders> getSSOProviders() {
@@ -102,7 +171,7 @@ public class IdentityServerResolver implements TenantConfigResolver {
     @Override
     public Uni<OidcTenantConfig> resolve(RoutingContext routingContext, OidcRequestContext<OidcTenantConfig> requestContext) {
         if (resolveIdentityServer) {
-            return Uni.createFrom().item(resolveIdentityServer());
+            return resolveCached();
         }
 
         //resolve to default configuration
@@ -113,6 +182,114 @@ public class IdentityServerResolver implements TenantConfigResolver {
         }
     }
 
+    Uni<OidcTenantConfig> resolveCached() {
+        var cached = cache.get();
+        if (cached != null) {
+            cacheHits.increment();
+            if (cached.isExpired(nanoTime.getAsLong(), Duration.ofSeconds(cacheTtlSeconds))) {
+                refresh(); // Serve the stale value in the meantime
+            }
+            return Uni.createFrom().item(cached.getConfig());
+        }
+        cacheMisses.increment();
+        return Uni.createFrom().completionStage(refresh());
+    }
+
+    /**
+     * Fetch the configuration in the background, unless a fetch is already in progress,
+     * or the last fetch failed less than the retry delay ago.
+     *
+     * @return the in-flight fetch, completed with the stale value if the fetch fails and the cache is not empty,
+     * or the result of the last failed fetch
+     */
+    private CompletableFuture<OidcTenantConfig> refresh() {
+        var failure = lastFailure;
+        if (failure != null && failure.isBackingOff(nanoTime.getAsLong())) {
+            return failure.getResult();
+        }
+        while (true) {
+            var existing = inFlight.get();
+            if (existing != null) {
+                return existing;
+            }
+            var future = new CompletableFuture<OidcTenantConfig>();
+            if (inFlight.compareAndSet(null, future)) {
+                executor.execute(() -> fetch(future));
+                return future;
+            }
+        }
+    }
+
+    private void fetch(CompletableFuture<OidcTenantConfig> future) {
+        var sample = Timer.start(metrics);
+        boolean error = false;
+        try {
+            var config = resolveIdentityServer();
+            cache.set(new CachedConfig(config, nanoTime.getAsLong()));
+            lastFailure = null;
+            inFlight.set(null);
+            future.complete(config);
+        } catch (Exception ex) {
+            error = true;
+            var stale = cache.get();
+            if (stale != null) {
+                log.warn("Could not refresh the identity server configuration, using the cached value.", ex);
+                future.complete(stale.getConfig());
+            } else {
+                log.error("Could not resolve the identity server configuration.", ex);
+                future.completeExceptionally(ex);
+            }
+            // Set before the in-flight fetch is cleared, so no other fetch is started in the meantime
+            lastFailure = new FailedFetch(future, nanoTime.getAsLong() + Duration.ofSeconds(retryDelaySeconds).toNanos());
+            inFlight.set(null);
+        } finally {
+            sample.stop(Timer.builder(Constants.IDENTITY_SERVER_RESOLVER_REFRESH_TIMER)
+                    .description(Constants.IDENTITY_SERVER_RESOLVER_REFRESH_TIMER_DESCRIPTION)
+                    .tag(Constants.TAG_ERROR, String.valueOf(error))
+                    .register(metrics));
+        }
+    }
+
+    private static class CachedConfig {
+
+        private final OidcTenantConfig config;
+
+        private final long fetchedAt;
+
+        private CachedConfig(OidcTenantConfig config, long fetchedAt) {
+            this.config = config;
+            this.fetchedAt = fetchedAt;
+        }
+
+        private OidcTenantConfig getConfig() {
+            return config;
+        }
+
+        private boolean isExpired(long now, Duration ttl) {
+            return now - fetchedAt > ttl.toNanos();
+        }
+    }
+
+    private static class FailedFetch {
+
+        private final CompletableFuture<OidcTenantConfig> result;
+
+        private final long retryAfter;
+
+        private FailedFetch(CompletableFuture<OidcTenantConfig> result, long retryAfter) {
+            this.result = result;
+            this.retryAfter = retryAfter;
+        }
+
+        private CompletableFuture<OidcTenantConfig> getResult() {
+            return result;
+        }
+
+        private boolean isBackingOff(long now) {
+            return now - retryAfter < 0;
+        }
+    }
+
     private static class SsoProviders {
 
         @JsonProperty("base_url")
@@ -0,0 +1,66 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Places the instance on the most used deployment that still has capacity for it,
+ * so deployments are filled one by one, and the remaining ones are kept free.
+ * <p>
+ * The usage of a deployment is the sum of units of its Registry instances, see {@link PlacementRequest#getUnits()}.
+ * The capacity of a deployment, in the same units, is configured with
+ * `srs-fleet-manager.execution.placement.capacity.&lt;DEPLOYMENT_NAME&gt;`,
+ * and defaults to `srs-fleet-manager.execution.placement.capacity.default`. Zero means no limit.
+ */
+@ApplicationScoped
+public class BinPackPlacementStrategy implements PlacementStrategy {
+
+    public static final String NAME = "bin-pack";
+
+    private static final String CAPACITY_PREFIX = "srs-fleet-manager.execution.placement.capacity.";
+
+    @Inject
+    Config config;
+
+    @ConfigProperty(name = CAPACITY_PREFIX + "default", defaultValue = "0")
+    long defaultCapacity;
+
+    private final Map<String, Long> capacities = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Optional<Long> select(PlacementRequest request, DeploymentLoads loads) {
+        Long selected = null;
+        long selectedUsage = -1;
+        for (Long id : loads.getEligible()) {
+            long usage = loads.getUsage(id);
+            long capacity = getCapacity(loads.getName(id));
+            if (capacity > 0 && usage + request.getUnits() > capacity) {
+                continue;
+            }
+            if (usage > selectedUsage) {
+                selected = id;
+                selectedUsage = usage;
+            }
+        }
+        return Optional.ofNullable(selected);
+    }
+
+    private long getCapacity(String deploymentName) {
+        if (deploymentName == null) {
+            return defaultCapacity;
+        }
+        return capacities.computeIfAbsent(deploymentName,
+                k -> config.getOptionalValue(CAPACITY_PREFIX + k, Long.class).orElse(defaultCapacity));
+    }
+}
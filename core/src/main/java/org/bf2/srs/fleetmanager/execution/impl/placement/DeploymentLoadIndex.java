@@ -0,0 +1,167 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.ToLongFunction;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * In-memory index of the Registry instances placed on each registry deployment.
+ * Eligible deployments are kept ordered by the number of instances (then by ID),
+ * so the least loaded one is found, and a count is updated, in O(log D).
+ * <p>
+ * The index is not persisted, and may drift from the database (e.g. when a transaction
+ * fails after a placement), so it should be periodically reset from the database.
+ * <p>
+ * This class is thread safe.
+ */
+class DeploymentLoadIndex implements DeploymentLoads {
+
+    private static final Comparator<Load> ORDER = Comparator.<Load>comparingLong(l -> l.count)
+            .thenComparingLong(l -> l.deploymentId);
+
+    private final Map<Long, Load> loads = new HashMap<>();
+
+    private final TreeSet<Load> eligible = new TreeSet<>(ORDER);
+
+    /**
+     * Replace the content of the index.
+     *
+     * @param counts   # of Registry instances per deployment ID and organization ID,
+     *                 deployments missing from the map have no instances
+     * @param eligible names of deployments new instances can be placed on, by ID
+     * @param orgUnits units of a Registry instance of the given organization
+     */
+    synchronized void reset(Map<Long, Map<String, Long>> counts, Map<Long, String> eligible, ToLongFunction<String> orgUnits) {
+        requireNonNull(counts);
+        requireNonNull(eligible);
+        requireNonNull(orgUnits);
+        this.loads.clear();
+        this.eligible.clear();
+        counts.forEach((id, orgCounts) -> {
+            var load = new Load(id);
+            orgCounts.forEach((orgId, count) -> {
+                load.count += count;
+                load.usage += count * orgUnits.applyAsLong(orgId);
+                load.orgCounts.put(orgId, count);
+            });
+            loads.put(id, load);
+        });
+        eligible.forEach((id, name) -> {
+            var load = loads.computeIfAbsent(id, Load::new);
+            load.name = name;
+            load.eligible = true;
+            this.eligible.add(load);
+        });
+    }
+
+    @Override
+    public synchronized Optional<Long> leastLoaded() {
+        return eligible.isEmpty() ? Optional.empty() : Optional.of(eligible.first().deploymentId);
+    }
+
+    @Override
+    public synchronized List<Long> getEligible() {
+        var res = new ArrayList<Long>(eligible.size());
+        eligible.forEach(l -> res.add(l.deploymentId));
+        return res;
+    }
+
+    @Override
+    public synchronized String getName(long deploymentId) {
+        var load = loads.get(deploymentId);
+        return load == null ? null : load.name;
+    }
+
+    @Override
+    public synchronized long getCount(long deploymentId) {
+        var load = loads.get(deploymentId);
+        return load == null ? 0 : load.count;
+    }
+
+    @Override
+    public synchronized long getOrgCount(long deploymentId, String orgId) {
+        var load = loads.get(deploymentId);
+        return load == null ? 0 : load.orgCounts.getOrDefault(orgId, 0L);
+    }
+
+    @Override
+    public synchronized long getUsage(long deploymentId) {
+        var load = loads.get(deploymentId);
+        return load == null ? 0 : load.usage;
+    }
+
+    synchronized void setEligible(long deploymentId, boolean isEligible) {
+        var load = loads.computeIfAbsent(deploymentId, Load::new);
+        if (load.eligible != isEligible) {
+            load.eligible = isEligible;
+            if (isEligible) {
+                eligible.add(load);
+            } else {
+                eligible.remove(load);
+            }
+        }
+    }
+
+    synchronized void increment(long deploymentId, String orgId, long units) {
+        update(deploymentId, orgId, 1, units);
+    }
+
+    synchronized void decrement(long deploymentId, String orgId, long units) {
+        update(deploymentId, orgId, -1, -units);
+    }
+
+    /**
+     * @return a copy of the Registry instance count for each known deployment
+     */
+    synchronized Map<Long, Long> getCounts() {
+        var res = new HashMap<Long, Long>();
+        loads.forEach((id, load) -> res.put(id, load.count));
+        return res;
+    }
+
+    private void update(long deploymentId, String orgId, long delta, long unitsDelta) {
+        requireNonNull(orgId);
+        var load = loads.computeIfAbsent(deploymentId, Load::new);
+        if (load.eligible) {
+            // The position in the ordered set depends on the count
+            eligible.remove(load);
+        }
+        load.count = Math.max(0, load.count + delta);
+        load.usage = Math.max(0, load.usage + unitsDelta);
+        long orgCount = Math.max(0, load.orgCounts.getOrDefault(orgId, 0L) + delta);
+        if (orgCount == 0) {
+            load.orgCounts.remove(orgId);
+        } else {
+            load.orgCounts.put(orgId, orgCount);
+        }
+        if (load.eligible) {
+            eligible.add(load);
+        }
+    }
+
+    private static class Load {
+
+        private final long deploymentId;
+
+        private final Map<String, Long> orgCounts = new HashMap<>();
+
+        private String name;
+
+        private long count;
+
+        private long usage;
+
+        private boolean eligible;
+
+        private Load(long deploymentId) {
+            this.deploymentId = deploymentId;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read access to the number of Registry instances placed on each registry deployment,
+ * as tracked by this instance of the application.
+ */
+public interface DeploymentLoads {
+
+    /**
+     * @return ID of the eligible deployment with the least Registry instances, in O(log D)
+     */
+    Optional<Long> leastLoaded();
+
+    /**
+     * @return IDs of deployments new Registry instances can be placed on
+     */
+    List<Long> getEligible();
+
+    /**
+     * @return name of the deployment, or null if not known
+     */
+    String getName(long deploymentId);
+
+    long getCount(long deploymentId);
+
+    /**
+     * @return number of Registry instances of the organization placed on the deployment
+     */
+    long getOrgCount(long deploymentId, String orgId);
+
+    /**
+     * @return sum of the units of Registry instances placed on the deployment, see {@link PlacementRequest#getUnits()}
+     */
+    long getUsage(long deploymentId);
+}
@@ -0,0 +1,23 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import java.util.Optional;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Places the instance on the deployment with the least Registry instances.
+ */
+@ApplicationScoped
+public class LeastLoadedPlacementStrategy implements PlacementStrategy {
+
+    public static final String NAME = "least-loaded";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Optional<Long> select(PlacementRequest request, DeploymentLoads loads) {
+        return loads.leastLoaded();
+    }
+}
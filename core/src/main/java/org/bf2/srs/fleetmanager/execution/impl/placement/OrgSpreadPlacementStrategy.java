@@ -0,0 +1,38 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import java.util.Optional;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Places the instance on the deployment with the least Registry instances of the same organization (anti-affinity),
+ * so an outage of a single deployment affects as few instances of an organization as possible.
+ * Ties are broken by the total number of instances.
+ */
+@ApplicationScoped
+public class OrgSpreadPlacementStrategy implements PlacementStrategy {
+
+    public static final String NAME = "org-spread";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Optional<Long> select(PlacementRequest request, DeploymentLoads loads) {
+        Long selected = null;
+        long selectedOrgCount = Long.MAX_VALUE;
+        // Eligible deployments are ordered by the total number of instances, so the first one wins a tie
+        for (Long id : loads.getEligible()) {
+            long orgCount = loads.getOrgCount(id, request.getOrgId());
+            if (orgCount < selectedOrgCount) {
+                selected = id;
+                selectedOrgCount = orgCount;
+                if (orgCount == 0) {
+                    break;
+                }
+            }
+        }
+        return Optional.ofNullable(selected);
+    }
+}
@@ -0,0 +1,174 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryDeploymentStatusValue;
+import org.bf2.srs.fleetmanager.service.QuotaPlansService;
+import org.bf2.srs.fleetmanager.service.model.QuotaPlan;
+import org.bf2.srs.fleetmanager.spi.tenants.model.TenantLimit;
+import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentData;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Selects the registry deployment a new Registry instance is placed on,
+ * using the {@link PlacementStrategy} configured with `srs-fleet-manager.execution.placement.strategy`.
+ * <p>
+ * Strategies read an in-memory index of Registry instances per deployment.
+ * The index is updated when an instance is placed or deleted, and reset from the database
+ * every `srs-fleet-manager.execution.placement.reconcile-period-seconds`,
+ * or after deployments are changed (see {@link #invalidate()}).
+ * The index is local to a single instance of the application, so placements made by other instances
+ * are only reflected after the next reset.
+ */
+@ApplicationScoped
+public class PlacementEngine {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Inject
+    ResourceStorage storage;
+
+    @Inject
+    QuotaPlansService plansService;
+
+    @Inject
+    Instance<PlacementStrategy> strategies;
+
+    @Inject
+    MeterRegistry metrics;
+
+    @ConfigProperty(name = "srs-fleet-manager.execution.placement.strategy", defaultValue = LeastLoadedPlacementStrategy.NAME)
+    String strategyName;
+
+    @ConfigProperty(name = "srs-fleet-manager.execution.placement.bin-pack.resource")
+    Optional<String> unitsResource;
+
+    @ConfigProperty(name = "srs-fleet-manager.execution.placement.reconcile-period-seconds", defaultValue = "300")
+    long reconcilePeriodSeconds;
+
+    private final DeploymentLoadIndex index = new DeploymentLoadIndex();
+
+    private PlacementStrategy strategy;
+
+    private volatile Instant reconciledAt;
+
+    @PostConstruct
+    void init() {
+        strategy = strategies.stream()
+                .filter(s -> s.getName().equals(strategyName))
+                .findAny()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown placement strategy " + strategyName + "."));
+        log.info("Using {} placement strategy.", strategy.getName());
+    }
+
+    /**
+     * Select a deployment for the Registry instance, and count the instance as placed on it.
+     * MUST be called in a transaction that also assigns the deployment to the instance.
+     *
+     * @return empty if there is no eligible deployment
+     */
+    public Optional<RegistryDeploymentData> place(RegistryData registry) {
+        requireNonNull(registry);
+        reconcileIfNeeded();
+        var plan = plansService.determineQuotaPlan(registry.getOrgId());
+        var request = PlacementRequest.builder()
+                .registryId(registry.getId())
+                .orgId(registry.getOrgId())
+                .quotaPlan(plan)
+                .units(getUnits(plan))
+                .build();
+        Optional<Long> candidate;
+        while ((candidate = strategy.select(request, index)).isPresent()) {
+            long id = candidate.get();
+            var deployment = storage.getRegistryDeploymentById(id);
+            if (deployment.isPresent() && isAvailable(deployment.get())) {
+                index.increment(id, request.getOrgId(), request.getUnits());
+                record(deployment.get().getName());
+                log.debug("Placing {} on deployment {}, which has {} Registry instances.", request, id, index.getCount(id));
+                return deployment;
+            }
+            // The deployment has been deleted or is not available anymore
+            index.setEligible(id, false);
+        }
+        record("none");
+        return Optional.empty();
+    }
+
+    /**
+     * Count the Registry instance as removed from its deployment.
+     */
+    public void removed(RegistryData registry) {
+        requireNonNull(registry);
+        if (registry.getRegistryDeployment() != null) {
+            index.decrement(registry.getRegistryDeployment().getId(), registry.getOrgId(), getUnits(registry.getOrgId()));
+        }
+    }
+
+    /**
+     * Reset the index from the database before the next placement, e.g. after a deployment is created.
+     */
+    public void invalidate() {
+        reconciledAt = null;
+    }
+
+    private void reconcileIfNeeded() {
+        var last = reconciledAt;
+        if (last == null || Duration.between(last, Instant.now()).getSeconds() >= reconcilePeriodSeconds) {
+            reconcile();
+        }
+    }
+
+    synchronized void reconcile() {
+        Map<Long, String> eligible = storage.getAllRegistryDeployments().stream()
+                .filter(PlacementEngine::isAvailable)
+                .collect(toMap(RegistryDeploymentData::getId, RegistryDeploymentData::getName));
+        index.reset(storage.getRegistryCountPerDeploymentAndOrg(), eligible, this::getUnits);
+        reconciledAt = Instant.now();
+        log.debug("Placement index reset: {} eligible deployments, counts = {}.", eligible.size(), index.getCounts());
+    }
+
+    private long getUnits(String orgId) {
+        return getUnits(plansService.determineQuotaPlan(orgId));
+    }
+
+    private long getUnits(QuotaPlan plan) {
+        if (unitsResource.isEmpty() || plan == null || plan.getResources() == null) {
+            return 1;
+        }
+        return plan.getResources().stream()
+                .filter(r -> unitsResource.get().equals(r.getType()) && r.getLimit() != null)
+                .mapToLong(TenantLimit::getLimit)
+                .findAny()
+                .orElse(1);
+    }
+
+    private void record(String deploymentName) {
+        Counter.builder(Constants.PLACEMENT_DECISIONS)
+                .description(Constants.PLACEMENT_DECISIONS_DESCRIPTION)
+                .tag(Constants.TAG_PLACEMENT_STRATEGY, strategy.getName())
+                .tag(Constants.TAG_REGISTRY_DEPLOYMENT, deploymentName)
+                .register(metrics)
+                .increment();
+    }
+
+    private static boolean isAvailable(RegistryDeploymentData deployment) {
+        return RegistryDeploymentStatusValue.of(deployment.getStatus().getValue()) == RegistryDeploymentStatusValue.AVAILABLE;
+    }
+}
@@ -0,0 +1,30 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import org.bf2.srs.fleetmanager.service.model.QuotaPlan;
+
+/**
+ * Registry instance to be placed on a registry deployment.
+ */
+@Builder
+@Getter
+@ToString
+public class PlacementRequest {
+
+    private final String registryId;
+
+    private final String orgId;
+
+    /**
+     * Quota plan of the organization, may be null.
+     */
+    private final QuotaPlan quotaPlan;
+
+    /**
+     * Amount of deployment capacity the instance uses,
+     * given by the limit of a quota plan resource (see `srs-fleet-manager.execution.placement.bin-pack.resource`), or 1.
+     */
+    private final long units;
+}
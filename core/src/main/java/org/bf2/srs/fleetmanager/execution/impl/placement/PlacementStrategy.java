@@ -0,0 +1,19 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import java.util.Optional;
+
+/**
+ * Selects the registry deployment a new Registry instance is placed on.
+ * <p>
+ * Implementations are CDI beans, selected by name with `srs-fleet-manager.execution.placement.strategy`.
+ * They MUST be thread safe, and MUST NOT modify the placement state, which is updated by the caller.
+ */
+public interface PlacementStrategy {
+
+    String getName();
+
+    /**
+     * @return ID of one of the eligible deployments, or empty if the instance can not be placed
+     */
+    Optional<Long> select(PlacementRequest request, DeploymentLoads loads);
+}
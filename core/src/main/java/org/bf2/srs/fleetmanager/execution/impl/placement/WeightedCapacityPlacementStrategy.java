@@ -0,0 +1,65 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Places the instance on the deployment with the least Registry instances relative to its weight,
+ * so a deployment with weight 2 receives twice as many instances as a deployment with weight 1.
+ * <p>
+ * The weight of a deployment is configured with `srs-fleet-manager.execution.placement.weight.&lt;DEPLOYMENT_NAME&gt;`,
+ * and defaults to `srs-fleet-manager.execution.placement.weight.default`.
+ * Deployments with zero weight do not receive new instances.
+ */
+@ApplicationScoped
+public class WeightedCapacityPlacementStrategy implements PlacementStrategy {
+
+    public static final String NAME = "weighted-capacity";
+
+    private static final String WEIGHT_PREFIX = "srs-fleet-manager.execution.placement.weight.";
+
+    @Inject
+    Config config;
+
+    @ConfigProperty(name = WEIGHT_PREFIX + "default", defaultValue = "1")
+    double defaultWeight;
+
+    private final Map<String, Double> weights = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Optional<Long> select(PlacementRequest request, DeploymentLoads loads) {
+        Long selected = null;
+        double selectedLoad = Double.MAX_VALUE;
+        for (Long id : loads.getEligible()) {
+            double weight = getWeight(loads.getName(id));
+            if (weight <= 0) {
+                continue;
+            }
+            double load = (loads.getCount(id) + 1) / weight;
+            if (load < selectedLoad) {
+                selected = id;
+                selectedLoad = load;
+            }
+        }
+        return Optional.ofNullable(selected);
+    }
+
+    private double getWeight(String deploymentName) {
+        if (deploymentName == null) {
+            return defaultWeight;
+        }
+        return weights.computeIfAbsent(deploymentName,
+                k -> config.getOptionalValue(WEIGHT_PREFIX + k, Double.class).orElse(defaultWeight));
+    }
+}
@@ -38,6 +38,6 @@ public abstract class AbstractTask implements Task {
         requireNonNull(type);
         this.id = UUID.randomUUID().toString();
         this.type = type.name();
-        this.schedule = TaskSchedule.builder().build();
+        this.schedule = TaskSchedule.builder().priority(type.getPriority()).build();
     }
 }
@@ -12,7 +12,7 @@ import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.PROVISION_R
 @NoArgsConstructor
 @Getter
 @ToString(callSuper = true)
-public class ProvisionRegistryTenantTask extends AbstractTask {
+public class ProvisionRegistryTenantTask extends AbstractTask implements RegistryTask {
 
     private String registryId;
 
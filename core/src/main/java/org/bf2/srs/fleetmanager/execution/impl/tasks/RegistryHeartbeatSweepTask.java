@@ -0,0 +1,35 @@
+package org.bf2.srs.fleetmanager.execution.impl.tasks;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
+
+import java.time.Duration;
+
+import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.REGISTRY_HEARTBEAT_SWEEP_T;
+
+/**
+ * Checks the availability of all Registry instances of a deployment.
+ * There is at most one task per deployment, since the task ID is derived from the deployment ID.
+ */
+@NoArgsConstructor
+@Getter
+@ToString(callSuper = true)
+public class RegistryHeartbeatSweepTask extends AbstractTask {
+
+    private long deploymentId;
+
+    @Builder
+    public RegistryHeartbeatSweepTask(long deploymentId) {
+        super(REGISTRY_HEARTBEAT_SWEEP_T);
+        this.id = idForDeployment(deploymentId);
+        this.deploymentId = deploymentId;
+        this.schedule = TaskSchedule.builder().interval(Duration.ofSeconds(180)).priority(REGISTRY_HEARTBEAT_SWEEP_T.getPriority()).stateless(true).build();
+    }
+
+    public static String idForDeployment(long deploymentId) {
+        return REGISTRY_HEARTBEAT_SWEEP_T.name() + "-" + deploymentId;
+    }
+}
@@ -10,10 +10,15 @@ import java.time.Duration;
 
 import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.REGISTRY_HEARTBEAT_T;
 
+/**
+ * Replaced by {@link RegistryHeartbeatSweepTask}.
+ * Kept so that previously persisted tasks can be loaded.
+ */
+@Deprecated
 @NoArgsConstructor
 @Getter
 @ToString(callSuper = true)
-public class RegistryHeartbeatTask extends AbstractTask {
+public class RegistryHeartbeatTask extends AbstractTask implements RegistryTask {
 
     private String registryId;
 
@@ -21,6 +26,6 @@ public class RegistryHeartbeatTask extends AbstractTask {
     public RegistryHeartbeatTask(String registryId) {
         super(REGISTRY_HEARTBEAT_T);
         this.registryId = registryId;
-        this.schedule = TaskSchedule.builder().interval(Duration.ofSeconds(180)).build();
+        this.schedule = TaskSchedule.builder().interval(Duration.ofSeconds(180)).priority(REGISTRY_HEARTBEAT_T.getPriority()).stateless(true).build();
     }
 }
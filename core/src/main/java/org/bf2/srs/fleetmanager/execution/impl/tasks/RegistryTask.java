@@ -0,0 +1,23 @@
+package org.bf2.srs.fleetmanager.execution.impl.tasks;
+
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Task that operates on a single Registry instance.
+ * The Registry ID is indexed, so the tasks can be found without loading all of them.
+ */
+public interface RegistryTask extends Task {
+
+    String getRegistryId();
+
+    /**
+     * @return a dedupe key that allows a single task of the given type for a Registry instance,
+     * see {@link org.bf2.srs.fleetmanager.execution.manager.TaskManager#submit(Task, String)}
+     */
+    static String dedupeKey(RegistryTask task) {
+        requireNonNull(task.getRegistryId());
+        return task.getType() + "/" + task.getRegistryId();
+    }
+}
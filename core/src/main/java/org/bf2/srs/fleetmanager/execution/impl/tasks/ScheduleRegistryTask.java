@@ -11,7 +11,7 @@ import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.SCHEDULE_RE
 @NoArgsConstructor
 @Getter
 @ToString(callSuper = true)
-public class ScheduleRegistryTask extends AbstractTask {
+public class ScheduleRegistryTask extends AbstractTask implements RegistryTask {
 
     private String registryId;
 
@@ -1,5 +1,11 @@
 package org.bf2.srs.fleetmanager.execution.impl.tasks;
 
+import lombok.Getter;
+
+import static org.bf2.srs.fleetmanager.execution.manager.TaskSchedule.PRIORITY_DEFAULT;
+import static org.bf2.srs.fleetmanager.execution.manager.TaskSchedule.PRIORITY_HIGH;
+import static org.bf2.srs.fleetmanager.execution.manager.TaskSchedule.PRIORITY_LOW;
+
 /**
  * WARNING: Changing enum names may cause corruption if persisted tasks are loaded.
  * (TODO Refactor?)
@@ -8,14 +14,28 @@ package org.bf2.srs.fleetmanager.execution.impl.tasks;
  */
 public enum TaskType {
 
-    SCHEDULE_REGISTRY_T,
-    PROVISION_REGISTRY_TENANT_T,
-    REGISTRY_HEARTBEAT_T,
+    // User-facing operations have high priority, background checks have low priority
+
+    SCHEDULE_REGISTRY_T(PRIORITY_HIGH),
+    PROVISION_REGISTRY_TENANT_T(PRIORITY_HIGH),
+    REGISTRY_HEARTBEAT_T(PRIORITY_LOW),
 
     // Deprovision
-    START_DEPROVISION_REGISTRY_T,
-    DEPROVISION_REGISTRY_T,
-    EVAL_INSTANCE_EXPIRATION_REGISTRY_T,
+    START_DEPROVISION_REGISTRY_T(PRIORITY_HIGH),
+    DEPROVISION_REGISTRY_T(PRIORITY_HIGH),
+    EVAL_INSTANCE_EXPIRATION_REGISTRY_T(PRIORITY_DEFAULT),
+
+    REGISTRY_DEPLOYMENT_HEARTBEAT_T(PRIORITY_LOW),
+    REGISTRY_HEARTBEAT_SWEEP_T(PRIORITY_LOW),
+    EVAL_INSTANCE_EXPIRATION_SWEEP_T(PRIORITY_LOW);
+
+    /**
+     * Default priority of tasks of this type.
+     */
+    @Getter
+    private final int priority;
 
-    REGISTRY_DEPLOYMENT_HEARTBEAT_T,
+    TaskType(int priority) {
+        this.priority = priority;
+    }
 }
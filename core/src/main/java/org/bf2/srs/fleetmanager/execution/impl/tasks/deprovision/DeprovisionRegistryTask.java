@@ -6,13 +6,14 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.AbstractTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryTask;
 
 import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.DEPROVISION_REGISTRY_T;
 
 @NoArgsConstructor
 @Getter
 @ToString(callSuper = true)
-public class DeprovisionRegistryTask extends AbstractTask {
+public class DeprovisionRegistryTask extends AbstractTask implements RegistryTask {
 
     private String registryId;
 
@@ -4,6 +4,7 @@ import static java.util.Objects.requireNonNull;
 import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.EVAL_INSTANCE_EXPIRATION_REGISTRY_T;
 
 import org.bf2.srs.fleetmanager.execution.impl.tasks.AbstractTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryTask;
 import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
 
 import lombok.Builder;
@@ -11,10 +12,15 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+/**
+ * Replaced by {@link EvalInstanceExpirationSweepTask}.
+ * Kept so that previously persisted tasks can be loaded.
+ */
+@Deprecated
 @NoArgsConstructor
 @Getter
 @ToString(callSuper = true)
-public class EvalInstanceExpirationRegistryTask extends AbstractTask {
+public class EvalInstanceExpirationRegistryTask extends AbstractTask implements RegistryTask {
 
     private String registryId;
 
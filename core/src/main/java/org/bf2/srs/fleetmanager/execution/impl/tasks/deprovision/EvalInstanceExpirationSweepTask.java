@@ -0,0 +1,29 @@
+package org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.AbstractTask;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
+
+import java.time.Duration;
+
+import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.EVAL_INSTANCE_EXPIRATION_SWEEP_T;
+
+/**
+ * Periodically deprovisions eval instances that have outlived their lifetime.
+ * There is at most one task, since the task ID is fixed.
+ */
+@Getter
+@ToString(callSuper = true)
+public class EvalInstanceExpirationSweepTask extends AbstractTask {
+
+    public static final String ID = EVAL_INSTANCE_EXPIRATION_SWEEP_T.name();
+
+    @Builder
+    public EvalInstanceExpirationSweepTask() {
+        super(EVAL_INSTANCE_EXPIRATION_SWEEP_T);
+        this.id = ID;
+        this.schedule = TaskSchedule.builder().interval(Duration.ofSeconds(60)).priority(EVAL_INSTANCE_EXPIRATION_SWEEP_T.getPriority()).stateless(true).build();
+    }
+}
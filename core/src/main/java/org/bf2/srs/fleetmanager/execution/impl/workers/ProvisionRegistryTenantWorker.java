@@ -1,12 +1,10 @@
 package org.bf2.srs.fleetmanager.execution.impl.workers;
 
+import org.bf2.srs.fleetmanager.execution.impl.placement.PlacementEngine;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.ProvisionRegistryTenantTask;
-import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.EvalInstanceExpirationRegistryTask;
 import org.bf2.srs.fleetmanager.execution.manager.Task;
 import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
-import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
 import org.bf2.srs.fleetmanager.execution.manager.WorkerContext;
-import org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto;
 import org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto;
 import org.bf2.srs.fleetmanager.service.QuotaPlansService;
 import org.bf2.srs.fleetmanager.spi.ams.AccountManagementService;
@@ -17,21 +15,17 @@ import org.bf2.srs.fleetmanager.spi.tenants.TenantManagerServiceException;
 import org.bf2.srs.fleetmanager.spi.tenants.TenantNotFoundServiceException;
 import org.bf2.srs.fleetmanager.spi.tenants.model.CreateTenantRequest;
 import org.bf2.srs.fleetmanager.spi.tenants.model.TenantManagerConfig;
-import org.bf2.srs.fleetmanager.storage.RegistryNotFoundException;
 import org.bf2.srs.fleetmanager.storage.RegistryStorageConflictException;
 import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.StorageException;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentData;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
-import java.time.Instant;
 import java.util.Optional;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import javax.transaction.Transactional;
 
 import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.PROVISION_REGISTRY_TENANT_T;
 import static org.bf2.srs.fleetmanager.execution.impl.workers.WorkerType.PROVISION_REGISTRY_TENANT_W;
@@ -46,9 +40,6 @@ public class ProvisionRegistryTenantWorker extends AbstractWorker {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    @ConfigProperty(name = "srs-fleet-manager.registry.instances.eval.lifetime-seconds")
-    Integer evalLifetimeSeconds;
-
     @Inject
     ResourceStorage storage;
 
@@ -64,6 +55,12 @@ public class ProvisionRegistryTenantWorker extends AbstractWorker {
     @Inject
     AccountManagementService accountManagementService;
 
+    @Inject
+    WorkerTransactions txs;
+
+    @Inject
+    PlacementEngine placement;
+
     public ProvisionRegistryTenantWorker() {
         super(PROVISION_REGISTRY_TENANT_W);
     }
@@ -73,18 +70,19 @@ public class ProvisionRegistryTenantWorker extends AbstractWorker {
         return PROVISION_REGISTRY_TENANT_T.name().equals(task.getType());
     }
 
-    @Transactional
     @Override
     public void execute(Task aTask, WorkerContext ctl) throws RegistryStorageConflictException, TenantManagerServiceException {
-        // TODO Split along failure points?
+        // The remote call is made outside of a transaction, so each step must reload the registry
         ProvisionRegistryTenantTask task = (ProvisionRegistryTenantTask) aTask;
 
-        Optional<RegistryData> registryOptional = storage.getRegistryById(task.getRegistryId());
-        // NOTE: Failure point 1
-        if (registryOptional.isEmpty()) {
-            ctl.retry();
-        }
-        RegistryData registry = registryOptional.get();
+        RegistryData registry = txs.call(this, () -> {
+            Optional<RegistryData> registryOptional = storage.getRegistryById(task.getRegistryId());
+            // NOTE: Failure point 1
+            if (registryOptional.isEmpty()) {
+                ctl.retry();
+            }
+            return registryOptional.get();
+        });
 
         RegistryDeploymentData registryDeployment = registry.getRegistryDeployment();
         // NOTE: Failure point 2
@@ -104,7 +102,6 @@ public class ProvisionRegistryTenantWorker extends AbstractWorker {
             }
             registryUrl += "t/" + registry.getId();
         }
-        registry.setRegistryUrl(registryUrl);
 
         // Avoid accidentally creating orphan tenants
         if (task.getRegistryTenantId() == null) {
@@ -124,34 +121,34 @@ public class ProvisionRegistryTenantWorker extends AbstractWorker {
             task.setRegistryTenantId(registry.getId());
         }
 
-        // Add expiration task if this is an eval instance
-        if (isEvalInstance(registry.getInstanceType())) {
-            var expiration = Instant.now().plus(Duration.ofSeconds(evalLifetimeSeconds));
-            log.debug("Scheduling an expiration task for the eval instance {} to be executed at {}", registry, expiration);
-            ctl.delay(() -> tasks.submit(EvalInstanceExpirationRegistryTask.builder()
-                    .registryId(registry.getId())
-                    .schedule(TaskSchedule.builder()
-                            .firstExecuteAt(expiration)
-                            .build())
-                    .build()));
-        }
+        // Eval instances are deprovisioned by EvalInstanceExpirationSweepWorker when they expire
 
         // NOTE: Failure point 5
-        registry.setStatus(RegistryStatusValueDto.READY.value());
-        storage.createOrUpdateRegistry(registry);
+        // The registry URL marks the success state, so it is only stored together with the status
+        String finalRegistryUrl = registryUrl;
+        txs.run(this, () -> {
+            Optional<RegistryData> registryOptional = storage.getRegistryById(task.getRegistryId());
+            if (registryOptional.isEmpty()) {
+                // Deleted in the meantime, the tenant is cleaned up in finallyExecute
+                ctl.retry();
+            }
+            var current = registryOptional.get();
+            current.setRegistryUrl(finalRegistryUrl);
+            current.setStatus(RegistryStatusValueDto.READY.value());
+            storage.createOrUpdateRegistry(current);
+        });
 
         // TODO This task is (temporarily) not used. Enable when needed.
         // Update status to available in the heartbeat task, which should run ASAP
         //ctl.delay(() -> tasks.submit(RegistryHeartbeatTask.builder().registryId(registry.getId()).build()));
     }
 
-    @Transactional
     @Override
-    public void finallyExecute(Task aTask, WorkerContext ctl, Optional<Exception> error) throws RegistryNotFoundException, RegistryStorageConflictException, SubscriptionNotFoundServiceException, AccountManagementServiceException, TenantManagerServiceException {
+    public void finallyExecute(Task aTask, WorkerContext ctl, Optional<Exception> error) throws StorageException, SubscriptionNotFoundServiceException, AccountManagementServiceException, TenantManagerServiceException {
 
         ProvisionRegistryTenantTask task = (ProvisionRegistryTenantTask) aTask;
 
-        RegistryData registry = storage.getRegistryById(task.getRegistryId()).orElse(null);
+        RegistryData registry = txs.call(this, () -> storage.getRegistryById(task.getRegistryId()).orElse(null));
 
         RegistryDeploymentData registryDeployment = null;
         if (registry != null)
@@ -178,11 +175,8 @@ public class ProvisionRegistryTenantWorker extends AbstractWorker {
 
         // Remove registry entity
         if (registry != null) {
-            storage.deleteRegistry(registry.getId());
+            txs.run(this, () -> storage.deleteRegistry(registry.getId()));
+            placement.removed(registry);
         }
     }
-
-    private boolean isEvalInstance(String instanceType) {
-        return RegistryInstanceTypeValueDto.of(instanceType) == RegistryInstanceTypeValueDto.EVAL;
-    }
 }
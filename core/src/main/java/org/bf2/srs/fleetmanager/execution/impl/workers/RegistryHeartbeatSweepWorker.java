@@ -0,0 +1,151 @@
+package org.bf2.srs.fleetmanager.execution.impl.workers;
+
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryHeartbeatSweepTask;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.WorkerContext;
+import org.bf2.srs.fleetmanager.spi.tenants.TenantManagerService;
+import org.bf2.srs.fleetmanager.spi.tenants.model.TenantManagerConfig;
+import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.REGISTRY_HEARTBEAT_SWEEP_T;
+import static org.bf2.srs.fleetmanager.execution.impl.workers.WorkerType.REGISTRY_HEARTBEAT_SWEEP_W;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.FAILED;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.PROVISIONING;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.READY;
+
+/**
+ * Checks the availability of all Registry instances of a deployment in a single execution,
+ * so the cost of heartbeats grows with the number of deployments, not Registry instances.
+ * <p>
+ * Registry instances are read in pages ordered by ID, tenants of a page are pinged in parallel batches,
+ * and the status changes of a page are written in a single update.
+ * <p>
+ * This class MUST be thread safe. It should not contain state and inject thread safe beans only.
+ */
+@ApplicationScoped
+public class RegistryHeartbeatSweepWorker extends AbstractWorker {
+
+    private static final Set<String> CHECKED_STATUSES = Set.of(PROVISIONING.value(), READY.value());
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Inject
+    ResourceStorage storage;
+
+    @Inject
+    TenantManagerService tms;
+
+    @ConfigProperty(name = "srs-fleet-manager.execution.registry-heartbeat.page-size", defaultValue = "100")
+    int pageSize;
+
+    @ConfigProperty(name = "srs-fleet-manager.execution.registry-heartbeat.parallelism", defaultValue = "10")
+    int parallelism;
+
+    Executor executor = Infrastructure.getDefaultWorkerPool();
+
+    public RegistryHeartbeatSweepWorker() {
+        super(REGISTRY_HEARTBEAT_SWEEP_W);
+    }
+
+    @Override
+    public boolean supports(Task task) {
+        return REGISTRY_HEARTBEAT_SWEEP_T.name().equals(task.getType());
+    }
+
+    @Override
+    public void execute(Task aTask, WorkerContext ctl) {
+        var task = (RegistryHeartbeatSweepTask) aTask;
+        var deploymentOptional = storage.getRegistryDeploymentById(task.getDeploymentId());
+        if (deploymentOptional.isEmpty()) {
+            log.warn("RegistryDeployment id='{}' not found. Stopping.", task.getDeploymentId());
+            ctl.stop();
+            return; // Unreachable
+        }
+        var tmc = Utils.createTenantManagerConfig(deploymentOptional.get());
+
+        int checked = 0;
+        int updated = 0;
+        String afterId = null;
+        List<RegistryData> page;
+        do {
+            page = storage.getRegistriesByDeployment(task.getDeploymentId(), afterId, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+
+            List<RegistryData> candidates = new ArrayList<>();
+            for (RegistryData registry : page) {
+                if (CHECKED_STATUSES.contains(registry.getStatus())) {
+                    candidates.add(registry);
+                }
+            }
+            var available = ping(tmc, candidates);
+            checked += candidates.size();
+
+            List<String> ready = new ArrayList<>();
+            List<String> failed = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                var registry = candidates.get(i);
+                var isAvailable = available.get(i);
+                if (isAvailable == null) {
+                    continue; // Unknown, keep the current status
+                }
+                if (isAvailable) {
+                    if (!READY.value().equals(registry.getStatus())) {
+                        ready.add(registry.getId());
+                    }
+                } else {
+                    log.warn("Registry id='{}' is not available.", registry.getId());
+                    failed.add(registry.getId());
+                    // TODO Set failed_reason
+                }
+            }
+            updated += storage.updateRegistryStatus(ready, Set.of(PROVISIONING.value()), READY.value());
+            updated += storage.updateRegistryStatus(failed, CHECKED_STATUSES, FAILED.value());
+
+        } while (page.size() == pageSize);
+
+        log.debug("RegistryDeployment id='{}': Checked {} Registry instances, updated {}.",
+                task.getDeploymentId(), checked, updated);
+    }
+
+    /**
+     * @return for each registry, in the same order, whether its tenant is available, or null if the check failed
+     */
+    private List<Boolean> ping(TenantManagerConfig tmc, List<RegistryData> registries) {
+        List<Boolean> results = new ArrayList<>(registries.size());
+        for (int from = 0; from < registries.size(); from += parallelism) {
+            var batch = registries.subList(from, Math.min(from + parallelism, registries.size()));
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>(batch.size());
+            for (RegistryData registry : batch) {
+                futures.add(CompletableFuture.supplyAsync(() -> tms.pingTenant(tmc, registry.getId()), executor)
+                        .exceptionally(ex -> {
+                            log.warn("Could not check availability of Registry id='{}': {}", registry.getId(), ex.getMessage());
+                            return null;
+                        }));
+            }
+            futures.forEach(f -> results.add(f.join()));
+        }
+        return results;
+    }
+
+    @Override
+    public void finallyExecute(Task aTask, WorkerContext ctl, Optional<Exception> error) {
+        // NOOP
+    }
+}
@@ -0,0 +1,118 @@
+package org.bf2.srs.fleetmanager.execution.impl.workers;
+
+import io.micrometer.core.instrument.Tag;
+import lombok.SneakyThrows;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.bf2.srs.fleetmanager.operation.metrics.TimerService;
+
+import java.util.List;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.TransactionManager;
+
+/**
+ * Runs steps of a worker in short database transactions,
+ * so that remote calls (e.g. to the Tenant Manager or AMS) can be made between them
+ * without holding a pooled connection.
+ * <p>
+ * Workers using this class MUST NOT be annotated with `@Transactional`,
+ * and MUST NOT keep using entities loaded in a previous step, since they are detached when the step ends.
+ * <p>
+ * The transaction is rolled back if the step throws an unchecked exception,
+ * and committed otherwise, the same as with `@Transactional`.
+ * If a transaction is already active, the step joins it, and an unchecked exception marks it for rollback.
+ */
+@ApplicationScoped
+public class WorkerTransactions {
+
+    @Inject
+    TransactionManager tm;
+
+    @Inject
+    TimerService timerService;
+
+    public <R, E extends Exception> R call(AbstractWorker worker, Step<R, E> step) throws E {
+        if (isActive()) {
+            // Already in a transaction, the hold time is recorded by the caller
+            try {
+                return step.call();
+            } catch (RuntimeException | Error ex) {
+                setRollbackOnly();
+                throw ex;
+            }
+        }
+        var sample = timerService.start();
+        boolean error = true;
+        begin();
+        try {
+            R result;
+            try {
+                result = step.call();
+            } catch (RuntimeException | Error ex) {
+                rollback();
+                throw ex;
+            } catch (Exception ex) {
+                commit();
+                throw ex;
+            }
+            commit();
+            error = false;
+            return result;
+        } finally {
+            timerService.record(Constants.WORKER_TRANSACTION_TIMER, Constants.WORKER_TRANSACTION_TIMER_DESCRIPTION,
+                    List.of(Tag.of(Constants.TAG_WORKER_TYPE, worker.getType()), Tag.of(Constants.TAG_ERROR, String.valueOf(error))),
+                    sample);
+        }
+    }
+
+    public <E extends Exception> void run(AbstractWorker worker, VoidStep<E> step) throws E {
+        call(worker, () -> {
+            step.run();
+            return null;
+        });
+    }
+
+    @SneakyThrows
+    private boolean isActive() {
+        return tm.getStatus() == Status.STATUS_ACTIVE;
+    }
+
+    @SneakyThrows
+    private void setRollbackOnly() {
+        tm.setRollbackOnly();
+    }
+
+    @SneakyThrows
+    private void begin() {
+        tm.begin();
+    }
+
+    @SneakyThrows
+    private void commit() {
+        if (tm.getStatus() == Status.STATUS_MARKED_ROLLBACK) {
+            tm.rollback();
+        } else {
+            tm.commit();
+        }
+    }
+
+    @SneakyThrows
+    private void rollback() {
+        if (tm.getStatus() != Status.STATUS_NO_TRANSACTION) {
+            tm.rollback();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Step<R, E extends Exception> {
+
+        R call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface VoidStep<E extends Exception> {
+
+        void run() throws E;
+    }
+}
@@ -18,4 +18,6 @@ public enum WorkerType {
     EVAL_INSTANCE_EXPIRATION_REGISTRY_W,
 
     REGISTRY_DEPLOYMENT_HEARTBEAT_W,
+    REGISTRY_HEARTBEAT_SWEEP_W,
+    EVAL_INSTANCE_EXPIRATION_SWEEP_W,
 }
@@ -4,12 +4,13 @@ import java.util.Optional;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import javax.transaction.Transactional;
 
+import org.bf2.srs.fleetmanager.execution.impl.placement.PlacementEngine;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.DeprovisionRegistryTask;
 import org.bf2.srs.fleetmanager.execution.impl.workers.AbstractWorker;
 import org.bf2.srs.fleetmanager.execution.impl.workers.Utils;
+import org.bf2.srs.fleetmanager.execution.impl.workers.WorkerTransactions;
 import org.bf2.srs.fleetmanager.execution.impl.workers.WorkerType;
 import org.bf2.srs.fleetmanager.execution.manager.Task;
 import org.bf2.srs.fleetmanager.execution.manager.WorkerContext;
@@ -22,9 +23,9 @@ import org.bf2.srs.fleetmanager.spi.tenants.TenantManagerService;
 import org.bf2.srs.fleetmanager.spi.tenants.TenantManagerServiceException;
 import org.bf2.srs.fleetmanager.spi.tenants.TenantNotFoundServiceException;
 import org.bf2.srs.fleetmanager.spi.tenants.model.TenantManagerConfig;
-import org.bf2.srs.fleetmanager.storage.RegistryNotFoundException;
 import org.bf2.srs.fleetmanager.storage.RegistryStorageConflictException;
 import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.StorageException;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentData;
 import org.slf4j.Logger;
@@ -47,6 +48,12 @@ public class DeprovisionRegistryWorker extends AbstractWorker {
     @Inject
     AccountManagementService ams;
 
+    @Inject
+    WorkerTransactions txs;
+
+    @Inject
+    PlacementEngine placement;
+
     public DeprovisionRegistryWorker() {
         super(WorkerType.DEPROVISION_REGISTRY_W);
     }
@@ -56,11 +63,11 @@ public class DeprovisionRegistryWorker extends AbstractWorker {
         return TaskType.DEPROVISION_REGISTRY_T.name().equals(task.getType());
     }
 
-    @Transactional
     @Override
-    public void execute(Task aTask, WorkerContext ctl) throws RegistryStorageConflictException, RegistryNotFoundException, AccountManagementServiceException, TenantManagerServiceException {
+    public void execute(Task aTask, WorkerContext ctl) throws StorageException, AccountManagementServiceException, TenantManagerServiceException {
+        // The remote calls are made outside of a transaction, the progress is tracked in the task
         var task = (DeprovisionRegistryTask) aTask;
-        var registryOptional = storage.getRegistryById(task.getRegistryId());
+        var registryOptional = txs.call(this, () -> storage.getRegistryById(task.getRegistryId()));
 
         if (registryOptional.isPresent()) { // FAILURE POINT 1
 
@@ -113,30 +120,32 @@ public class DeprovisionRegistryWorker extends AbstractWorker {
              * Recovery: We set the status to failed so it can be retried.
              * Reentrancy: This is the last step, so nothing to do.
              */
-            storage.deleteRegistry(registry.getId());
+            txs.run(this, () -> storage.deleteRegistry(registry.getId()));
+            placement.removed(registry);
         } else {
             log.debug("Registry id='{}' not found. Stopping.", task.getRegistryId());
             ctl.stop();
         }
     }
 
-    @Transactional
     @Override
-    public void finallyExecute(Task aTask, WorkerContext ctl, Optional<Exception> error) throws RegistryNotFoundException, RegistryStorageConflictException {
+    public void finallyExecute(Task aTask, WorkerContext ctl, Optional<Exception> error) throws RegistryStorageConflictException {
         DeprovisionRegistryTask task = (DeprovisionRegistryTask) aTask;
-        Optional<RegistryData> registry = storage.getRegistryById(task.getRegistryId());
-
-        if (registry.isPresent()) {
-            var reg = registry.get();
-            // Failure - Could not delete tenant or update status
-            // Try updating status to failed, otherwise user can retry.
-            reg.setStatus(RegistryStatusValueDto.FAILED.value());
-            // TODO Add failed_reason
-            storage.createOrUpdateRegistry(reg);
-            log.warn("Failed to deprovision Registry: {}", registry);
-        } else {
-            // SUCCESS
-            log.debug("Registry (ID = {}) has been deleted.", task.getRegistryId());
-        }
+        txs.run(this, () -> {
+            Optional<RegistryData> registry = storage.getRegistryById(task.getRegistryId());
+
+            if (registry.isPresent()) {
+                var reg = registry.get();
+                // Failure - Could not delete tenant or update status
+                // Try updating status to failed, otherwise user can retry.
+                reg.setStatus(RegistryStatusValueDto.FAILED.value());
+                // TODO Add failed_reason
+                storage.createOrUpdateRegistry(reg);
+                log.warn("Failed to deprovision Registry: {}", registry);
+            } else {
+                // SUCCESS
+                log.debug("Registry (ID = {}) has been deleted.", task.getRegistryId());
+            }
+        });
     }
 }
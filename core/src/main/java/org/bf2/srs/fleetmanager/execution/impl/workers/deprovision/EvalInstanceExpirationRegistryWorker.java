@@ -1,38 +1,32 @@
 package org.bf2.srs.fleetmanager.execution.impl.workers.deprovision;
 
 import org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType;
-import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.DeprovisionRegistryTask;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.EvalInstanceExpirationRegistryTask;
 import org.bf2.srs.fleetmanager.execution.impl.workers.AbstractWorker;
 import org.bf2.srs.fleetmanager.execution.impl.workers.WorkerType;
 import org.bf2.srs.fleetmanager.execution.manager.Task;
-import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
 import org.bf2.srs.fleetmanager.execution.manager.WorkerContext;
 import org.bf2.srs.fleetmanager.storage.RegistryNotFoundException;
 import org.bf2.srs.fleetmanager.storage.RegistryStorageConflictException;
-import org.bf2.srs.fleetmanager.storage.ResourceStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
 import javax.enterprise.context.ApplicationScoped;
-import javax.inject.Inject;
 import javax.transaction.Transactional;
 
 /**
+ * Replaced by {@link EvalInstanceExpirationSweepWorker}.
+ * Kept so that previously persisted tasks are loaded and removed.
+ *
  * @author Jakub Senko <jsenko@redhat.com>
  */
+@Deprecated
 @ApplicationScoped
 public class EvalInstanceExpirationRegistryWorker extends AbstractWorker {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    @Inject
-    ResourceStorage storage;
-
-    @Inject
-    TaskManager tasks;
-
     public EvalInstanceExpirationRegistryWorker() {
         super(WorkerType.EVAL_INSTANCE_EXPIRATION_REGISTRY_W);
     }
@@ -42,14 +36,11 @@ public class EvalInstanceExpirationRegistryWorker extends AbstractWorker {
         return TaskType.EVAL_INSTANCE_EXPIRATION_REGISTRY_T.name().equals(task.getType());
     }
 
-    @Transactional
     @Override
     public void execute(Task aTask, WorkerContext ctx) {
-
         EvalInstanceExpirationRegistryTask task = (EvalInstanceExpirationRegistryTask) aTask;
-        // Nothing to do, the heavy lifting is done by the deprovisioning task.
-        log.debug("Initiating deprovisioning of an eval instance, registry id = '{}'", task.getRegistryId());
-        ctx.delay(() -> tasks.submit(DeprovisionRegistryTask.builder().registryId(task.getRegistryId()).build()));
+        log.info("Registry id='{}': Expiration is checked by {}. Stopping.", task.getRegistryId(), TaskType.EVAL_INSTANCE_EXPIRATION_SWEEP_T);
+        ctx.stop();
     }
 
     @Transactional
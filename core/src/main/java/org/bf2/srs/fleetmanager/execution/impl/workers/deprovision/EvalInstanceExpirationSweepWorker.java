@@ -0,0 +1,103 @@
+package org.bf2.srs.fleetmanager.execution.impl.workers.deprovision;
+
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.DeprovisionRegistryTask;
+import org.bf2.srs.fleetmanager.execution.impl.workers.AbstractWorker;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.bf2.srs.fleetmanager.execution.manager.WorkerContext;
+import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import static java.util.stream.Collectors.toList;
+import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.EVAL_INSTANCE_EXPIRATION_SWEEP_T;
+import static org.bf2.srs.fleetmanager.execution.impl.workers.WorkerType.EVAL_INSTANCE_EXPIRATION_SWEEP_W;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto.EVAL;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.DEPROVISIONING_DELETING;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.FAILED;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.READY;
+
+/**
+ * Deprovisions eval instances created more than `srs-fleet-manager.registry.instances.eval.lifetime-seconds` ago.
+ * Expired instances are found using an index on the instance type and creation time,
+ * so no task has to be kept for each eval instance.
+ * <p>
+ * At most `srs-fleet-manager.registry.instances.eval.expiration.batch-size` instances, oldest first,
+ * are deprovisioned per execution, so a spike of new eval instances does not cause a spike of deprovisioning later.
+ * <p>
+ * The deprovisioning tasks are submitted before the status of the instances is changed,
+ * so an instance is never left being deprovisioned without a task. If the execution fails in between,
+ * the instances are found again by the next execution, and their tasks are deduplicated.
+ * The execution is therefore not transactional, since a deduplicated submission must not join a transaction.
+ * <p>
+ * This class MUST be thread safe. It should not contain state and inject thread safe beans only.
+ */
+@ApplicationScoped
+public class EvalInstanceExpirationSweepWorker extends AbstractWorker {
+
+    private static final Set<String> EXPIRED_STATUSES = Set.of(READY.value(), FAILED.value());
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @ConfigProperty(name = "srs-fleet-manager.registry.instances.eval.lifetime-seconds")
+    Integer evalLifetimeSeconds;
+
+    @ConfigProperty(name = "srs-fleet-manager.registry.instances.eval.expiration.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "srs-fleet-manager.registry.instances.eval.expiration.batch-size", defaultValue = "20")
+    int batchSize;
+
+    @Inject
+    ResourceStorage storage;
+
+    @Inject
+    TaskManager tasks;
+
+    public EvalInstanceExpirationSweepWorker() {
+        super(EVAL_INSTANCE_EXPIRATION_SWEEP_W);
+    }
+
+    @Override
+    public boolean supports(Task task) {
+        return EVAL_INSTANCE_EXPIRATION_SWEEP_T.name().equals(task.getType());
+    }
+
+    @Override
+    public void execute(Task task, WorkerContext ctl) {
+        if (!enabled) {
+            log.info("Eval instance expiration is disabled. Stopping.");
+            ctl.stop();
+            return; // Unreachable
+        }
+        var createdBefore = Instant.now().minus(Duration.ofSeconds(evalLifetimeSeconds));
+        var expired = storage.getRegistriesCreatedBefore(EVAL.value(), createdBefore, EXPIRED_STATUSES, batchSize).stream()
+                .map(RegistryData::getId)
+                .collect(toList());
+        if (expired.isEmpty()) {
+            return;
+        }
+        for (String registryId : expired) {
+            var deprovision = DeprovisionRegistryTask.builder().registryId(registryId).build();
+            tasks.submit(deprovision, RegistryTask.dedupeKey(deprovision));
+        }
+        // Instances that started deprovisioning concurrently, or have already been deleted, are not updated
+        int updated = storage.updateRegistryStatus(expired, EXPIRED_STATUSES, DEPROVISIONING_DELETING.value());
+        log.info("Deprovisioning {} expired eval instances.", updated);
+    }
+
+    @Override
+    public void finallyExecute(Task task, WorkerContext ctl, Optional<Exception> error) {
+        // NOOP
+    }
+}
@@ -1,5 +1,6 @@
 package org.bf2.srs.fleetmanager.execution.impl.workers.deprovision;
 
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryTask;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.config.ExecutionProperties;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.DeprovisionRegistryTask;
@@ -104,7 +105,8 @@ public class StartDeprovisionRegistryWorker extends AbstractWorker {
 
             registry.setStatus(RegistryStatusValueDto.DEPROVISIONING_DELETING.value());
             storage.createOrUpdateRegistry(registry); // FAILURE POINT 2
-            ctl.delay(() -> tasks.submit(DeprovisionRegistryTask.builder().registryId(registry.getId()).build()));
+            var deprovision = DeprovisionRegistryTask.builder().registryId(registry.getId()).build();
+            ctl.delay(() -> tasks.submit(deprovision, RegistryTask.dedupeKey(deprovision)));
 
         } else {
             log.warn("Registry id='{}' not found. Stopping.", task.getRegistryId());
@@ -0,0 +1,18 @@
+package org.bf2.srs.fleetmanager.execution.manager;
+
+import java.time.Duration;
+
+/**
+ * Computes the delay before a failed task execution is retried.
+ * <p>
+ * Implementations MUST be thread safe.
+ */
+public interface BackoffPolicy {
+
+    /**
+     * @param retries       number of retries so far, starting with 0
+     * @param previousDelay delay before the previous retry, or zero if this is the first retry
+     * @param maxDelay      the returned delay MUST NOT be longer
+     */
+    Duration delay(int retries, Duration previousDelay, Duration maxDelay);
+}
@@ -1,8 +1,12 @@
 package org.bf2.srs.fleetmanager.execution.manager;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * @author Jakub Senko <jsenko@redhat.com>
  */
@@ -19,6 +23,33 @@ public interface TaskManager {
      */
     void submit(Task task);
 
+    /**
+     * Submit a new task for execution, unless a task with the same dedupe key has been submitted
+     * and has not been removed yet, in which case the submission is ignored.
+     * Uniqueness of the key is enforced by the job store.
+     *
+     * @param dedupeKey e.g. the task type and Registry ID, see `RegistryTask.dedupeKey`
+     * @return false if the submission has been ignored
+     */
+    boolean submit(Task task, String dedupeKey);
+
+    /**
+     * Submit a new task that continues the currently executed one, e.g. provisioning after scheduling.
+     * The task is stored as with {@link #submit(Task)}, but it is also executed immediately by this instance
+     * if there is capacity, without waiting for the job store to pick it up.
+     */
+    void submitContinuation(Task task);
+
+    /**
+     * Submit new tasks for execution, in batches.
+     * Each batch is scheduled in a single job store transaction.
+     * A task fails to be submitted if a task with the same ID already exists,
+     * or if its batch could not be scheduled.
+     *
+     * @return a result for each task, in the iteration order of the collection
+     */
+    List<TaskSubmitResult> submitAll(Collection<? extends Task> tasks);
+
     /**
      * Get a set of all tasks.
      */
@@ -31,9 +62,39 @@ public interface TaskManager {
 
     /**
      * Get a task with the given ID, if exists.
+     * Only the task with the given ID is loaded.
      */
     Optional<Task> getTaskById(String taskId);
 
+    /**
+     * Load the tasks found by {@link #searchTasks(TaskQuery)}, at once if the job store supports it.
+     * Tasks removed since the search are skipped.
+     *
+     * @return tasks in the order of the summaries
+     */
+    default List<Task> loadTasks(List<TaskSummary> summaries) {
+        return summaries.stream()
+                .map(s -> getTaskById(s.getId()))
+                .flatMap(Optional::stream)
+                .collect(toList());
+    }
+
+    /**
+     * Search for tasks using the task index, without loading the tasks.
+     *
+     * @param taskType   may be null to match any type
+     * @param registryId may be null to match tasks for any (or no) Registry
+     */
+    default List<TaskSummary> searchTasks(String taskType, String registryId) {
+        return searchTasks(TaskQuery.builder().taskType(taskType).registryId(registryId).build());
+    }
+
+    /**
+     * Search for a page of tasks using the task index, without loading the tasks.
+     * Tasks are ordered by their next execution and ID, tasks without a next execution come last.
+     */
+    List<TaskSummary> searchTasks(TaskQuery query);
+
     /**
      * Remove the task from further execution.
      */
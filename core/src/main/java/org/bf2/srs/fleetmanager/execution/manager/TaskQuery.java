@@ -0,0 +1,50 @@
+package org.bf2.srs.fleetmanager.execution.manager;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Filter and page of a task search, see {@link TaskManager#searchTasks(TaskQuery)}.
+ * Null filter fields match any value.
+ */
+@Builder
+@Getter
+@ToString
+public class TaskQuery {
+
+    private String taskType;
+
+    private String registryId;
+
+    /**
+     * Inclusive. Tasks without a next execution do not match if set.
+     */
+    private Instant nextExecuteFrom;
+
+    /**
+     * Exclusive. Tasks without a next execution do not match if set.
+     */
+    private Instant nextExecuteTo;
+
+    /**
+     * Continue after this task, e.g. the last task of the previous page,
+     * so long listings do not have to skip an increasing number of tasks.
+     * The offset is applied after it.
+     */
+    private TaskSummary after;
+
+    /**
+     * Number of matching tasks to skip.
+     */
+    @Builder.Default
+    private int offset = 0;
+
+    /**
+     * Maximum number of tasks to return.
+     */
+    @Builder.Default
+    private int limit = Integer.MAX_VALUE;
+}
@@ -33,8 +33,17 @@ public class TaskSchedule {
 
     private int priority;
 
+    /**
+     * If true, the task and worker contexts are not saved between executions,
+     * so recurring tasks do not cause a database write every interval.
+     * Retries are not tracked, and a failed execution is simply repeated at the next interval.
+     * The task can be removed by requesting a stop.
+     * Requires an interval.
+     */
+    private boolean stateless;
+
     @Builder
-    private TaskSchedule(Instant firstExecuteAt, Duration interval, Integer minRetries, Integer priority) {
+    private TaskSchedule(Instant firstExecuteAt, Duration interval, Integer minRetries, Integer priority, boolean stateless) {
         if (firstExecuteAt == null)
             firstExecuteAt = Instant.now();
         this.firstExecuteAt = firstExecuteAt;
@@ -53,5 +62,9 @@ public class TaskSchedule {
         if (priority == null)
             priority = PRIORITY_DEFAULT;
         this.priority = priority;
+
+        if (stateless && interval == null)
+            throw new IllegalArgumentException("Stateless tasks must be recurring.");
+        this.stateless = stateless;
     }
 }
@@ -0,0 +1,45 @@
+package org.bf2.srs.fleetmanager.execution.manager;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Result of submitting a single task as part of a batch.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@ToString
+public class TaskSubmitResult {
+
+    @Getter
+    private final Task task;
+
+    private final Exception error;
+
+    public static TaskSubmitResult submitted(Task task) {
+        requireNonNull(task);
+        return new TaskSubmitResult(task, null);
+    }
+
+    public static TaskSubmitResult failed(Task task, Exception error) {
+        requireNonNull(task);
+        requireNonNull(error);
+        return new TaskSubmitResult(task, error);
+    }
+
+    public boolean isSubmitted() {
+        return error == null;
+    }
+
+    /**
+     * @return the reason the task has not been submitted, if any
+     */
+    public Optional<Exception> getError() {
+        return Optional.ofNullable(error);
+    }
+}
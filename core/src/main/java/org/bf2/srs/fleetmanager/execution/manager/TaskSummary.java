@@ -0,0 +1,35 @@
+package org.bf2.srs.fleetmanager.execution.manager;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Indexed attributes of a task, available without loading the task itself.
+ */
+@AllArgsConstructor
+@Builder
+@Getter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+public class TaskSummary {
+
+    @EqualsAndHashCode.Include
+    private String id;
+
+    private String type;
+
+    /**
+     * May be null.
+     */
+    private String registryId;
+
+    /**
+     * May be null.
+     */
+    private Instant nextExecuteAt;
+}
@@ -16,7 +16,7 @@ public interface Worker {
 
     /**
      * Given a task, return `true` if this worker is supposed to process the task.
-     * This method must run as fast as possible.
+     * The result MUST depend on the task type only, since it is computed once for each type and then reused.
      */
     boolean supports(Task aTask);
 
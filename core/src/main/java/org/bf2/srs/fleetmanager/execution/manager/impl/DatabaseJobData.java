@@ -0,0 +1,25 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Job data of a task stored by {@link DatabaseTaskManager}, i.e. the encoded task and worker contexts
+ * under the keys defined in {@link QuartzIDs}, the same as in a Quartz job data map.
+ * <p>
+ * WARNING: This class and its contents MUST be serializable (and deserializable) using {@link JobDataCodec}.
+ * When performing modifications, make sure previous values remain deserializable or are otherwise handled.
+ */
+@NoArgsConstructor
+@ToString
+public class DatabaseJobData {
+
+    @Getter
+    @Setter
+    private Map<String, byte[]> values = new HashMap<>();
+}
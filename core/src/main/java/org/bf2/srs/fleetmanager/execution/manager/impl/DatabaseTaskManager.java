@@ -0,0 +1,431 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import lombok.SneakyThrows;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryTask;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.bf2.srs.fleetmanager.execution.manager.TaskQuery;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSubmitResult;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSummary;
+import org.bf2.srs.fleetmanager.operation.OperationContext;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.PanacheTaskQueueRepository;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.TaskQueueData;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Typed;
+import javax.inject.Inject;
+import javax.persistence.PersistenceException;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.bf2.srs.fleetmanager.execution.manager.impl.QuartzIDs.jobDetailKeyForTask;
+
+/**
+ * Tasks are stored in the task queue table, instead of Quartz jobs.
+ * Enabled with `srs-fleet-manager.task-manager.store=database`.
+ * <p>
+ * Each instance polls the table, and claims a batch of due tasks with SELECT ... FOR UPDATE SKIP LOCKED,
+ * by setting a lease. Concurrent claims by other instances skip the locked rows instead of waiting,
+ * unlike the clustered Quartz job store, where trigger acquisition is serialized on a single lock row.
+ * After the task is executed, it is rescheduled in place, by updating the row and releasing the lease.
+ * If an instance fails, its tasks are claimed again after the lease expires.
+ * <p>
+ * Tasks are executed by {@link TaskExecutor}, the same as with {@link QuartzTaskManager}.
+ */
+@ApplicationScoped
+@Typed(DatabaseTaskManager.class)
+public class DatabaseTaskManager implements TaskManager {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Inject
+    PanacheTaskQueueRepository queue;
+
+    @Inject
+    TaskExecutor executor;
+
+    @Inject
+    OperationContext opCtx;
+
+    @Inject
+    TaskMetrics taskMetrics;
+
+    @Inject
+    TaskContinuations continuations;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.submit-batch-size", defaultValue = "100")
+    int submitBatchSize;
+
+    @ConfigProperty(name = "quarkus.quartz.thread-count", defaultValue = "25")
+    int threadCount;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.database.poll-interval-ms", defaultValue = "500")
+    long pollIntervalMs;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.database.claim-batch-size", defaultValue = "25")
+    int claimBatchSize;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.database.lease-seconds", defaultValue = "600")
+    long leaseSeconds;
+
+    private volatile String owner;
+
+    private ScheduledExecutorService poller;
+
+    private ExecutorService threads;
+
+    /**
+     * Threads that are not executing a task, so the instance does not claim more tasks than it can execute.
+     */
+    private Semaphore idleThreads;
+
+    @Override
+    public synchronized void start() {
+        if (poller != null) {
+            throw new IllegalStateException("Task manager is already started.");
+        }
+        owner = UUID.randomUUID().toString();
+        idleThreads = new Semaphore(threadCount);
+        threads = Executors.newFixedThreadPool(threadCount);
+        poller = Executors.newSingleThreadScheduledExecutor();
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Database task manager started with {} threads, lease owner is {}.", threadCount, owner);
+    }
+
+    private void poll() {
+        try {
+            int claimed;
+            do {
+                int limit = Math.min(claimBatchSize, idleThreads.availablePermits());
+                if (limit == 0) {
+                    return;
+                }
+                var now = Instant.now();
+                var entries = queue.claim(owner, now, now.plus(Duration.ofSeconds(leaseSeconds)), limit);
+                for (TaskQueueData entry : entries) {
+                    // Only the poller acquires permits, so this does not fail
+                    idleThreads.acquire();
+                    threads.execute(() -> {
+                        try {
+                            execute(entry);
+                        } finally {
+                            idleThreads.release();
+                        }
+                    });
+                }
+                claimed = entries.size();
+                // Continue while there may be more due tasks
+            } while (claimed == claimBatchSize);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            // Do not cancel the polling
+            log.warn("Could not claim tasks from the task queue.", ex);
+        }
+    }
+
+    private void execute(TaskQueueData entry) {
+        var execution = new DatabaseTaskExecution(entry);
+        try {
+            executor.execute(execution);
+        } catch (Exception ex) {
+            // The task is executed again after the lease expires
+            log.warn("Task Manager (task ID = {}): Task execution failed, lease expires at {}.",
+                    entry.getTaskId(), entry.getLeaseUntil(), ex);
+            return;
+        }
+        execution.complete();
+    }
+
+    @SneakyThrows
+    @Override
+    public void submit(Task task) {
+        var result = submitAll(List.of(task)).get(0);
+        if (!result.isSubmitted()) {
+            throw result.getError().get();
+        }
+    }
+
+    /**
+     * A concurrent submission with the same key fails on the unique constraint of the task queue,
+     * and is ignored the same as if the key had been found.
+     */
+    @Override
+    public boolean submit(Task task, String dedupeKey) {
+        requireNonNull(dedupeKey);
+        var entry = createEntry(task);
+        entry.setDedupeKey(dedupeKey);
+        boolean inserted;
+        try {
+            inserted = queue.insertUnique(entry);
+        } catch (PersistenceException ex) {
+            if (ex.getCause() instanceof ConstraintViolationException) {
+                inserted = false;
+            } else {
+                throw ex;
+            }
+        }
+        if (!inserted) {
+            log.debug("Task {} has not been submitted, a task with the dedupe key {} already exists.", task, dedupeKey);
+            taskMetrics.recordDeduplicated(task);
+        }
+        return inserted;
+    }
+
+    /**
+     * The task is stored as already claimed by this instance,
+     * so it is executed by other instances only if the lease expires.
+     * The lease is renewed while the continuation is executed, see {@link TaskContinuations}.
+     */
+    @SneakyThrows
+    @Override
+    public void submitContinuation(Task task) {
+        var leaseOwner = owner;
+        if (leaseOwner == null || !continuations.tryAcquire(task)) {
+            submit(task);
+            return;
+        }
+        var entry = createEntry(task);
+        entry.setLeaseOwner(leaseOwner);
+        entry.setLeaseUntil(Instant.now().plus(Duration.ofSeconds(leaseSeconds)));
+        try {
+            if (!queue.insertNew(List.of(entry)).isEmpty()) {
+                throw alreadyExists(task);
+            }
+        } catch (Exception ex) {
+            continuations.release();
+            throw ex;
+        }
+        continuations.execute(task, () -> execute(entry),
+                () -> queue.renew(entry.getTaskId(), leaseOwner, Instant.now().plus(Duration.ofSeconds(leaseSeconds))));
+    }
+
+    @Override
+    public List<TaskSubmitResult> submitAll(Collection<? extends Task> tasks) {
+        requireNonNull(tasks);
+        var results = new ArrayList<TaskSubmitResult>(tasks.size());
+        var batch = new ArrayList<Task>(submitBatchSize);
+        for (Task task : tasks) {
+            batch.add(task);
+            if (batch.size() == submitBatchSize) {
+                submitBatch(batch, results);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            submitBatch(batch, results);
+        }
+        return results;
+    }
+
+    private void submitBatch(List<Task> batch, List<TaskSubmitResult> results) {
+        // Results are added in the order of the batch
+        var batchResults = new TaskSubmitResult[batch.size()];
+        Map<Integer, TaskQueueData> entries = new LinkedHashMap<>();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            var task = batch.get(i);
+            if (ids.add(task.getId())) {
+                entries.put(i, createEntry(task));
+            } else {
+                batchResults[i] = TaskSubmitResult.failed(task, alreadyExists(task));
+            }
+        }
+        try {
+            var existing = queue.insertNew(new ArrayList<>(entries.values()));
+            entries.keySet().forEach(i -> batchResults[i] = existing.contains(batch.get(i).getId()) ?
+                    TaskSubmitResult.failed(batch.get(i), alreadyExists(batch.get(i))) :
+                    TaskSubmitResult.submitted(batch.get(i)));
+        } catch (Exception ex) {
+            log.warn("Could not submit a batch of {} task(s).", entries.size(), ex);
+            entries.keySet().forEach(i -> batchResults[i] = TaskSubmitResult.failed(batch.get(i), ex));
+        }
+        results.addAll(Arrays.asList(batchResults));
+    }
+
+    private static Exception alreadyExists(Task task) {
+        return new IllegalStateException("Task with ID " + task.getId() + " already exists.");
+    }
+
+    private TaskQueueData createEntry(Task task) {
+        // Include Operation Context to newly created tasks
+        task.setOperationContextData(opCtx.getContextData());
+
+        var data = new DatabaseJobData();
+        data.getValues().put(jobDetailKeyForTask(), JobDataCodec.encode(task));
+        return TaskQueueData.builder()
+                .taskId(task.getId())
+                .taskType(task.getType())
+                .registryId(task instanceof RegistryTask ? ((RegistryTask) task).getRegistryId() : null)
+                .priority(task.getSchedule().getPriority())
+                .nextExecuteAt(task.getSchedule().getFirstExecuteAt())
+                .jobData(JobDataCodec.encode(data))
+                .build();
+    }
+
+    @Override
+    public Set<Task> getAllTasks() {
+        return queue.getAll().stream()
+                .map(DatabaseTaskManager::loadTask)
+                .collect(toSet());
+    }
+
+    @Override
+    public Set<Task> getTasksByType(String taskType) {
+        return queue.getByType(taskType).stream()
+                .map(DatabaseTaskManager::loadTask)
+                .collect(toSet());
+    }
+
+    @Override
+    public Optional<Task> getTaskById(String taskId) {
+        requireNonNull(taskId);
+        return queue.get(taskId).map(DatabaseTaskManager::loadTask);
+    }
+
+    @Override
+    public List<Task> loadTasks(List<TaskSummary> summaries) {
+        var entries = queue.getByIds(summaries.stream().map(TaskSummary::getId).collect(toList())).stream()
+                .collect(toMap(TaskQueueData::getTaskId, e -> e));
+        return summaries.stream()
+                .map(s -> entries.get(s.getId()))
+                .filter(Objects::nonNull)
+                .map(DatabaseTaskManager::loadTask)
+                .collect(toList());
+    }
+
+    private static Task loadTask(TaskQueueData entry) {
+        var data = JobDataCodec.decode(entry.getJobData(), DatabaseJobData.class);
+        return JobDataCodec.decode(data.getValues().get(jobDetailKeyForTask()), Task.class);
+    }
+
+    @Override
+    public List<TaskSummary> searchTasks(TaskQuery query) {
+        var after = Optional.ofNullable(query.getAfter());
+        return queue.search(query.getTaskType(), query.getRegistryId(),
+                        query.getNextExecuteFrom(), query.getNextExecuteTo(),
+                        after.map(TaskSummary::getNextExecuteAt).orElse(null), after.map(TaskSummary::getId).orElse(null),
+                        query.getOffset(), query.getLimit())
+                .stream()
+                .map(e -> TaskSummary.builder()
+                        .id(e.getTaskId())
+                        .type(e.getTaskType())
+                        .registryId(e.getRegistryId())
+                        .nextExecuteAt(e.getNextExecuteAt())
+                        .build())
+                .collect(toList());
+    }
+
+    @Override
+    public void remove(Task task) {
+        queue.remove(task.getId());
+    }
+
+    @SneakyThrows
+    @Override
+    public synchronized void stop() {
+        if (poller == null) {
+            return;
+        }
+        poller.shutdownNow();
+        threads.shutdown();
+        // Running tasks are completed, and their leases released
+        if (!threads.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Tasks are still being executed after the task manager has been stopped.");
+        }
+        poller = null;
+        owner = null;
+    }
+
+    private class DatabaseTaskExecution implements TaskExecution {
+
+        private final TaskQueueData entry;
+
+        private final DatabaseJobData data;
+
+        private Instant next;
+
+        private int deferrals;
+
+        private boolean removed;
+
+        private DatabaseTaskExecution(TaskQueueData entry) {
+            this.entry = entry;
+            this.data = JobDataCodec.decode(entry.getJobData(), DatabaseJobData.class);
+        }
+
+        @Override
+        public Object getData(String key) {
+            return data.getValues().get(key);
+        }
+
+        @Override
+        public void putData(String key, byte[] encoded) {
+            data.getValues().put(key, encoded);
+        }
+
+        @Override
+        public Optional<Instant> getScheduledAt() {
+            return Optional.of(entry.getNextExecuteAt());
+        }
+
+        @Override
+        public int getDeferrals() {
+            return entry.getDeferrals();
+        }
+
+        @Override
+        public void reschedule(Task task, Instant at, int deferrals) {
+            // Saved when the execution is complete
+            this.next = at;
+            this.deferrals = deferrals;
+        }
+
+        @Override
+        public void remove(Task task) {
+            DatabaseTaskManager.this.remove(task);
+            removed = true;
+        }
+
+        /**
+         * Reschedule the task in place, or remove it if it has not been rescheduled.
+         */
+        private void complete() {
+            if (removed) {
+                return;
+            }
+            if (next == null) {
+                queue.remove(entry.getTaskId());
+                return;
+            }
+            if (!queue.release(entry.getTaskId(), owner, JobDataCodec.encode(data), next, deferrals)) {
+                log.warn("Task Manager (task ID = {}): Task has been removed or claimed by another instance during execution.",
+                        entry.getTaskId());
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import org.bf2.srs.fleetmanager.execution.manager.BackoffPolicy;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * delay = random between the base delay and 3 * previous delay, capped at the maximum delay.
+ * <p>
+ * The delay grows roughly exponentially, but tasks that failed at the same time
+ * (e.g. during an outage of a remote service) are spread out when retried.
+ */
+public class DecorrelatedJitterBackoffPolicy implements BackoffPolicy {
+
+    public static final String NAME = "decorrelated-jitter";
+
+    private final long baseMillis;
+
+    public DecorrelatedJitterBackoffPolicy(Duration base) {
+        if (base.isNegative() || base.isZero())
+            throw new IllegalArgumentException("Base delay must be positive.");
+        this.baseMillis = base.toMillis();
+    }
+
+    @Override
+    public Duration delay(int retries, Duration previousDelay, Duration maxDelay) {
+        long previousMillis = Math.max(baseMillis, previousDelay.toMillis());
+        // Prevent overflow
+        long upperMillis = Math.min(maxDelay.toMillis(), previousMillis > Long.MAX_VALUE / 3 ? Long.MAX_VALUE : previousMillis * 3);
+        if (upperMillis <= baseMillis) {
+            return Duration.ofMillis(Math.min(baseMillis, maxDelay.toMillis()));
+        }
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(baseMillis, upperMillis + 1));
+    }
+}
@@ -0,0 +1,30 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import org.bf2.srs.fleetmanager.execution.manager.BackoffPolicy;
+
+import java.time.Duration;
+
+import static java.time.Duration.ofSeconds;
+
+/**
+ * delay = 2^(retries + 2) seconds, capped at the maximum delay.
+ * <p>
+ * Deterministic, so tasks that failed at the same time are also retried at the same time.
+ */
+public class ExponentialBackoffPolicy implements BackoffPolicy {
+
+    public static final String NAME = "exponential";
+
+    @Override
+    public Duration delay(int retries, Duration previousDelay, Duration maxDelay) {
+        if (retries < 0)
+            throw new IllegalArgumentException("Argument must be non-negative.");
+        if (retries > 20) {
+            // Prevent overflow
+            return maxDelay;
+        }
+        // delay = 2^(retries + 2)
+        var delay = ofSeconds(1L << (retries + 2));
+        return (delay.compareTo(maxDelay) > 0) ? maxDelay : delay;
+    }
+}
@@ -0,0 +1,79 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.bf2.srs.fleetmanager.common.SerDesObjectMapperProducer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A single place for defining the format of values stored in the Quartz job data map.
+ * <p>
+ * Values are encoded as a format version byte, followed by the value serialized with Smile (binary JSON).
+ * Legacy values, stored as JSON strings, are still accepted, and are replaced with the current format
+ * the next time the value is saved.
+ * <p>
+ * Instances of a previous version of the application can only read the legacy format.
+ * During a rolling deployment, a job store shared by instances of both versions must therefore keep writing
+ * the legacy format (see {@link #toLegacy(byte[])}), until all instances are updated.
+ * <p>
+ * WARNING: When changing the format, add a new version and keep the previous versions decodable,
+ * since jobs persisted by a previous version of the application may still be loaded.
+ */
+public class JobDataCodec {
+
+    public static final byte FORMAT_SMILE_V1 = 1;
+
+    private static final ObjectMapper JSON_MAPPER = SerDesObjectMapperProducer.getMapper();
+
+    private static final ObjectMapper SMILE_MAPPER = SerDesObjectMapperProducer.getSmileMapper();
+
+    private JobDataCodec() {
+    }
+
+    @SneakyThrows
+    public static byte[] encode(Object value) {
+        requireNonNull(value);
+        byte[] payload = SMILE_MAPPER.writeValueAsBytes(value);
+        byte[] encoded = new byte[payload.length + 1];
+        encoded[0] = FORMAT_SMILE_V1;
+        System.arraycopy(payload, 0, encoded, 1, payload.length);
+        return encoded;
+    }
+
+    /**
+     * Convert an encoded value to the legacy format, a JSON string.
+     */
+    @SneakyThrows
+    public static String toLegacy(byte[] encoded) {
+        requireNonNull(encoded);
+        if (encoded.length == 0 || encoded[0] != FORMAT_SMILE_V1) {
+            throw new IllegalArgumentException("Unsupported job data format.");
+        }
+        return JSON_MAPPER.writeValueAsString(SMILE_MAPPER.readTree(encoded, 1, encoded.length - 1));
+    }
+
+    /**
+     * @param stored value from the job data map, either encoded or a legacy JSON string
+     */
+    @SneakyThrows
+    public static <T> T decode(Object stored, Class<T> type) {
+        requireNonNull(stored);
+        requireNonNull(type);
+        if (stored instanceof String) {
+            // Legacy format
+            return JSON_MAPPER.readValue((String) stored, type);
+        }
+        if (stored instanceof byte[]) {
+            byte[] encoded = (byte[]) stored;
+            if (encoded.length == 0) {
+                throw new IllegalArgumentException("Job data value is empty.");
+            }
+            if (encoded[0] == FORMAT_SMILE_V1) {
+                return SMILE_MAPPER.readValue(encoded, 1, encoded.length - 1, type);
+            }
+            throw new IllegalArgumentException("Unsupported job data format version " + encoded[0] + ".");
+        }
+        throw new IllegalArgumentException("Unsupported job data value type " + stored.getClass().getName() + ".");
+    }
+}
@@ -0,0 +1,103 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Low priority tasks (priority below {@link TaskSchedule#PRIORITY_DEFAULT}) may only use a part of the scheduler threads,
+ * so that a backlog of background tasks does not delay user-facing tasks.
+ * <p>
+ * Quartz orders triggers by the fire time first, and by priority only second,
+ * so the priority alone does not let a task overtake a backlog of older tasks.
+ * <p>
+ * To prevent starvation, a low priority task that has been deferred
+ * `srs-fleet-manager.task-manager.priority-lanes.max-deferrals` times is admitted regardless of the limit.
+ */
+@ApplicationScoped
+public class PriorityLanes {
+
+    @Inject
+    MeterRegistry metrics;
+
+    @ConfigProperty(name = "quarkus.quartz.thread-count", defaultValue = "25")
+    int threadCount;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.priority-lanes.reserved-threads", defaultValue = "5")
+    int reservedThreads;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.priority-lanes.max-deferrals", defaultValue = "10")
+    int maxDeferrals;
+
+    private Semaphore lowPriorityPermits;
+
+    private final AtomicInteger lowPriorityInFlight = new AtomicInteger();
+
+    private Counter deferred;
+
+    private Counter aged;
+
+    @PostConstruct
+    void init() {
+        lowPriorityPermits = new Semaphore(Math.max(1, threadCount - reservedThreads));
+        Gauge.builder(Constants.TASK_LOW_PRIORITY_IN_FLIGHT, lowPriorityInFlight, AtomicInteger::get)
+                .description(Constants.TASK_LOW_PRIORITY_IN_FLIGHT_DESCRIPTION)
+                .register(metrics);
+        deferred = Counter.builder(Constants.TASK_LOW_PRIORITY_DEFERRED)
+                .description(Constants.TASK_LOW_PRIORITY_DEFERRED_DESCRIPTION)
+                .tag(Constants.TAG_AGED, "false")
+                .register(metrics);
+        aged = Counter.builder(Constants.TASK_LOW_PRIORITY_DEFERRED)
+                .description(Constants.TASK_LOW_PRIORITY_DEFERRED_DESCRIPTION)
+                .tag(Constants.TAG_AGED, "true")
+                .register(metrics);
+    }
+
+    /**
+     * @param deferrals how many times the task has been deferred
+     * @return true if the task may be executed, in which case {@link #release(int, int)} MUST be called afterwards,
+     * with the same arguments
+     */
+    public boolean tryAcquire(int priority, int deferrals) {
+        if (!isLimited(priority, deferrals)) {
+            if (isLowPriority(priority)) {
+                // Admitted by aging
+                aged.increment();
+                lowPriorityInFlight.incrementAndGet();
+            }
+            return true;
+        }
+        if (lowPriorityPermits.tryAcquire()) {
+            lowPriorityInFlight.incrementAndGet();
+            return true;
+        }
+        deferred.increment();
+        return false;
+    }
+
+    public void release(int priority, int deferrals) {
+        if (isLowPriority(priority)) {
+            lowPriorityInFlight.decrementAndGet();
+            if (isLimited(priority, deferrals)) {
+                lowPriorityPermits.release();
+            }
+        }
+    }
+
+    private boolean isLimited(int priority, int deferrals) {
+        return isLowPriority(priority) && deferrals < maxDeferrals;
+    }
+
+    private static boolean isLowPriority(int priority) {
+        return priority < TaskSchedule.PRIORITY_DEFAULT;
+    }
+}
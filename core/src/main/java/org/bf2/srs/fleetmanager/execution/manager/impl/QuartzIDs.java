@@ -45,6 +45,10 @@ public class QuartzIDs {
         return "workerType-" + worker.getType();
     }
 
+    public static String triggerDataKeyForDeferrals() {
+        return "deferrals";
+    }
+
     public static JobKey jobKeyForTask(Task task) {
         requireNonNull(task);
         return JobKey.jobKey(idForTask(task), groupForTask(task));
@@ -54,4 +58,17 @@ public class QuartzIDs {
         requireNonNull(task);
         return TriggerKey.triggerKey(idForTask(task), groupForTask(task));
     }
+
+    /**
+     * Each job has a single trigger, with the same key.
+     */
+    public static TriggerKey triggerKeyForJob(JobKey jobKey) {
+        requireNonNull(jobKey);
+        return TriggerKey.triggerKey(jobKey.getName(), jobKey.getGroup());
+    }
+
+    public static String taskIdForJob(JobKey jobKey) {
+        requireNonNull(jobKey);
+        return jobKey.getName();
+    }
 }
@@ -1,84 +1,366 @@
 package org.bf2.srs.fleetmanager.execution.manager.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.SneakyThrows;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryTask;
 import org.bf2.srs.fleetmanager.execution.manager.Task;
 import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.bf2.srs.fleetmanager.execution.manager.TaskQuery;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSubmitResult;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSummary;
 import org.bf2.srs.fleetmanager.operation.OperationContext;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.PanacheTaskIndexRepository;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.TaskIndexData;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.exception.ConstraintViolationException;
 import org.quartz.JobBuilder;
 import org.quartz.JobDetail;
 import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.Scheduler;
+import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.impl.matchers.GroupMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Typed;
 import javax.inject.Inject;
+import javax.persistence.PersistenceException;
+import javax.transaction.Transactional;
 
 import static java.util.Date.from;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.bf2.srs.fleetmanager.execution.manager.impl.QuartzIDs.*;
 
 /**
+ * Tasks are stored as Quartz jobs. In addition, searchable attributes of each task are kept in a task index,
+ * so a task can be found by ID, and tasks can be listed, without deserializing the job data of every task.
+ * The index is updated whenever a task is submitted, rescheduled or removed, and reconciled with Quartz on start.
+ * <p>
+ * The job and the index entry are changed in the same transaction (see `jdbc_cmt` store type).
+ * Quartz throws checked exceptions, so the transaction is rolled back on any exception.
+ *
  * @author Jakub Senko <jsenko@redhat.com>
  */
 @ApplicationScoped
+@Typed(QuartzTaskManager.class)
 public class QuartzTaskManager implements TaskManager {
 
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
     @Inject
     Scheduler quartzScheduler;
 
     @Inject
-    ObjectMapper mapper; // TODO Use org.bf2.srs.fleetmanager.common.SerDesObjectMapperProducer ?
+    OperationContext opCtx;
 
     @Inject
-    OperationContext opCtx;
+    PanacheTaskIndexRepository taskIndex;
+
+    @Inject
+    TaskMetrics taskMetrics;
+
+    @Inject
+    TaskExecutor executor;
+
+    @Inject
+    TaskContinuations continuations;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.submit-batch-size", defaultValue = "100")
+    int submitBatchSize;
+
+    /**
+     * Must stay disabled until all instances sharing the job store can read the format, see {@link JobDataCodec}.
+     */
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.quartz.binary-job-data", defaultValue = "false")
+    boolean binaryJobData;
 
     @SneakyThrows
     @Override
     public void start() {
+        reconcileIndex();
         quartzScheduler.start();
     }
 
+    /**
+     * Index tasks that are missing from the index (e.g. submitted before the index existed),
+     * and remove index entries of tasks that no longer exist.
+     * Only the missing tasks are deserialized.
+     */
+    @SneakyThrows
+    private void reconcileIndex() {
+        var indexed = taskIndex.getAllTaskIds();
+        var jobKeys = quartzScheduler.getJobKeys(GroupMatcher.groupStartsWith(TASK_GROUP_PREFIX));
+        int added = 0;
+        for (JobKey jobKey : jobKeys) {
+            if (!indexed.remove(jobKey.getName())) {
+                var task = loadTask(jobKey);
+                if (task.isPresent()) {
+                    var trigger = quartzScheduler.getTrigger(triggerKeyForTask(task.get()));
+                    var next = (trigger != null && trigger.getNextFireTime() != null) ? trigger.getNextFireTime().toInstant() : null;
+                    index(task.get(), next);
+                    added++;
+                }
+            }
+        }
+        // What remains are entries without a job
+        indexed.forEach(taskIndex::remove);
+        if (added > 0 || !indexed.isEmpty()) {
+            log.info("Task index reconciled: {} task(s) added, {} stale entries removed.", added, indexed.size());
+        }
+    }
+
+    private void index(Task task, Instant nextExecuteAt) {
+        taskIndex.put(createIndexEntry(task, nextExecuteAt));
+    }
+
+    private static TaskIndexData createIndexEntry(Task task, Instant nextExecuteAt) {
+        return createIndexEntry(task, nextExecuteAt, null);
+    }
+
+    private static TaskIndexData createIndexEntry(Task task, Instant nextExecuteAt, String dedupeKey) {
+        return TaskIndexData.builder()
+                .taskId(task.getId())
+                .taskType(task.getType())
+                .registryId(task instanceof RegistryTask ? ((RegistryTask) task).getRegistryId() : null)
+                .nextExecuteAt(nextExecuteAt)
+                .dedupeKey(dedupeKey)
+                .build();
+    }
+
     @SneakyThrows
+    @Transactional(rollbackOn = Exception.class)
     @Override
     public void submit(Task task) {
+        quartzScheduler.scheduleJob(createJob(task), createTrigger(task));
+        index(task, task.getSchedule().getFirstExecuteAt());
+    }
+
+    /**
+     * A concurrent submission with the same key fails on the unique constraint of the task index,
+     * its transaction is rolled back, and the submission is ignored the same as if the key had been found.
+     * The rollback would include the caller's transaction, so this method MUST NOT be called in a transaction.
+     */
+    @Override
+    public boolean submit(Task task, String dedupeKey) {
+        requireNonNull(dedupeKey);
+        boolean submitted;
+        try {
+            submitted = submitUnique(task, dedupeKey);
+        } catch (PersistenceException ex) {
+            if (ex.getCause() instanceof ConstraintViolationException) {
+                submitted = false;
+            } else {
+                throw ex;
+            }
+        }
+        if (!submitted) {
+            log.debug("Task {} has not been submitted, a task with the dedupe key {} already exists.", task, dedupeKey);
+            taskMetrics.recordDeduplicated(task);
+        }
+        return submitted;
+    }
+
+    /**
+     * The job is scheduled, and the task indexed with the dedupe key, in the same transaction.
+     */
+    @SneakyThrows
+    @Transactional(rollbackOn = Exception.class)
+    boolean submitUnique(Task task, String dedupeKey) {
+        if (taskIndex.existsByDedupeKey(dedupeKey)) {
+            return false;
+        }
+        quartzScheduler.scheduleJob(createJob(task), createTrigger(task));
+        taskIndex.insertUnique(createIndexEntry(task, task.getSchedule().getFirstExecuteAt(), dedupeKey));
+        return true;
+    }
+
+    /**
+     * The job is triggered after a grace period, so the job store only executes it if the in-process execution
+     * does not complete, e.g. if this instance is stopped.
+     * Otherwise, the in-process execution reschedules or removes the job as usual.
+     * The trigger is postponed by the grace period while the in-process execution is running,
+     * so a long execution is not repeated by the job store, see {@link TaskContinuations}.
+     * <p>
+     * The job is committed before the in-process execution starts, so it MUST NOT be submitted in a transaction.
+     */
+    @SneakyThrows
+    @Override
+    public void submitContinuation(Task task) {
+        if (!continuations.tryAcquire(task)) {
+            submit(task);
+            return;
+        }
+        JobDetail job;
+        try {
+            job = createJob(task);
+            scheduleContinuation(task, job);
+        } catch (Exception ex) {
+            continuations.release();
+            throw ex;
+        }
+        var execution = new ContinuationExecution(task, job);
+        continuations.execute(task, () -> {
+            executor.execute(execution);
+            execution.complete();
+        }, execution::renew);
+    }
+
+    @SneakyThrows
+    @Transactional(rollbackOn = Exception.class)
+    void scheduleContinuation(Task task, JobDetail job) {
+        quartzScheduler.scheduleJob(job, createTrigger(task, Instant.now().plus(continuations.getGracePeriod())));
+        index(task, task.getSchedule().getFirstExecuteAt());
+    }
+
+    @Override
+    public List<TaskSubmitResult> submitAll(Collection<? extends Task> tasks) {
+        requireNonNull(tasks);
+        var results = new ArrayList<TaskSubmitResult>(tasks.size());
+        var batch = new ArrayList<Task>(submitBatchSize);
+        for (Task task : tasks) {
+            batch.add(task);
+            if (batch.size() == submitBatchSize) {
+                results.addAll(submitBatchOrFail(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            results.addAll(submitBatchOrFail(batch));
+        }
+        return results;
+    }
+
+    private List<TaskSubmitResult> submitBatchOrFail(List<Task> batch) {
+        try {
+            return submitBatch(batch);
+        } catch (Exception ex) {
+            log.warn("Could not submit a batch of {} task(s).", batch.size(), ex);
+            return batch.stream().map(t -> TaskSubmitResult.failed(t, ex)).collect(toList());
+        }
+    }
+
+    /**
+     * The jobs are stored, and the tasks indexed, in the same transaction,
+     * so if the batch fails, none of its tasks are submitted.
+     * Tasks that already exist, in the index or earlier in the batch, are rejected individually.
+     *
+     * @return results in the order of the batch
+     */
+    @SneakyThrows
+    @Transactional(rollbackOn = Exception.class)
+    List<TaskSubmitResult> submitBatch(List<Task> batch) {
+        var existing = taskIndex.getExistingTaskIds(batch.stream().map(Task::getId).collect(toSet()));
+        var results = new TaskSubmitResult[batch.size()];
+        Map<JobDetail, Set<? extends Trigger>> jobs = new LinkedHashMap<>();
+        Map<Integer, Task> scheduled = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            var task = batch.get(i);
+            var job = createJob(task);
+            // Quartz does not check for existing jobs before storing the batch
+            if (!existing.add(task.getId())) {
+                results[i] = TaskSubmitResult.failed(task, new ObjectAlreadyExistsException(job));
+                continue;
+            }
+            jobs.put(job, Set.of(createTrigger(task)));
+            scheduled.put(i, task);
+        }
+        if (!jobs.isEmpty()) {
+            quartzScheduler.scheduleJobs(jobs, false);
+            taskIndex.putAll(scheduled.values().stream()
+                    .map(t -> createIndexEntry(t, t.getSchedule().getFirstExecuteAt()))
+                    .collect(toList()));
+            scheduled.forEach((i, t) -> results[i] = TaskSubmitResult.submitted(t));
+        }
+        return Arrays.asList(results);
+    }
+
+    private JobDetail createJob(Task task) {
         // Include Operation Context to newly created tasks
         task.setOperationContextData(opCtx.getContextData());
 
-        String taskSerialized = mapper.writeValueAsString(task);
-
         var job = JobBuilder.newJob(JobWrapper.class)
                 .withIdentity(jobKeyForTask(task))
-                .usingJobData(jobDetailKeyForTask(), taskSerialized)
                 .build();
+        job.getJobDataMap().put(jobDetailKeyForTask(), toJobData(JobDataCodec.encode(task)));
+        return job;
+    }
 
-        Instant at = task.getSchedule().getFirstExecuteAt();
+    /**
+     * @return the value to be put into the job data map, in the configured format
+     */
+    Object toJobData(byte[] encoded) {
+        return binaryJobData ? encoded : JobDataCodec.toLegacy(encoded);
+    }
 
-        var trigger = TriggerBuilder.newTrigger()
+    private Trigger createTrigger(Task task) {
+        return createTrigger(task, task.getSchedule().getFirstExecuteAt());
+    }
+
+    private Trigger createTrigger(Task task, Instant at) {
+        return TriggerBuilder.newTrigger()
                 .withIdentity(triggerKeyForTask(task))
                 .forJob(jobKeyForTask(task))
+                .withPriority(task.getSchedule().getPriority())
                 .startAt(from(at))
                 .build();
+    }
 
-        quartzScheduler.scheduleJob(job, trigger);
+    /**
+     * @param deferrals how many times the execution has been deferred, stored in the trigger
+     */
+    void rerigger(Task task, Instant at, int deferrals) {
+        rerigger(jobKeyForTask(task), task.getSchedule().getPriority(), at, deferrals);
     }
 
+    /**
+     * Reschedule a task without loading it, e.g. to postpone a continuation task executed in-process.
+     *
+     * @param deferrals how many times the execution has been deferred, stored in the trigger
+     */
     @SneakyThrows
-    void rerigger(Task task, Instant at) {
+    @Transactional(rollbackOn = Exception.class)
+    void rerigger(JobKey jobKey, int priority, Instant at, int deferrals) {
 
-        var trigger = TriggerBuilder.newTrigger()
-                .forJob(jobKeyForTask(task))
-                .withIdentity(idForTask(task), groupForTask(task))
-                .withPriority(task.getSchedule().getPriority())
-                .startAt(from(at))
-                .build();
+        var builder = TriggerBuilder.newTrigger()
+                .forJob(jobKey)
+                .withIdentity(triggerKeyForJob(jobKey))
+                .withPriority(priority)
+                .startAt(from(at));
+        if (deferrals > 0) {
+            builder.usingJobData(triggerDataKeyForDeferrals(), deferrals);
+        }
+        var trigger = builder.build();
 
-        quartzScheduler.rescheduleJob(triggerKeyForTask(task), trigger);
+        quartzScheduler.rescheduleJob(triggerKeyForJob(jobKey), trigger);
+        taskIndex.updateNextExecuteAt(taskIdForJob(jobKey), at);
+    }
+
+    /**
+     * Reschedule a continuation task executed in-process, see {@link ContinuationExecution}.
+     *
+     * @param job the job with updated data, or null if the data has not changed
+     */
+    @SneakyThrows
+    @Transactional(rollbackOn = Exception.class)
+    void rerigger(JobDetail job, Task task, Instant at, int deferrals) {
+        if (job != null) {
+            // Not saved by Quartz, since the job has not been executed by Quartz
+            quartzScheduler.addJob(job, true, true);
+        }
+        rerigger(task, at, deferrals);
     }
 
     @SneakyThrows
@@ -86,7 +368,7 @@ public class QuartzTaskManager implements TaskManager {
     public Set<Task> getAllTasks() {
         return quartzScheduler.getJobKeys(GroupMatcher.groupStartsWith(TASK_GROUP_PREFIX)).stream()
                 .map(this::getJobDetail)
-                .map(j -> (String) j.getJobDataMap().get("task"))
+                .map(j -> j.getJobDataMap().get(jobDetailKeyForTask()))
                 .map(this::deserialize)
                 .collect(toSet());
     }
@@ -96,9 +378,8 @@ public class QuartzTaskManager implements TaskManager {
         return quartzScheduler.getJobDetail(k);
     }
 
-    @SneakyThrows
-    private Task deserialize(String s) {
-        return mapper.readValue(s, Task.class);
+    private Task deserialize(Object serialized) {
+        return JobDataCodec.decode(serialized, Task.class);
     }
 
     @SneakyThrows
@@ -106,7 +387,7 @@ public class QuartzTaskManager implements TaskManager {
     public Set<Task> getTasksByType(String taskType) {
         return quartzScheduler.getJobKeys(GroupMatcher.groupEquals(groupForTaskType(taskType))).stream()
                 .map(this::getJobDetail)
-                .map(j -> (String) j.getJobDataMap().get(jobDetailKeyForTask()))
+                .map(j -> j.getJobDataMap().get(jobDetailKeyForTask()))
                 .map(this::deserialize)
                 .collect(toSet());
     }
@@ -114,15 +395,53 @@ public class QuartzTaskManager implements TaskManager {
     @Override
     public Optional<Task> getTaskById(String taskId) {
         requireNonNull(taskId);
-        return getAllTasks().stream()
-                .filter(t -> taskId.equals(t.getId()))
-                .findFirst();
+        return taskIndex.get(taskId)
+                .flatMap(e -> loadTask(JobKey.jobKey(idForTaskId(e.getTaskId()), groupForTaskType(e.getTaskType()))));
+    }
+
+    /**
+     * Quartz does not load several jobs at once, but the job keys are known from the summaries,
+     * so the task index is not queried again.
+     */
+    @Override
+    public List<Task> loadTasks(List<TaskSummary> summaries) {
+        return summaries.stream()
+                .map(s -> loadTask(JobKey.jobKey(idForTaskId(s.getId()), groupForTaskType(s.getType()))))
+                .flatMap(Optional::stream)
+                .collect(toList());
+    }
+
+    @SneakyThrows
+    private Optional<Task> loadTask(JobKey jobKey) {
+        // The job may have been removed concurrently
+        return Optional.ofNullable(quartzScheduler.getJobDetail(jobKey))
+                .map(j -> j.getJobDataMap().get(jobDetailKeyForTask()))
+                .map(this::deserialize);
+    }
+
+    @Override
+    public List<TaskSummary> searchTasks(TaskQuery query) {
+        var after = Optional.ofNullable(query.getAfter());
+        return taskIndex.search(query.getTaskType(), query.getRegistryId(),
+                        query.getNextExecuteFrom(), query.getNextExecuteTo(),
+                        after.map(TaskSummary::getNextExecuteAt).orElse(null), after.map(TaskSummary::getId).orElse(null),
+                        query.getOffset(), query.getLimit())
+                .stream()
+                .map(e -> TaskSummary.builder()
+                        .id(e.getTaskId())
+                        .type(e.getTaskType())
+                        .registryId(e.getRegistryId())
+                        .nextExecuteAt(e.getNextExecuteAt())
+                        .build())
+                .collect(toList());
     }
 
     @SneakyThrows
+    @Transactional(rollbackOn = Exception.class)
     @Override
     public void remove(Task task) {
         quartzScheduler.deleteJob(jobKeyForTask(task));
+        taskIndex.remove(task.getId());
     }
 
     @SneakyThrows
@@ -130,4 +449,80 @@ public class QuartzTaskManager implements TaskManager {
     public void stop() {
         quartzScheduler.shutdown(true);
     }
+
+    /**
+     * Execution of a continuation task by this instance, see {@link #submitContinuation(Task)}.
+     */
+    private class ContinuationExecution implements TaskExecution {
+
+        private final Task task;
+
+        private final JobDetail job;
+
+        private final Instant submittedAt = Instant.now();
+
+        private boolean dirty;
+
+        /**
+         * Accessed by the renewal thread as well.
+         */
+        private boolean done;
+
+        private ContinuationExecution(Task task, JobDetail job) {
+            this.task = task;
+            this.job = job;
+        }
+
+        @Override
+        public Object getData(String key) {
+            return job.getJobDataMap().get(key);
+        }
+
+        @Override
+        public void putData(String key, byte[] encoded) {
+            job.getJobDataMap().put(key, toJobData(encoded));
+            dirty = true;
+        }
+
+        @Override
+        public Optional<Instant> getScheduledAt() {
+            return Optional.of(submittedAt);
+        }
+
+        @Override
+        public int getDeferrals() {
+            return 0;
+        }
+
+        @Override
+        public synchronized void reschedule(Task task, Instant at, int deferrals) {
+            rerigger(dirty ? job : null, task, at, deferrals);
+            dirty = false;
+            done = true;
+        }
+
+        @Override
+        public synchronized void remove(Task task) {
+            QuartzTaskManager.this.remove(task);
+            done = true;
+        }
+
+        /**
+         * Remove the task if it has not been rescheduled, the same as Quartz removes a job after its last trigger.
+         */
+        private synchronized void complete() {
+            if (!done) {
+                remove(task);
+            }
+        }
+
+        /**
+         * Postpone the trigger by the grace period, unless the task has already been rescheduled or removed.
+         */
+        private synchronized void renew() {
+            if (!done) {
+                rerigger(task, Instant.now().plus(continuations.getGracePeriod()), 0);
+            }
+        }
+    }
 }
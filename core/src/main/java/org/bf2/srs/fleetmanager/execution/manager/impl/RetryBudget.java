@@ -0,0 +1,56 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Token bucket limiting the rate of task retries.
+ * The bucket holds at most one second worth of permits, so short bursts are allowed.
+ * <p>
+ * This class is thread safe.
+ */
+class RetryBudget {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final double permitsPerSecond;
+
+    private final LongSupplier nanoTime;
+
+    private double available;
+
+    private long lastRefill;
+
+    /**
+     * @param permitsPerSecond zero means no limit
+     */
+    RetryBudget(double permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    RetryBudget(double permitsPerSecond, LongSupplier nanoTime) {
+        if (permitsPerSecond < 0) {
+            throw new IllegalArgumentException("Retry budget must not be negative.");
+        }
+        requireNonNull(nanoTime);
+        this.permitsPerSecond = permitsPerSecond;
+        this.nanoTime = nanoTime;
+        this.available = permitsPerSecond;
+        this.lastRefill = nanoTime.getAsLong();
+    }
+
+    synchronized boolean tryAcquire() {
+        if (permitsPerSecond == 0) {
+            return true;
+        }
+        long now = nanoTime.getAsLong();
+        available = Math.min(permitsPerSecond, available + (now - lastRefill) * permitsPerSecond / NANOS_PER_SECOND);
+        lastRefill = now;
+        if (available < 1) {
+            return false;
+        }
+        available -= 1;
+        return true;
+    }
+}
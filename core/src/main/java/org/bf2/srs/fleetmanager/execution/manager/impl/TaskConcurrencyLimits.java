@@ -0,0 +1,100 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Limits the number of tasks of each type that are executed at the same time,
+ * so that a burst of slow tasks of one type does not occupy all scheduler threads.
+ * <p>
+ * The limit for a task type is configured with `srs-fleet-manager.task-manager.concurrency-limit.&lt;TASK_TYPE&gt;`,
+ * and defaults to `srs-fleet-manager.task-manager.concurrency-limit.default`. Zero means no limit.
+ * The limits apply to a single instance of the application.
+ */
+@ApplicationScoped
+public class TaskConcurrencyLimits {
+
+    private static final String LIMIT_PREFIX = "srs-fleet-manager.task-manager.concurrency-limit.";
+
+    @Inject
+    Config config;
+
+    @Inject
+    MeterRegistry metrics;
+
+    @ConfigProperty(name = LIMIT_PREFIX + "default", defaultValue = "0")
+    int defaultLimit;
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * @return true if the task may be executed, in which case {@link #release(String)} MUST be called afterwards
+     */
+    public boolean tryAcquire(String taskType) {
+        var bulkhead = bulkheads.computeIfAbsent(requireNonNull(taskType), this::createBulkhead);
+        if (bulkhead.permits != null && !bulkhead.permits.tryAcquire()) {
+            bulkhead.rejected.increment();
+            return false;
+        }
+        bulkhead.inFlight.incrementAndGet();
+        return true;
+    }
+
+    public void release(String taskType) {
+        var bulkhead = bulkheads.get(requireNonNull(taskType));
+        if (bulkhead == null) {
+            throw new IllegalStateException("Task type " + taskType + " has not been acquired.");
+        }
+        bulkhead.inFlight.decrementAndGet();
+        if (bulkhead.permits != null) {
+            bulkhead.permits.release();
+        }
+    }
+
+    private Bulkhead createBulkhead(String taskType) {
+        int limit = config.getOptionalValue(LIMIT_PREFIX + taskType, Integer.class).orElse(defaultLimit);
+        if (limit < 0) {
+            throw new IllegalArgumentException("Concurrency limit for task type " + taskType + " must not be negative.");
+        }
+        var bulkhead = new Bulkhead(limit > 0 ? new Semaphore(limit) : null,
+                Counter.builder(Constants.TASK_REJECTED)
+                        .description(Constants.TASK_REJECTED_DESCRIPTION)
+                        .tag(Constants.TAG_TASK_TYPE, taskType)
+                        .register(metrics));
+        Gauge.builder(Constants.TASK_IN_FLIGHT, bulkhead.inFlight, AtomicInteger::get)
+                .description(Constants.TASK_IN_FLIGHT_DESCRIPTION)
+                .tag(Constants.TAG_TASK_TYPE, taskType)
+                .register(metrics);
+        return bulkhead;
+    }
+
+    private static class Bulkhead {
+
+        /**
+         * Null if there is no limit.
+         */
+        private final Semaphore permits;
+
+        private final Counter rejected;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Bulkhead(Semaphore permits, Counter rejected) {
+            this.permits = permits;
+            this.rejected = rejected;
+        }
+    }
+}
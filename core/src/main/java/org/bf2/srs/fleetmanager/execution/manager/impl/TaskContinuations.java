@@ -0,0 +1,170 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Threads that execute continuation tasks immediately after they are submitted,
+ * see {@link org.bf2.srs.fleetmanager.execution.manager.TaskManager#submitContinuation(Task)}.
+ * <p>
+ * A continuation is executed in-process only if one of `srs-fleet-manager.task-manager.continuation.threads`
+ * threads is available, otherwise it is left to the job store.
+ * <p>
+ * While a continuation is executed in-process, its claim on the job store task is renewed every third
+ * of the grace period, so the job store does not execute it concurrently, even if the execution takes longer.
+ */
+@ApplicationScoped
+public class TaskContinuations {
+
+    private static final String RESULT_IN_PROCESS = "in_process";
+    private static final String RESULT_SCHEDULED = "scheduled";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Inject
+    MeterRegistry metrics;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.continuation.enabled", defaultValue = "true")
+    volatile boolean enabled;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.continuation.threads", defaultValue = "5")
+    int threads;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.continuation.grace-period-seconds", defaultValue = "60")
+    long gracePeriodSeconds;
+
+    private volatile Duration gracePeriod;
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService renewals;
+
+    private Semaphore permits;
+
+    /**
+     * IDs of the tasks executed in-process.
+     */
+    private final Set<String> executing = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() {
+        gracePeriod = Duration.ofSeconds(gracePeriodSeconds);
+        permits = new Semaphore(threads);
+        executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        renewals = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * @return true if the task is executed in-process, in which case either {@link #execute(Runnable)}
+     * or {@link #release()} MUST be called afterwards
+     */
+    public boolean tryAcquire(Task task) {
+        boolean acquired = enabled && permits.tryAcquire();
+        Counter.builder(Constants.TASK_CONTINUATIONS)
+                .description(Constants.TASK_CONTINUATIONS_DESCRIPTION)
+                .tag(Constants.TAG_TASK_TYPE, task.getType())
+                .tag(Constants.TAG_CONTINUATION_RESULT, acquired ? RESULT_IN_PROCESS : RESULT_SCHEDULED)
+                .register(metrics)
+                .increment();
+        return acquired;
+    }
+
+    public void execute(Runnable execution) {
+        executor.execute(() -> {
+            try {
+                execution.run();
+            } catch (Exception ex) {
+                log.warn("Could not execute a continuation task.", ex);
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * Execute the continuation, and renew the claim of the task while it is executed.
+     *
+     * @param renewal postpones the execution of the task by the job store by at least the grace period
+     */
+    public void execute(Task task, Runnable execution, Runnable renewal) {
+        requireNonNull(renewal);
+        var taskId = task.getId();
+        execute(() -> {
+            executing.add(taskId);
+            long renewalMillis = Math.max(1, gracePeriod.toMillis() / 3);
+            var renewing = renewals.scheduleWithFixedDelay(() -> {
+                try {
+                    renewal.run();
+                } catch (Exception ex) {
+                    log.warn("Could not renew the claim of continuation task {}.", taskId, ex);
+                }
+            }, renewalMillis, renewalMillis, TimeUnit.MILLISECONDS);
+            try {
+                execution.run();
+            } finally {
+                renewing.cancel(false);
+                executing.remove(taskId);
+            }
+        });
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @return true if the task is being executed in-process by this instance, so the job store must not execute it
+     */
+    public boolean isExecuting(String taskId) {
+        return executing.contains(taskId);
+    }
+
+    /**
+     * How long the job store waits before executing a continuation task, in case this instance fails to execute it,
+     * or stops renewing its claim.
+     */
+    public Duration getGracePeriod() {
+        return gracePeriod;
+    }
+
+    /**
+     * Testing support, so continuations that outlive the grace period can be tested quickly.
+     */
+    public void setGracePeriod(Duration gracePeriod) {
+        requireNonNull(gracePeriod);
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * Testing support, so the latency with and without continuations can be compared.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @PreDestroy
+    void stop() {
+        renewals.shutdown();
+        executor.shutdown();
+    }
+}
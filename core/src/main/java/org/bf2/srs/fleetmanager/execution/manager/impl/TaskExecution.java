@@ -0,0 +1,42 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * A single execution of a task by {@link TaskExecutor}, backed by the job store of a task manager implementation.
+ * <p>
+ * The data map holds the encoded task and worker contexts (see {@link JobDataCodec}),
+ * under the keys defined in {@link QuartzIDs}.
+ */
+public interface TaskExecution {
+
+    /**
+     * @return the stored value, or null
+     */
+    Object getData(String key);
+
+    void putData(String key, byte[] encoded);
+
+    /**
+     * @return the time the execution was scheduled at, if known
+     */
+    Optional<Instant> getScheduledAt();
+
+    /**
+     * @return how many times the execution has been deferred
+     */
+    int getDeferrals();
+
+    /**
+     * Execute the task again at the given time.
+     */
+    void reschedule(Task task, Instant at, int deferrals);
+
+    /**
+     * Remove the task from further execution.
+     */
+    void remove(Task task);
+}
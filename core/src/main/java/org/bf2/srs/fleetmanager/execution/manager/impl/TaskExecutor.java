@@ -0,0 +1,345 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import lombok.SneakyThrows;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.Worker;
+import org.bf2.srs.fleetmanager.execution.manager.WorkerContext;
+import org.bf2.srs.fleetmanager.operation.OperationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.control.ActivateRequestContext;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.toUnmodifiableList;
+import static org.bf2.srs.fleetmanager.execution.manager.impl.QuartzIDs.jobDetailKeyForTask;
+import static org.bf2.srs.fleetmanager.execution.manager.impl.QuartzIDs.jobDetailKeyForWorker;
+
+/**
+ * Executes a task with the workers that support it, and decides when the task is executed next,
+ * independently of the job store used by the task manager implementation.
+ * <p>
+ * This class MUST be thread safe. It should not contain state and inject thread safe beans only.
+ *
+ * @author Jakub Senko <jsenko@redhat.com>
+ */
+@ApplicationScoped
+public class TaskExecutor {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Inject
+    Instance<Worker> workers;
+
+    @Inject
+    OperationContext opCtx;
+
+    @Inject
+    TaskConcurrencyLimits concurrencyLimits;
+
+    @Inject
+    PriorityLanes priorityLanes;
+
+    @Inject
+    TaskRetries retries;
+
+    @Inject
+    TaskMetrics taskMetrics;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.rejected-delay-ms", defaultValue = "1000")
+    long rejectedDelayMs;
+
+    private final Set<Class<? extends Worker>> workerExclusions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Workers supporting a given task type, computed once for each type.
+     * The map is immutable and replaced as a whole, so it can be read without locking.
+     */
+    private volatile Map<String, List<Worker>> dispatch = Map.of();
+
+    private volatile Clock clock = Clock.systemUTC();
+
+    @SneakyThrows
+    @ActivateRequestContext
+    public void execute(TaskExecution execution) {
+
+        Task task = loadTask(execution);
+
+        execution.getScheduledAt()
+                .ifPresent(at -> taskMetrics.recordLag(task, Duration.between(at, clock.instant())));
+
+        int priority = task.getSchedule().getPriority();
+        int deferrals = execution.getDeferrals();
+
+        if (!priorityLanes.tryAcquire(priority, deferrals)) {
+            // Do not block the scheduler thread, try again later
+            var next = clock.instant().plus(Duration.ofMillis(rejectedDelayMs));
+            log.debug("Task Manager (task = {}): Low priority lane is full. Deferring task to {}.", task, next);
+            execution.reschedule(task, next, deferrals + 1);
+            return;
+        }
+        try {
+            if (!concurrencyLimits.tryAcquire(task.getType())) {
+                var next = clock.instant().plus(Duration.ofMillis(rejectedDelayMs));
+                log.debug("Task Manager (task = {}): Concurrency limit for the task type reached. Rescheduling task at {}.",
+                        task, next);
+                execution.reschedule(task, next, deferrals);
+                return;
+            }
+            try {
+                executeWorkers(execution, task);
+            } finally {
+                concurrencyLimits.release(task.getType());
+            }
+        } finally {
+            priorityLanes.release(priority, deferrals);
+        }
+    }
+
+    private void executeWorkers(TaskExecution execution, Task task) {
+
+        boolean stateless = task.getSchedule().isStateless();
+
+        List<Worker> selectedWorkers = selectWorkers(task);
+
+        for (Worker worker : selectedWorkers) {
+
+            WorkerContextImpl wCtx = loadWorkerContext(execution, worker, task);
+
+            Instant next = null;
+            Exception lastException = null;
+            var executeSample = taskMetrics.start();
+            String outcome = TaskMetrics.OUTCOME_ERROR;
+
+            try {
+                log.debug("Task Manager (task = {}, worker = {}, workerContext = {}): Executing task.",
+                        task, worker, wCtx);
+
+                worker.execute(task, wCtx);
+                wCtx.getDelayedActions().forEach(Runnable::run);
+                outcome = TaskMetrics.OUTCOME_SUCCESS;
+                // OK vvv
+                wCtx.setRetryAttempts(0); // Reset retry counter
+                wCtx.setRetryDelayMillis(0);
+                wCtx.setMinRetries(task.getSchedule().getMinRetries()); // Reset min retry counter
+
+                next = nextExecution(task); // Normal rescheduling
+
+            } catch (Exception anEx) { // TODO Throwable?
+
+                lastException = anEx;
+
+                if (anEx instanceof RetryExecutionControlException) {
+                    log.debug("Task Manager (task = {}, worker = {}, workerContext = {}): Task requested a retry.",
+                            task, worker, wCtx, anEx);
+
+                    RetryExecutionControlException ex = (RetryExecutionControlException) anEx;
+                    outcome = TaskMetrics.OUTCOME_RETRY;
+
+                    if (ex.isForce() && wCtx.getMinRetries() < Integer.MAX_VALUE) {
+                        // Make space for forced retry, no more than Integer.MAX_VALUE
+                        wCtx.setMinRetries(wCtx.getMinRetries() + 1);
+                        next = clock.instant().plus(Duration.ofSeconds(1));
+                    }
+                    if (ex.getMinRetries() > wCtx.getMinRetries()) {
+                        wCtx.setMinRetries(ex.getMinRetries());
+                    }
+                    lastException = null;
+                }
+
+                if (wCtx.getRetryAttempts() < wCtx.getMinRetries() && (next == null)) {
+                    // Reschedule if the minRetries is not reached
+                    next = clock.instant().plus(retries.nextDelay(task, worker, wCtx));
+                }
+
+                if (anEx instanceof StopExecutionControlException) {
+                    log.debug("Task Manager (task = {}, worker = {}, workerContext = {}): Task requested a stop.",
+                            task, worker, wCtx, anEx);
+                    outcome = TaskMetrics.OUTCOME_STOP;
+                    // Unschedule
+                    next = null;
+                    lastException = null;
+                }
+
+                if (stateless && next == null && !(anEx instanceof StopExecutionControlException)) {
+                    // Retries are not tracked, the task is executed again at the next interval
+                    next = nextExecution(task);
+                }
+
+                if (lastException != null) {
+                    log.warn("Task Manager (task = {}, worker = {}, workerContext = {}, nextExecution = {}): Task threw an exception during execution: {}",
+                            task, worker, wCtx, next, anEx);
+                }
+
+                wCtx.setRetryAttempts(wCtx.getRetryAttempts() + 1);
+
+            } finally {
+
+                taskMetrics.recordExecute(task, worker, outcome, executeSample);
+
+                wCtx.setDelayedActions(new ArrayList<>(0)); // Unlikely used
+                if (!stateless) {
+                    saveWorkerContext(execution, wCtx, worker);
+                    saveTask(execution, task);
+                }
+
+                // Scheduling
+                if (next != null) {
+                    if (wCtx.getRetryAttempts() == wCtx.getMinRetries()) {
+                        log.info("Task Manager (task = {}, worker = {}, workerContext = {}): Last rescheduling at {}.",
+                                task, worker, wCtx, next);
+                    } else {
+                        log.debug("Task Manager (task = {}, worker = {}, workerContext = {}): Rescheduling task at {}.",
+                                task, worker, wCtx, next);
+                    }
+
+                    execution.reschedule(task, next, 0);
+                } else {
+
+                    taskMetrics.recordCompleted(task, worker, wCtx.getRetryAttempts());
+                    var finallySample = taskMetrics.start();
+                    boolean finallyError = true;
+                    try {
+                        log.debug("Task Manager (task = {}, worker = {}, workerContext = {}): Executing finallyExecute. Last exception = {}",
+                                task, worker, wCtx, lastException);
+                        worker.finallyExecute(task, wCtx, ofNullable(lastException));
+                        wCtx.getDelayedActions().forEach(Runnable::run);
+                        finallyError = false;
+                    } catch (Exception ex) {
+                        log.warn("Task Manager (task = {}, worker = {}, workerContext = {}): Ignoring an exception thrown in finallyExecute: {}",
+                                task, worker, wCtx, ex);
+                    } finally {
+                        taskMetrics.recordFinallyExecute(task, worker, finallyError, finallySample);
+                        log.debug("Task Manager (task = {}, worker = {}, workerContext = {}): Removing task.",
+                                task, worker, wCtx);
+                        execution.remove(task);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Worker> selectWorkers(Task task) {
+        var selected = dispatch.get(task.getType());
+        if (selected == null) {
+            selected = computeDispatch(task);
+        }
+        return selected;
+    }
+
+    private synchronized List<Worker> computeDispatch(Task task) {
+        var current = dispatch;
+        var selected = current.get(task.getType());
+        if (selected == null) {
+            // Worker.supports(...) depends only on the task type
+            selected = workers.stream()
+                    .filter(w -> w.supports(task) && workerExclusions.stream().noneMatch(e -> e.isInstance(w)))
+                    .collect(toUnmodifiableList());
+            var updated = new HashMap<>(current);
+            updated.put(task.getType(), selected);
+            dispatch = Map.copyOf(updated);
+            log.debug("Task Manager: Workers for task type {} are {}.", task.getType(), selected);
+        }
+        return selected;
+    }
+
+    private WorkerContextImpl loadWorkerContext(TaskExecution execution, Worker worker, Task aTask) {
+        Object serialized = execution.getData(jobDetailKeyForWorker(worker));
+        return (serialized != null) ?
+                JobDataCodec.decode(serialized, WorkerContextImpl.class) :
+                WorkerContextImpl.builder().minRetries(aTask.getSchedule().getMinRetries()).build();
+    }
+
+    private void saveWorkerContext(TaskExecution execution, WorkerContext ctx, Worker worker) {
+        putIfChanged(execution, jobDetailKeyForWorker(worker), JobDataCodec.encode(ctx));
+    }
+
+    private Task loadTask(TaskExecution execution) {
+        Object serialized = execution.getData(jobDetailKeyForTask());
+        if (serialized == null) {
+            throw new IllegalStateException("Task not found in job data.");
+        }
+        var task = JobDataCodec.decode(serialized, Task.class);
+        // Load Operation Context
+        var ctxData = task.getOperationContextData();
+        if (opCtx.isContextDataLoaded())
+            throw new IllegalStateException("Unexpected state: Operation Context is already loaded");
+        if (ctxData == null) {
+            log.debug("Creating a new Operation Context. This should only happen when running old tasks, due to upgrades.");
+            opCtx.loadNewContextData();
+        } else {
+            log.debug("Loading existing Operation Context with ID {}.", ctxData.getOperationId());
+            opCtx.loadContextData(ctxData);
+        }
+        return task;
+    }
+
+    private void saveTask(TaskExecution execution, Task task) {
+        // Save Operation Context
+        var ctxData = opCtx.getContextData();
+        task.setOperationContextData(ctxData);
+        putIfChanged(execution, jobDetailKeyForTask(), JobDataCodec.encode(task));
+    }
+
+    /**
+     * Job stores may write the job data back to the database only if it has been changed,
+     * so unchanged values are not put again.
+     * Values stored in the legacy format are always put.
+     */
+    private static void putIfChanged(TaskExecution execution, String key, byte[] encoded) {
+        var stored = execution.getData(key);
+        if (!(stored instanceof byte[] && Arrays.equals((byte[]) stored, encoded))) {
+            execution.putData(key, encoded);
+        }
+    }
+
+    private Instant nextExecution(Task task) {
+        var schedule = task.getSchedule();
+        requireNonNull(schedule);
+        if (schedule.getInterval() != null)
+            return clock.instant().plus(schedule.getInterval());
+        else
+            return null; // TODO Optional
+    }
+
+    /**
+     * Testing support, so the task engine can be simulated with a virtual clock.
+     * The clock determines when tasks are rescheduled, the job store determines when they are executed.
+     */
+    public void setClock(Clock clock) {
+        requireNonNull(clock);
+        this.clock = clock;
+    }
+
+    /**
+     * Testing support, so we can e.g. replace a specific worker with another.
+     */
+    public synchronized void excludeWorker(Class<? extends Worker> workerClass) {
+        requireNonNull(workerClass);
+        workerExclusions.add(workerClass);
+        dispatch = Map.of();
+    }
+
+    /**
+     * Testing support, see {@link #excludeWorker(Class)}.
+     */
+    public synchronized void clearWorkerExclusions() {
+        workerExclusions.clear();
+        dispatch = Map.of();
+    }
+}
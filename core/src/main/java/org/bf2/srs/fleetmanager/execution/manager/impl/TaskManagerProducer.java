@@ -0,0 +1,50 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+
+/**
+ * Selects the {@link TaskManager} implementation with `srs-fleet-manager.task-manager.store`:
+ * <ul>
+ *     <li>`quartz` (default) - {@link QuartzTaskManager}</li>
+ *     <li>`database` - {@link DatabaseTaskManager}</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class TaskManagerProducer {
+
+    public static final String STORE_QUARTZ = "quartz";
+    public static final String STORE_DATABASE = "database";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.store", defaultValue = STORE_QUARTZ)
+    String store;
+
+    @Inject
+    Instance<QuartzTaskManager> quartzTaskManager;
+
+    @Inject
+    Instance<DatabaseTaskManager> databaseTaskManager;
+
+    @Produces
+    @ApplicationScoped
+    TaskManager taskManager() {
+        log.info("Using {} task store.", store);
+        switch (store) {
+            case STORE_QUARTZ:
+                return quartzTaskManager.get();
+            case STORE_DATABASE:
+                return databaseTaskManager.get();
+            default:
+                throw new IllegalArgumentException("Unknown task store " + store + ".");
+        }
+    }
+}
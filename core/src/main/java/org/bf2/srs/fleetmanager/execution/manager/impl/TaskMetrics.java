@@ -0,0 +1,88 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.Worker;
+
+import java.time.Duration;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Metrics of task executions, recorded by {@link TaskExecutor}.
+ * <p>
+ * Meters are tagged with the task type, worker type, and an outcome from a fixed set,
+ * so the number of time series is bounded by the number of task and worker implementations.
+ * The number of tasks in flight is recorded by {@link TaskConcurrencyLimits}.
+ */
+@ApplicationScoped
+public class TaskMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_RETRY = "retry";
+    public static final String OUTCOME_STOP = "stop";
+    public static final String OUTCOME_ERROR = "error";
+
+    @Inject
+    MeterRegistry metrics;
+
+    public Timer.Sample start() {
+        return Timer.start(metrics);
+    }
+
+    public void recordDeduplicated(Task task) {
+        Counter.builder(Constants.TASK_DEDUPLICATED)
+                .description(Constants.TASK_DEDUPLICATED_DESCRIPTION)
+                .tag(Constants.TAG_TASK_TYPE, task.getType())
+                .register(metrics)
+                .increment();
+    }
+
+    /**
+     * @param lag time between the scheduled and the actual start of the execution
+     */
+    public void recordLag(Task task, Duration lag) {
+        Timer.builder(Constants.TASK_LAG)
+                .description(Constants.TASK_LAG_DESCRIPTION)
+                .tag(Constants.TAG_TASK_TYPE, task.getType())
+                .register(metrics)
+                .record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+
+    /**
+     * @param outcome one of the `OUTCOME_*` constants
+     */
+    public void recordExecute(Task task, Worker worker, String outcome, Timer.Sample sample) {
+        sample.stop(Timer.builder(Constants.TASK_EXECUTE_TIMER)
+                .description(Constants.TASK_EXECUTE_TIMER_DESCRIPTION)
+                .tag(Constants.TAG_TASK_TYPE, task.getType())
+                .tag(Constants.TAG_WORKER_TYPE, worker.getType())
+                .tag(Constants.TAG_TASK_OUTCOME, outcome)
+                .register(metrics));
+    }
+
+    public void recordFinallyExecute(Task task, Worker worker, boolean error, Timer.Sample sample) {
+        sample.stop(Timer.builder(Constants.TASK_FINALLY_EXECUTE_TIMER)
+                .description(Constants.TASK_FINALLY_EXECUTE_TIMER_DESCRIPTION)
+                .tag(Constants.TAG_TASK_TYPE, task.getType())
+                .tag(Constants.TAG_WORKER_TYPE, worker.getType())
+                .tag(Constants.TAG_ERROR, String.valueOf(error))
+                .register(metrics));
+    }
+
+    /**
+     * @param retries number of retries before the task was unscheduled
+     */
+    public void recordCompleted(Task task, Worker worker, int retries) {
+        DistributionSummary.builder(Constants.TASK_RETRIES_PER_TASK)
+                .description(Constants.TASK_RETRIES_PER_TASK_DESCRIPTION)
+                .tag(Constants.TAG_TASK_TYPE, task.getType())
+                .tag(Constants.TAG_WORKER_TYPE, worker.getType())
+                .register(metrics)
+                .record(retries);
+    }
+}
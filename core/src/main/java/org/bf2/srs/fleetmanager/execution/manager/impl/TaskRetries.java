@@ -0,0 +1,144 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.bf2.srs.fleetmanager.execution.manager.BackoffPolicy;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.Worker;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Computes the delay before a failed task execution is retried.
+ * <p>
+ * The backoff policy for a worker type is configured with `srs-fleet-manager.task-manager.backoff.&lt;WORKER_TYPE&gt;`,
+ * and defaults to `srs-fleet-manager.task-manager.backoff.default`.
+ * Supported values are `exponential` and `decorrelated-jitter`.
+ * <p>
+ * Retries of all workers share a budget, `srs-fleet-manager.task-manager.retry-budget-per-second`,
+ * so that a failing dependency is not overloaded with retries when it recovers.
+ * When the budget is exhausted, the retry is not dropped but postponed by a random delay
+ * between the delay of the policy and the maximum delay, so that a burst of suppressed retries is spread out.
+ * The budget applies to a single instance of the application. Zero means no limit.
+ */
+@ApplicationScoped
+public class TaskRetries {
+
+    private static final String BACKOFF_PREFIX = "srs-fleet-manager.task-manager.backoff.";
+
+    private static final Duration DECORRELATED_JITTER_BASE = Duration.ofSeconds(1);
+
+    @Inject
+    Config config;
+
+    @Inject
+    MeterRegistry metrics;
+
+    @ConfigProperty(name = BACKOFF_PREFIX + "default", defaultValue = ExponentialBackoffPolicy.NAME)
+    String defaultPolicy;
+
+    @ConfigProperty(name = "srs-fleet-manager.task-manager.retry-budget-per-second", defaultValue = "0")
+    double budgetPerSecond;
+
+    @ConfigProperty(name = "srs-fleet-manager.max-retries-delay-seconds", defaultValue = "600")
+    Integer maxRetryDelaySec;
+
+    private final Map<String, BackoffPolicy> policies = new ConcurrentHashMap<>();
+
+    /**
+     * Keyed by the tag values
+     */
+    private final Map<List<String>, Counter> retryCounters = new ConcurrentHashMap<>();
+
+    private volatile RetryBudget budget;
+
+    private volatile Random random;
+
+    @PostConstruct
+    void init() {
+        budget = new RetryBudget(budgetPerSecond);
+    }
+
+    /**
+     * Testing support, see {@link TaskExecutor#setClock(Clock)}.
+     * Resets the retry budget.
+     */
+    public void setClock(Clock clock) {
+        requireNonNull(clock);
+        budget = new RetryBudget(budgetPerSecond, () -> TimeUnit.MILLISECONDS.toNanos(clock.millis()));
+    }
+
+    /**
+     * Testing support, makes the delay of suppressed retries repeatable.
+     *
+     * @param random null to use a thread local random generator
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Records the delay in the worker context, so it is available to the backoff policy on the next retry.
+     */
+    public Duration nextDelay(Task task, Worker worker, WorkerContextImpl wCtx) {
+        var maxDelay = Duration.ofSeconds(maxRetryDelaySec);
+        var policy = policies.computeIfAbsent(requireNonNull(worker.getType()), this::createPolicy);
+        var delay = policy.delay(wCtx.getRetryAttempts(), Duration.ofMillis(wCtx.getRetryDelayMillis()), maxDelay);
+        boolean scheduled = budget.tryAcquire();
+        if (!scheduled) {
+            var r = random;
+            delay = suppressedDelay(delay, maxDelay, r != null ? r : ThreadLocalRandom.current());
+        }
+        retryCounter(task.getType(), worker.getType(), scheduled ? "scheduled" : "suppressed").increment();
+        wCtx.setRetryDelayMillis(delay.toMillis());
+        return delay;
+    }
+
+    /**
+     * @return random delay between the delay of the policy and the maximum delay, inclusive
+     */
+    static Duration suppressedDelay(Duration delay, Duration maxDelay, Random random) {
+        long maxMillis = maxDelay.toMillis();
+        long minMillis = Math.min(delay.toMillis(), maxMillis);
+        if (minMillis == maxMillis) {
+            return maxDelay;
+        }
+        return Duration.ofMillis(minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1)));
+    }
+
+    private Counter retryCounter(String taskType, String workerType, String result) {
+        return retryCounters.computeIfAbsent(List.of(taskType, workerType, result), k -> Counter.builder(Constants.TASK_RETRIES)
+                .description(Constants.TASK_RETRIES_DESCRIPTION)
+                .tag(Constants.TAG_TASK_TYPE, taskType)
+                .tag(Constants.TAG_WORKER_TYPE, workerType)
+                .tag(Constants.TAG_RETRY_RESULT, result)
+                .register(metrics));
+    }
+
+    private BackoffPolicy createPolicy(String workerType) {
+        var name = config.getOptionalValue(BACKOFF_PREFIX + workerType, String.class).orElse(defaultPolicy);
+        switch (name) {
+            case ExponentialBackoffPolicy.NAME:
+                return new ExponentialBackoffPolicy();
+            case DecorrelatedJitterBackoffPolicy.NAME:
+                return new DecorrelatedJitterBackoffPolicy(DECORRELATED_JITTER_BASE);
+            default:
+                throw new IllegalArgumentException("Unknown backoff policy " + name + " for worker type " + workerType + ".");
+        }
+    }
+}
@@ -36,6 +36,11 @@ public class WorkerContextImpl implements WorkerContext {
     @Setter
     private int minRetries;
 
+    // Delay before the last retry, used by the backoff policy
+    @Getter
+    @Setter
+    private long retryDelayMillis;
+
     @Builder
     private WorkerContextImpl(int minRetries) {
         this.minRetries = minRetries;
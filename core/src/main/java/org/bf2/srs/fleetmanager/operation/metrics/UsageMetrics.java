@@ -3,7 +3,10 @@ package org.bf2.srs.fleetmanager.operation.metrics;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.arc.Arc;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 import org.bf2.srs.fleetmanager.rest.service.RegistryService;
 import org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto;
@@ -16,11 +19,20 @@ import org.slf4j.LoggerFactory;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import static org.bf2.srs.fleetmanager.common.metrics.Constants.*;
 
+/**
+ * Usage statistics are computed periodically by a background thread,
+ * so the metric scrapes only read the latest published snapshot.
+ */
 @ApplicationScoped
 public class UsageMetrics {
 
@@ -36,14 +48,17 @@ public class UsageMetrics {
     @ConfigProperty(name = "srs-fleet-manager.operation.metrics.usage-statistics.cache-expiration-period-seconds")
     Integer expirationPeriodSeconds;
 
-    private Duration expirationPeriod;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
 
-    private Instant nextExpiration;
+    private ScheduledExecutorService refresher;
 
-    private UsageStatisticsDto cached;
+    private Timer refreshTimer;
 
     public synchronized void init() {
-        expirationPeriod = Duration.ofSeconds(expirationPeriodSeconds);
+        if (refresher != null) {
+            throw new IllegalStateException("Usage metrics are already initialized.");
+        }
+        var expirationPeriod = Duration.ofSeconds(expirationPeriodSeconds);
 
         int stagger = 0;
         // Only stagger if the expiration period is at least 1 minute (testing support).
@@ -51,72 +66,98 @@ public class UsageMetrics {
             stagger = new Random().nextInt(expirationPeriodSeconds) + 1;
             log.debug("Staggering usage metrics cache expiration by {} seconds", stagger);
         }
-        nextExpiration = Instant.now().plus(Duration.ofSeconds(stagger));
 
         for (RegistryStatusValueDto status : RegistryStatusValueDto.values()) {
-            Gauge.builder(USAGE_STATISTICS_REGISTRIES_STATUS, () -> {
-                Arc.initialize();
-                var ctx = Arc.container().requestContext();
-                ctx.activate();
-                try {
-                    return getUsageStatisticsCached().getRegistryCountPerStatus().get(status);
-                } finally {
-                    ctx.deactivate();
-                }
-            })
-            .tags(Tags.of(TAG_USAGE_STATISTICS_STATUS, status.value()))
-            .register(metrics);
+            Gauge.builder(USAGE_STATISTICS_REGISTRIES_STATUS, snapshot,
+                    s -> read(s, stats -> stats.getRegistryCountPerStatus().get(status)))
+                    .tags(Tags.of(TAG_USAGE_STATISTICS_STATUS, status.value()))
+                    .register(metrics);
         }
 
         for (RegistryInstanceTypeValueDto type : RegistryInstanceTypeValueDto.values()) {
-            Gauge.builder(USAGE_STATISTICS_REGISTRIES_TYPE, () -> {
-                Arc.initialize();
-                var ctx = Arc.container().requestContext();
-                ctx.activate();
-                try {
-                    return getUsageStatisticsCached().getRegistryCountPerType().get(type);
-                } finally {
-                    ctx.deactivate();
-                }
-            })
-            .tags(Tags.of(TAG_USAGE_STATISTICS_TYPE, type.value()))
-            .register(metrics);
+            Gauge.builder(USAGE_STATISTICS_REGISTRIES_TYPE, snapshot,
+                    s -> read(s, stats -> stats.getRegistryCountPerType().get(type)))
+                    .tags(Tags.of(TAG_USAGE_STATISTICS_TYPE, type.value()))
+                    .register(metrics);
         }
 
+        Gauge.builder(USAGE_STATISTICS_ACTIVE_USERS, snapshot,
+                s -> read(s, UsageStatisticsDto::getActiveUserCount))
+                .register(metrics);
+
+        Gauge.builder(USAGE_STATISTICS_ACTIVE_ORGANISATIONS, snapshot,
+                s -> read(s, UsageStatisticsDto::getActiveOrganisationCount))
+                .register(metrics);
+
+        refreshTimer = Timer.builder(USAGE_STATISTICS_REFRESH_TIMER)
+                .description(USAGE_STATISTICS_REFRESH_TIMER_DESCRIPTION)
+                .register(metrics);
+
+        Gauge.builder(USAGE_STATISTICS_AGE, snapshot, s -> {
+                    var current = s.get();
+                    return current == null ? Double.NaN :
+                            Duration.between(current.getRefreshedAt(), Instant.now()).toMillis() / 1000.0;
+                })
+                .description(USAGE_STATISTICS_AGE_DESCRIPTION)
+                .baseUnit("seconds")
+                .register(metrics);
+
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "usage-metrics-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The first snapshot is computed right away, so the gauges are available after startup
+        refresher.execute(this::refresh);
+        refresher.scheduleAtFixedRate(this::refresh, stagger + expirationPeriodSeconds, expirationPeriodSeconds, TimeUnit.SECONDS);
+    }
 
-        Gauge.builder(USAGE_STATISTICS_ACTIVE_USERS, () -> {
-            Arc.initialize();
-            var ctx = Arc.container().requestContext();
-            ctx.activate();
-            try {
-                return getUsageStatisticsCached().getActiveUserCount();
-            } finally {
-                ctx.deactivate();
-            }
-        })
-        .register(metrics);
+    public synchronized void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the latest computed usage statistics, or null if they have not been computed yet
+     */
+    public UsageStatisticsDto getUsageStatisticsCached() {
+        var current = snapshot.get();
+        return current == null ? null : current.getStatistics();
+    }
 
-        Gauge.builder(USAGE_STATISTICS_ACTIVE_ORGANISATIONS, () -> {
+    void refresh() {
+        // Exceptions must not escape, otherwise the refresh would not be scheduled again
+        try {
             Arc.initialize();
             var ctx = Arc.container().requestContext();
             ctx.activate();
             try {
-                return getUsageStatisticsCached().getActiveOrganisationCount();
+                var statistics = refreshTimer.recordCallable(registryService::getUsageStatistics);
+                snapshot.set(new Snapshot(statistics, Instant.now()));
             } finally {
                 ctx.deactivate();
             }
-        })
-        .register(metrics);
+        } catch (Exception ex) {
+            log.warn("Could not refresh usage statistics, keeping the previous values.", ex);
+        }
     }
 
-    public synchronized UsageStatisticsDto getUsageStatisticsCached() {
-        boolean expired = Instant.now().isAfter(nextExpiration);
-        if (cached == null || expired) {
-            cached = registryService.getUsageStatistics();
-            if (expired) {
-                nextExpiration = Instant.now().plus(expirationPeriod);
-            }
+    private static double read(AtomicReference<Snapshot> snapshot, Function<UsageStatisticsDto, Long> getter) {
+        var current = snapshot.get();
+        if (current == null) {
+            return Double.NaN;
         }
-        return cached;
+        var value = getter.apply(current.getStatistics());
+        return value == null ? Double.NaN : value;
+    }
+
+    @AllArgsConstructor
+    @Getter
+    private static class Snapshot {
+
+        private final UsageStatisticsDto statistics;
+
+        private final Instant refreshedAt;
     }
 }
@@ -8,6 +8,8 @@ import org.bf2.srs.fleetmanager.storage.RegistryDeploymentNotFoundException;
 import org.bf2.srs.fleetmanager.storage.RegistryDeploymentStorageConflictException;
 
 import java.util.List;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -15,16 +17,27 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.StreamingOutput;
 
 /**
  * A JAX-RS interface.  An implementation of this interface must be provided.
  */
 @Path("/api")
 public interface ApiResource {
+    /**
+     * Get the list of tasks executed on the server, ordered by their next execution.
+     * The list is streamed, so all tasks can be listed if no page is requested.
+     */
     @Path("/serviceregistry_mgmt/v1/admin/tasks")
     @GET
     @Produces("application/json")
-    List<TaskRest> getTasks();
+    StreamingOutput getTasks(@Min(1) @QueryParam("page") Integer page,
+                             @Min(1) @Max(500) @QueryParam("size") Integer size,
+                             @QueryParam("type") String type,
+                             @QueryParam("registryId") String registryId,
+                             @QueryParam("nextExecuteFrom") String nextExecuteFrom,
+                             @QueryParam("nextExecuteTo") String nextExecuteTo);
 
     @Path("/serviceregistry_mgmt/v1/admin/tasks/{taskId}")
     @GET
@@ -1,5 +1,7 @@
 package org.bf2.srs.fleetmanager.rest.privateapi.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.bf2.srs.fleetmanager.execution.manager.TaskNotFoundException;
 import org.bf2.srs.fleetmanager.rest.privateapi.ApiResource;
 import org.bf2.srs.fleetmanager.rest.privateapi.beans.RegistryDeploymentCreateRest;
@@ -7,13 +9,18 @@ import org.bf2.srs.fleetmanager.rest.privateapi.beans.RegistryDeploymentRest;
 import org.bf2.srs.fleetmanager.rest.privateapi.beans.TaskRest;
 import org.bf2.srs.fleetmanager.rest.service.RegistryDeploymentService;
 import org.bf2.srs.fleetmanager.rest.service.TaskService;
+import org.bf2.srs.fleetmanager.rest.service.model.Task;
 import org.bf2.srs.fleetmanager.storage.RegistryDeploymentNotFoundException;
 import org.bf2.srs.fleetmanager.storage.RegistryDeploymentStorageConflictException;
 
+import java.time.Instant;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.ws.rs.core.StreamingOutput;
 
 @ApplicationScoped
 public class ApiResourceImpl implements ApiResource {
@@ -37,9 +44,25 @@ public class ApiResourceImpl implements ApiResource {
     @Inject
     Convert convert;
 
+    @Inject
+    ObjectMapper mapper;
+
     @Override
-    public List<TaskRest> getTasks() {
-        return taskService.getTasks().stream().map(convert::convert).collect(Collectors.toList());
+    public StreamingOutput getTasks(Integer page, Integer size, String type, String registryId,
+                                    String nextExecuteFrom, String nextExecuteTo) {
+        // Parameters are validated before the response is committed
+        var tasks = taskService.getTasks(page, size, type, registryId,
+                Optional.ofNullable(nextExecuteFrom).map(Instant::parse).orElse(null),
+                Optional.ofNullable(nextExecuteTo).map(Instant::parse).orElse(null));
+        return output -> {
+            try (tasks; JsonGenerator json = mapper.getFactory().createGenerator(output)) {
+                json.writeStartArray();
+                for (Iterator<Task> it = tasks.iterator(); it.hasNext(); ) {
+                    json.writeObject(convert.convert(it.next()));
+                }
+                json.writeEndArray();
+            }
+        };
     }
 
     @Override
@@ -39,7 +39,8 @@ public interface ApiResource {
   @GET
   @Produces("application/json")
   RegistryList getRegistries(@Min(1) @QueryParam("page") Integer page, @Min(1) @Max(500) @QueryParam("size") Integer size,
-      @QueryParam("orderBy") String orderBy, @QueryParam("search") String search);
+      @QueryParam("orderBy") String orderBy, @QueryParam("search") String search,
+      @QueryParam("cursor") String cursor, @QueryParam("skipTotal") Boolean skipTotal);
 
   /**
    * Create a new Registry instance
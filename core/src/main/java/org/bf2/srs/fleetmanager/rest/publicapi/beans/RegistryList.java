@@ -14,7 +14,8 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
     "page",
     "size",
     "total",
-    "items"
+    "items",
+    "next"
 })
 @Generated("jsonschema2pojo")
 public class RegistryList {
@@ -55,6 +56,12 @@ public class RegistryList {
      */
     @JsonProperty("items")
     private List<Registry> items = new ArrayList<Registry>();
+    /**
+     * Opaque continuation token, present if there are more items after this page and the items are ordered by `id`, `name` or `instance_type`. Pass it as the `cursor` parameter, together with the same `orderBy` and `search` values, to get the next page.
+     * 
+     */
+    @JsonProperty("next")
+    private String next;
 
     /**
      * 
@@ -156,4 +163,22 @@ public class RegistryList {
         this.items = items;
     }
 
+    /**
+     * Opaque continuation token, present if there are more items after this page and the items are ordered by `id`, `name` or `instance_type`. Pass it as the `cursor` parameter, together with the same `orderBy` and `search` values, to get the next page.
+     * 
+     */
+    @JsonProperty("next")
+    public String getNext() {
+        return next;
+    }
+
+    /**
+     * Opaque continuation token, present if there are more items after this page and the items are ordered by `id`, `name` or `instance_type`. Pass it as the `cursor` parameter, together with the same `orderBy` and `search` values, to get the next page.
+     * 
+     */
+    @JsonProperty("next")
+    public void setNext(String next) {
+        this.next = next;
+    }
+
 }
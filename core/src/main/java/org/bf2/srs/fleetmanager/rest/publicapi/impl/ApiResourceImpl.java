@@ -40,8 +40,9 @@ public class ApiResourceImpl implements ApiResource {
     @Override
     public RegistryList getRegistries(Integer page,
                                       Integer size,
-                                      String orderBy, String search) {
-        return convert.convert(registryService.getRegistries(page, size, orderBy, search));
+                                      String orderBy, String search,
+                                      String cursor, Boolean skipTotal) {
+        return convert.convert(registryService.getRegistries(page, size, orderBy, search, cursor, skipTotal));
     }
 
     @Override
@@ -88,6 +88,7 @@ public class Convert {
         res.setTotal(Optional.ofNullable(registries.getTotal())
                 .map(Long::intValue).orElse(null)); // TODO Conversion
         res.setItems(registries.getItems().stream().map(this::convert).collect(Collectors.toList()));
+        res.setNext(registries.getNext());
         return res;
     }
 
@@ -16,6 +16,12 @@ public interface RegistryDeploymentService {
 
     void init() throws IOException, RegistryDeploymentStorageConflictException, RegistryDeploymentNotFoundException;
 
+    /**
+     * Submit the heartbeat tasks for existing deployments, if not submitted already.
+     * MUST be called after the task manager is started.
+     */
+    void startHeartbeats();
+
     List<RegistryDeployment> getRegistryDeployments();
 
     RegistryDeployment createRegistryDeployment(@Valid RegistryDeploymentCreate data) throws RegistryDeploymentStorageConflictException;
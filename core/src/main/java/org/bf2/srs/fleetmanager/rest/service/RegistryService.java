@@ -19,7 +19,12 @@ public interface RegistryService {
     RegistryDto createRegistry(RegistryCreateDto registry) throws RegistryStorageConflictException,
             TermsRequiredException, ResourceLimitReachedException, EvalInstancesNotAllowedException, TooManyEvalInstancesForUserException, TooManyInstancesException, AccountManagementServiceException;
 
-    RegistryListDto getRegistries(Integer page, Integer size, String orderBy, String search);
+    /**
+     * @param cursor    (Optional) Continuation token from a previous page, see {@link RegistryListDto#getNext()}.
+     *                  Cannot be combined with the page number.
+     * @param skipTotal (Optional) Do not count the total number of matching registries, if true.
+     */
+    RegistryListDto getRegistries(Integer page, Integer size, String orderBy, String search, String cursor, Boolean skipTotal);
 
     RegistryDto getRegistry(String registryId) throws RegistryNotFoundException;
 
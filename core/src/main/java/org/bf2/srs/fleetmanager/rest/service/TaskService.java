@@ -3,14 +3,23 @@ package org.bf2.srs.fleetmanager.rest.service;
 import org.bf2.srs.fleetmanager.execution.manager.TaskNotFoundException;
 import org.bf2.srs.fleetmanager.rest.service.model.Task;
 
-import java.util.List;
+import java.time.Instant;
+import java.util.stream.Stream;
 
 /**
  * @author Jakub Senko <jsenko@redhat.com>
  */
 public interface TaskService {
 
-    List<Task> getTasks();
+    /**
+     * Search for tasks using the task index, ordered by their next execution.
+     * The returned stream is lazy, tasks are loaded in chunks as it is consumed.
+     * If neither page nor size is provided, all matching tasks are returned.
+     * <p>
+     * All filter parameters may be null.
+     */
+    Stream<Task> getTasks(Integer page, Integer size, String type, String registryId,
+                          Instant nextExecuteFrom, Instant nextExecuteTo);
 
     Task getTask(String id) throws TaskNotFoundException;
 }
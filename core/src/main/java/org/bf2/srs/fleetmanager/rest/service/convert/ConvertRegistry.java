@@ -6,6 +6,7 @@ import org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto;
 import org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryView;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.validation.Valid;
@@ -36,6 +37,22 @@ public class ConvertRegistry {
                 .build();
     }
 
+    public RegistryDto convert(@NotNull RegistryView registry) {
+        return RegistryDto.builder()
+                .id(registry.getId())
+                .name(registry.getName())
+                .registryUrl(registry.getRegistryUrl())
+                .owner(registry.getOwner())
+                .orgId(registry.getOrgId())
+                .status(RegistryStatusValueDto.of(registry.getStatus()))
+                .registryDeploymentId(registry.getRegistryDeploymentId())
+                .createdAt(registry.getCreatedAt())
+                .updatedAt(registry.getUpdatedAt())
+                .description(registry.getDescription())
+                .instanceType(RegistryInstanceTypeValueDto.of(registry.getInstanceType()))
+                .build();
+    }
+
     public RegistryData convert(@Valid @NotNull RegistryCreateDto registryCreate,
                                 String subscriptionId, String owner, String orgId, Long ownerId, RegistryInstanceTypeValueDto instanceType) {
         requireNonNull(registryCreate);
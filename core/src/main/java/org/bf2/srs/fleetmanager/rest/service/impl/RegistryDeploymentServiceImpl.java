@@ -2,6 +2,10 @@ package org.bf2.srs.fleetmanager.rest.service.impl;
 
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 import org.bf2.srs.fleetmanager.common.operation.auditing.Audited;
+import org.bf2.srs.fleetmanager.execution.impl.placement.PlacementEngine;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryHeartbeatSweepTask;
+import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSubmitResult;
 import org.bf2.srs.fleetmanager.rest.service.RegistryDeploymentService;
 import org.bf2.srs.fleetmanager.rest.service.convert.ConvertRegistryDeployment;
 import org.bf2.srs.fleetmanager.rest.service.model.RegistryDeployment;
@@ -52,9 +56,18 @@ public class RegistryDeploymentServiceImpl implements RegistryDeploymentService
     @Inject
     ConvertRegistryDeployment convertRegistryDeployment;
 
+    @Inject
+    TaskManager tasks;
+
+    @Inject
+    PlacementEngine placement;
+
     @ConfigProperty(name = "registry.deployments.config.file")
     Optional<File> deploymentsConfigFile;
 
+    @ConfigProperty(name = "srs-fleet-manager.execution.registry-heartbeat.enabled", defaultValue = "false")
+    boolean heartbeatEnabled;
+
     @Override
     public void init() throws IOException, RegistryDeploymentStorageConflictException, RegistryDeploymentNotFoundException {
 
@@ -111,6 +124,19 @@ public class RegistryDeploymentServiceImpl implements RegistryDeploymentService
         }
     }
 
+    @Override
+    public void startHeartbeats() {
+        if (!heartbeatEnabled) {
+            return;
+        }
+        var heartbeats = storage.getAllRegistryDeployments().stream()
+                .map(d -> RegistryHeartbeatSweepTask.builder().deploymentId(d.getId()).build())
+                .collect(toList());
+        // Tasks for deployments that already have one are rejected as duplicates
+        long submitted = tasks.submitAll(heartbeats).stream().filter(TaskSubmitResult::isSubmitted).count();
+        log.info("Submitted heartbeat tasks for {} of {} registry deployments.", submitted, heartbeats.size());
+    }
+
     @Override
     @Audited
     public RegistryDeployment createRegistryDeployment(@Valid RegistryDeploymentCreate deploymentCreate) throws RegistryDeploymentStorageConflictException {
@@ -124,16 +150,17 @@ public class RegistryDeploymentServiceImpl implements RegistryDeploymentService
             log.error("Unexpected error", e);
             throw new RegistryDeploymentStorageConflictException();
         }
+        if (heartbeatEnabled) {
+            tasks.submit(RegistryHeartbeatSweepTask.builder().deploymentId(deployment.getId()).build());
+        }
         return convertRegistryDeployment.convert(deployment);
     }
 
     private void createOrUpdateRegistryDeployment(RegistryDeploymentData deployment) throws RegistryDeploymentStorageConflictException, RegistryDeploymentNotFoundException {
         deployment.getStatus().setValue(RegistryDeploymentStatusValue.AVAILABLE.value());
         storage.createOrUpdateRegistryDeployment(deployment);
-        // TODO This task is (temporarily) not used. Enable when needed.
-        //if (created) {
-        //    tasks.submit(RegistryDeploymentHeartbeatTask.builder().deploymentId(deployment.getId()).build());
-        //}
+        placement.invalidate();
+        // Heartbeat tasks are submitted when the task manager is started, see startHeartbeats()
     }
 
     @Override
@@ -157,5 +184,6 @@ public class RegistryDeploymentServiceImpl implements RegistryDeploymentService
             throw new ForbiddenException();
         }
         storage.deleteRegistryDeployment(id);
+        placement.invalidate();
     }
 }
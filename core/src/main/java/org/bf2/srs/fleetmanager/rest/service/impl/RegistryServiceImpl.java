@@ -1,7 +1,5 @@
 package org.bf2.srs.fleetmanager.rest.service.impl;
 
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
-import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
 import io.quarkus.security.identity.SecurityIdentity;
 import org.apache.commons.lang3.tuple.Pair;
@@ -9,6 +7,7 @@ import org.bf2.srs.fleetmanager.auth.AuthService;
 import org.bf2.srs.fleetmanager.auth.interceptor.CheckDeletePermissions;
 import org.bf2.srs.fleetmanager.auth.interceptor.CheckReadPermissions;
 import org.bf2.srs.fleetmanager.common.operation.auditing.Audited;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryTask;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.ScheduleRegistryTask;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.StartDeprovisionRegistryTask;
 import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
@@ -24,24 +23,35 @@ import org.bf2.srs.fleetmanager.rest.service.model.UsageStatisticsDto;
 import org.bf2.srs.fleetmanager.spi.ams.AccountManagementService;
 import org.bf2.srs.fleetmanager.spi.ams.AccountManagementServiceException;
 import org.bf2.srs.fleetmanager.spi.ams.ResourceLimitReachedException;
+import org.bf2.srs.fleetmanager.spi.ams.SubscriptionNotFoundServiceException;
 import org.bf2.srs.fleetmanager.spi.ams.TermsRequiredException;
 import org.bf2.srs.fleetmanager.spi.common.EvalInstancesNotAllowedException;
 import org.bf2.srs.fleetmanager.spi.common.TooManyEvalInstancesForUserException;
 import org.bf2.srs.fleetmanager.spi.common.TooManyInstancesException;
 import org.bf2.srs.fleetmanager.spi.common.model.AccountInfo;
 import org.bf2.srs.fleetmanager.spi.common.model.ResourceType;
+import org.bf2.srs.fleetmanager.storage.RegistryCountLimitReachedException;
 import org.bf2.srs.fleetmanager.storage.RegistryNotFoundException;
 import org.bf2.srs.fleetmanager.storage.RegistryStorageConflictException;
 import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryCounterKey;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryCounterScope;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryView;
 import org.bf2.srs.fleetmanager.util.BasicQuery;
+import org.bf2.srs.fleetmanager.util.KeysetCursor;
 import org.bf2.srs.fleetmanager.util.SearchQuery;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import javax.enterprise.context.ApplicationScoped;
@@ -56,6 +66,32 @@ import static org.bf2.srs.fleetmanager.util.SecurityUtil.isResolvable;
 @ApplicationScoped
 public class RegistryServiceImpl implements RegistryService {
 
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    /**
+     * Columns allowed in the `orderBy` parameter, mapped to the entity properties.
+     * Both the API (snake case) and the property names are accepted.
+     * The properties are always set, so they can be used for keyset pagination.
+     */
+    private static final Map<String, String> ORDER_BY_COLUMNS = Map.of(
+            "id", "id",
+            "name", "name",
+            "status", "status",
+            "owner", "owner",
+            "instance_type", "instanceType",
+            "instanceType", "instanceType",
+            "created_at", "createdAt",
+            "createdAt", "createdAt",
+            "updated_at", "updatedAt",
+            "updatedAt", "updatedAt"
+    );
+
+    /**
+     * Columns that support cursors. Range conditions never match NULL values,
+     * so the ordering column must not be nullable.
+     */
+    private static final Set<String> CURSOR_COLUMNS = Set.of("id", "name", "instanceType");
+
     @Inject
     TaskManager tasks;
 
@@ -95,8 +131,10 @@ public class RegistryServiceImpl implements RegistryService {
         final AccountInfo accountInfo = authService.extractAccountInfo();
 
         // Make sure we have more instances available (max capacity not yet reached).
-        long instanceCount = storage.getRegistryCountTotal();
-        if (instanceCount >= maxInstances) {
+        // This is only a fast check, the limits are enforced atomically when the registry is stored.
+        Map<RegistryCounterKey, Long> limits = new HashMap<>();
+        limits.put(RegistryCounterKey.total(), (long) maxInstances);
+        if (storage.getRegistryCountTotal() >= maxInstances) {
             throw new TooManyInstancesException();
         }
 
@@ -110,15 +148,10 @@ public class RegistryServiceImpl implements RegistryService {
                 throw new EvalInstancesNotAllowedException();
             }
 
-            // Limit the # of eval instances per user.  Need to check storage for list of eval registry instances.
-            List<RegistryData> registriesByOwner = storage.getRegistriesByOwner(accountInfo.getAccountUsername());
-            int evalInstanceCount = 0;
-            for (RegistryData registryData : registriesByOwner) { // TODO Perform a dedicated query
-                if (RegistryInstanceTypeValueDto.EVAL.value().equals(registryData.getInstanceType())) {
-                    evalInstanceCount++;
-                }
-            }
-            if (evalInstanceCount >= maxEvalInstancesPerUser) {
+            // Limit the # of eval instances per user.
+            var ownerEvalKey = RegistryCounterKey.owner(accountInfo.getAccountUsername(), RegistryInstanceTypeValueDto.EVAL.value());
+            limits.put(ownerEvalKey, (long) maxEvalInstancesPerUser);
+            if (storage.getRegistryCount(ownerEvalKey) >= maxEvalInstancesPerUser) {
                 throw new TooManyEvalInstancesForUserException();
             }
         }
@@ -134,20 +167,40 @@ public class RegistryServiceImpl implements RegistryService {
                 accountInfo.getOrganizationId(), accountInfo.getAccountId(), instanceType);
         // Generate the ID
         registryData.setId(UUID.randomUUID().toString());
-        storage.createOrUpdateRegistry(registryData);
+        try {
+            storage.createRegistry(registryData, limits);
+        } catch (RegistryCountLimitReachedException ex) {
+            // Another registry has been created concurrently
+            releaseSubscription(subscriptionId);
+            if (ex.getKey().getScope() == RegistryCounterScope.GLOBAL) {
+                throw new TooManyInstancesException();
+            } else {
+                throw new TooManyEvalInstancesForUserException();
+            }
+        }
         tasks.submit(ScheduleRegistryTask.builder().registryId(registryData.getId()).build());
         return convertRegistry.convert(registryData);
     }
 
+    private void releaseSubscription(String subscriptionId) throws AccountManagementServiceException {
+        if (subscriptionId != null) {
+            try {
+                accountManagementService.deleteSubscription(subscriptionId);
+            } catch (SubscriptionNotFoundServiceException ex) {
+                log.warn("Subscription ID '{}' does not exist (already deleted?).", subscriptionId);
+            }
+        }
+    }
+
     private static RegistryInstanceTypeValueDto resourceTypeToInstanceType(ResourceType resourceType) {
         return resourceType == ResourceType.REGISTRY_INSTANCE_STANDARD ? RegistryInstanceTypeValueDto.STANDARD : RegistryInstanceTypeValueDto.EVAL;
     }
 
     @Override
-    public RegistryListDto getRegistries(Integer page, Integer size, String orderBy, String search) {
+    public RegistryListDto getRegistries(Integer page, Integer size, String orderBy, String search, String cursor, Boolean skipTotal) {
         // Defaults
-        var sort = Sort.by("id", Sort.Direction.Ascending);
-        page = (page != null) ? page : 1;
+        var sortColumn = "id";
+        var ascending = true;
         size = (size != null) ? size : 10;
 
         if (orderBy != null) {
@@ -155,12 +208,34 @@ public class RegistryServiceImpl implements RegistryService {
             if (order.length != 2) {
                 throw new ValidationException("invalid orderBy");
             }
-            if ("asc".equals(order[1])) {
-                sort = Sort.by(order[0], Sort.Direction.Ascending);
-            } else {
-                sort = Sort.by(order[0], Sort.Direction.Descending);
+            sortColumn = ORDER_BY_COLUMNS.get(order[0]);
+            if (sortColumn == null) {
+                throw new ValidationException("invalid orderBy");
+            }
+            ascending = "asc".equals(order[1]);
+        }
+
+        var direction = ascending ? Sort.Direction.Ascending : Sort.Direction.Descending;
+        var sort = Sort.by(sortColumn, direction);
+        if (!"id".equals(sortColumn)) {
+            // The ID is a tie-breaker, so the ordering is stable and a cursor identifies a single position
+            sort = sort.and("id", direction);
+        }
+
+        KeysetCursor after = null;
+        if (cursor != null) {
+            if (page != null && page > 1) {
+                throw new ValidationException("page and cursor cannot be used together");
+            }
+            if (!CURSOR_COLUMNS.contains(sortColumn)) {
+                throw new ValidationException("cursor is not supported for this orderBy parameter");
+            }
+            after = KeysetCursor.decode(cursor);
+            if (!sortColumn.equals(after.getColumn()) || ascending != after.isAscending()) {
+                throw new ValidationException("cursor does not match the orderBy parameter");
             }
         }
+        page = (page != null) ? page : 1;
 
         List<Pair<String, Object>> conditions = new ArrayList<>();
         if (search != null && !search.isEmpty()) {
@@ -181,16 +256,48 @@ public class RegistryServiceImpl implements RegistryService {
             conditions.add(Pair.of("ownerId", OWNER_ID_PLACEHOLDER));
         }
 
-        var query = new SearchQuery(conditions);
+        var query = new SearchQuery(conditions, after);
 
-        PanacheQuery<RegistryData> itemsQuery = storage.executeRegistrySearchQuery(query, sort);
+        // Fetch a single extra item to find out if there is a next page
+        int first = (after != null) ? 0 : (page - 1) * size;
+        List<RegistryView> rows = storage.executeRegistrySearchProjectionQuery(query, sort)
+                .range(first, first + size).list();
 
-        var items = itemsQuery.page(Page.of(page - 1, size)).stream().map(convertRegistry::convert)
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            var last = rows.get(size - 1);
+            if (CURSOR_COLUMNS.contains(sortColumn)) {
+                next = new KeysetCursor(sortColumn, ascending, getSortValue(last, sortColumn), last.getId()).encode();
+            }
+        }
+
+        Long total = null;
+        if (skipTotal == null || !skipTotal) {
+            // The count query does not load the entities
+            total = storage.executeRegistrySearchQuery(after != null ? new SearchQuery(conditions) : query, sort).count();
+        }
+
+        var items = rows.stream().map(convertRegistry::convert)
                 .collect(Collectors.toList());
         return RegistryListDto.builder().items(items)
                 .page(page)
                 .size(size)
-                .total(itemsQuery.count()).build();
+                .total(total)
+                .next(next).build();
+    }
+
+    private static Object getSortValue(RegistryView registry, String sortColumn) {
+        switch (sortColumn) {
+            case "id":
+                return registry.getId();
+            case "name":
+                return registry.getName();
+            case "instanceType":
+                return registry.getInstanceType();
+            default:
+                throw new IllegalStateException("Unexpected value: " + sortColumn);
+        }
     }
 
     @Override
@@ -212,7 +319,9 @@ public class RegistryServiceImpl implements RegistryService {
         try {
             // Verify preconditions - Registry exists
             storage.getRegistryById(registryId).orElseThrow(() -> new RegistryNotFoundException(registryId));
-            tasks.submit(StartDeprovisionRegistryTask.builder().registryId(registryId).build());
+            // Clients may retry the request
+            var task = StartDeprovisionRegistryTask.builder().registryId(registryId).build();
+            tasks.submit(task, RegistryTask.dedupeKey(task));
         } catch (NumberFormatException ex) {
             throw new RegistryNotFoundException(registryId);
         }
@@ -2,14 +2,18 @@ package org.bf2.srs.fleetmanager.rest.service.impl;
 
 import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
 import org.bf2.srs.fleetmanager.execution.manager.TaskNotFoundException;
+import org.bf2.srs.fleetmanager.execution.manager.TaskQuery;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSummary;
 import org.bf2.srs.fleetmanager.rest.service.TaskService;
 import org.bf2.srs.fleetmanager.rest.service.convert.ConvertTask;
 import org.bf2.srs.fleetmanager.rest.service.model.Task;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.validation.ValidationException;
 
 /**
  * @author Jakub Senko <jsenko@redhat.com>
@@ -17,6 +21,13 @@ import javax.inject.Inject;
 @ApplicationScoped
 public class TaskServiceImpl implements TaskService {
 
+    /**
+     * Number of task index entries read at once when all matching tasks are requested.
+     */
+    private static final int CHUNK_SIZE = 100;
+
+    private static final int DEFAULT_SIZE = 10;
+
     @Inject
     TaskManager taskManager;
 
@@ -24,10 +35,34 @@ public class TaskServiceImpl implements TaskService {
     ConvertTask convertTask;
 
     @Override
-    public List<Task> getTasks() {
-        return taskManager.getAllTasks().stream()
-                .map(convertTask::convert)
-                .collect(Collectors.toList());
+    public Stream<Task> getTasks(Integer page, Integer size, String type, String registryId,
+                                 Instant nextExecuteFrom, Instant nextExecuteTo) {
+        if (nextExecuteFrom != null && nextExecuteTo != null && !nextExecuteFrom.isBefore(nextExecuteTo)) {
+            throw new ValidationException("nextExecuteFrom must be before nextExecuteTo");
+        }
+        var query = TaskQuery.builder()
+                .taskType(type)
+                .registryId(registryId)
+                .nextExecuteFrom(nextExecuteFrom)
+                .nextExecuteTo(nextExecuteTo);
+
+        Stream<List<TaskSummary>> chunks;
+        if (page != null || size != null) {
+            page = (page != null) ? page : 1;
+            size = (size != null) ? size : DEFAULT_SIZE;
+            int offset = (int) Math.min((long) (page - 1) * size, Integer.MAX_VALUE);
+            chunks = Stream.of(taskManager.searchTasks(query.offset(offset).limit(size).build()));
+        } else {
+            // Each chunk continues after the last task of the previous one
+            chunks = Stream.iterate(taskManager.searchTasks(query.limit(CHUNK_SIZE).build()),
+                            chunk -> !chunk.isEmpty(),
+                            chunk -> chunk.size() < CHUNK_SIZE ? List.of() :
+                                    taskManager.searchTasks(query.after(chunk.get(chunk.size() - 1)).limit(CHUNK_SIZE).build()));
+        }
+        // Tasks removed since the search are skipped
+        return chunks
+                .flatMap(chunk -> taskManager.loadTasks(chunk).stream())
+                .map(convertTask::convert);
     }
 
     @Override
@@ -20,8 +20,16 @@ import javax.validation.constraints.NotNull;
 @ToString(callSuper = true)
 public class RegistryListDto extends AbstractList<RegistryDto> {
 
+    /**
+     * Continuation token pointing after the last item of this page, if there are more items.
+     * <p>
+     * (Optional)
+     */
+    private String next;
+
     @Builder
-    public RegistryListDto(@NotNull List<RegistryDto> items, @NotNull Integer page, Integer size, Long total) {
+    public RegistryListDto(@NotNull List<RegistryDto> items, @NotNull Integer page, Integer size, Long total, String next) {
         super(Kind.REGISTRY_LIST, items, page, size, total);
+        this.next = next;
     }
 }
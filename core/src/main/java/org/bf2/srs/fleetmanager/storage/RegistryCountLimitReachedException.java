@@ -0,0 +1,21 @@
+package org.bf2.srs.fleetmanager.storage;
+
+import lombok.Getter;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryCounterKey;
+
+/**
+ * Thrown when a Registry instance can not be created, because one of the registry counters has reached its limit.
+ * The caller is expected to convert this exception to a user error, based on the counter key.
+ */
+public class RegistryCountLimitReachedException extends StorageException {
+
+    private static final long serialVersionUID = 3390524186402385925L;
+
+    @Getter
+    private final RegistryCounterKey key;
+
+    public RegistryCountLimitReachedException(RegistryCounterKey key) {
+        super("Registry count limit reached for " + key);
+        this.key = key;
+    }
+}
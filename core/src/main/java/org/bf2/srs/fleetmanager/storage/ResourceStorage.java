@@ -1,5 +1,7 @@
 package org.bf2.srs.fleetmanager.storage;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -7,8 +9,10 @@ import java.util.Optional;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryCounterKey;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryView;
 import org.bf2.srs.fleetmanager.util.SearchQuery;
 
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
@@ -24,6 +28,15 @@ public interface ResourceStorage {
 
     boolean createOrUpdateRegistry(@Valid RegistryData registry) throws RegistryStorageConflictException;
 
+    /**
+     * Create a new Registry instance, unless one of the registry counters the instance belongs to
+     * would exceed its limit. The counters are updated atomically, so the limits hold under concurrent creates.
+     *
+     * @param registry MUST have the ID set.
+     * @param limits   Maximum counter values. Counters without a limit are not checked.
+     */
+    void createRegistry(@Valid RegistryData registry, Map<RegistryCounterKey, Long> limits) throws RegistryStorageConflictException, RegistryCountLimitReachedException;
+
     Optional<RegistryData> getRegistryById(@NotNull String id);
 
     List<RegistryData> getAllRegistries();
@@ -32,6 +45,30 @@ public interface ResourceStorage {
 
     void deleteRegistry(@NotNull String id) throws RegistryNotFoundException, RegistryStorageConflictException;
 
+    /**
+     * Get a page of Registry instances belonging to the given deployment, ordered by ID.
+     *
+     * @param afterId only instances with a greater ID are returned, or from the first instance if null
+     */
+    List<RegistryData> getRegistriesByDeployment(@NotNull Long deploymentId, String afterId, int limit);
+
+    /**
+     * Get Registry instances of the given type created before the given time, oldest first.
+     *
+     * @param statuses only instances with one of these statuses are returned
+     */
+    List<RegistryData> getRegistriesCreatedBefore(@NotNull String instanceType, @NotNull Instant createdBefore,
+                                                  @NotNull Collection<String> statuses, int limit);
+
+    /**
+     * Set the status of the given Registry instances in a single update.
+     * Instances whose current status is not one of the expected values are skipped,
+     * so a concurrent change (e.g. a deprovisioning request) is not overwritten.
+     *
+     * @return number of updated instances
+     */
+    int updateRegistryStatus(@NotNull Collection<String> ids, @NotNull Collection<String> expectedStatuses, @NotNull String status);
+
     //*** RegistryDeployment
 
     boolean createOrUpdateRegistryDeployment(@Valid RegistryDeploymentData rd) throws RegistryDeploymentStorageConflictException, RegistryDeploymentNotFoundException;
@@ -45,10 +82,21 @@ public interface ResourceStorage {
     PanacheQuery<RegistryData> executeRegistrySearchQuery(SearchQuery query, Sort sort);
 
     /**
-     * Queries the DB to get the total # of Registry instances.
+     * Same as {@link #executeRegistrySearchQuery(SearchQuery, Sort)},
+     * but only selects the columns required to list the Registry instances, without loading the entities.
+     */
+    PanacheQuery<RegistryView> executeRegistrySearchProjectionQuery(SearchQuery query, Sort sort);
+
+    /**
+     * Reads the total # of Registry instances from the registry counters.
      */
     long getRegistryCountTotal();
 
+    /**
+     * Reads the # of Registry instances from the given registry counter.
+     */
+    long getRegistryCount(@NotNull RegistryCounterKey key);
+
     /**
      * Queries the DB to get the total # of Registry instances per each status value.
      */
@@ -59,6 +107,12 @@ public interface ResourceStorage {
      */
     Map<String, Long> getRegistryCountPerType();
 
+    /**
+     * Queries the DB to get the total # of Registry instances per each registry deployment ID and organization ID.
+     * Deployments without Registry instances are not included.
+     */
+    Map<Long, Map<String, Long>> getRegistryCountPerDeploymentAndOrg();
+
     long getRegistryOwnerCount();
 
     long getRegistryOrganisationCount();
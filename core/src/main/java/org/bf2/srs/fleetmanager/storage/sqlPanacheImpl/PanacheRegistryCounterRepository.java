@@ -0,0 +1,46 @@
+package org.bf2.srs.fleetmanager.storage.sqlPanacheImpl;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryCounterData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryCounterKey;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.persistence.PersistenceException;
+import javax.transaction.Transactional;
+
+import static javax.transaction.Transactional.TxType.REQUIRES_NEW;
+
+@ApplicationScoped
+public class PanacheRegistryCounterRepository implements PanacheRepositoryBase<RegistryCounterData, RegistryCounterKey> {
+
+    /**
+     * Increment the counter, unless it would exceed the limit.
+     * The updated row stays locked until the end of the transaction, so concurrent increments are serialized.
+     *
+     * @return false if the limit has been reached, or the counter does not exist
+     */
+    public boolean increment(RegistryCounterKey key, long limit) {
+        return update("registryCount = registryCount + 1 where scope = ?1 and scopeId = ?2 and instanceType = ?3 and registryCount < ?4",
+                key.getScope(), key.getScopeId(), key.getInstanceType(), limit) == 1;
+    }
+
+    public void decrement(RegistryCounterKey key) {
+        update("registryCount = registryCount - 1 where scope = ?1 and scopeId = ?2 and instanceType = ?3 and registryCount > 0",
+                key.getScope(), key.getScopeId(), key.getInstanceType());
+    }
+
+    /**
+     * Create the counter in a separate transaction, so that it is visible to concurrent transactions.
+     * It is not an error if the counter has been created concurrently.
+     */
+    @Transactional(REQUIRES_NEW)
+    public void createIfAbsent(RegistryCounterKey key) {
+        if (findByIdOptional(key).isEmpty()) {
+            try {
+                persistAndFlush(new RegistryCounterData(key));
+            } catch (PersistenceException ex) {
+                // Created concurrently, the transaction is rolled back
+            }
+        }
+    }
+}
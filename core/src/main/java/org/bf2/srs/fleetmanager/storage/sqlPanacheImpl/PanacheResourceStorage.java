@@ -3,19 +3,25 @@ package org.bf2.srs.fleetmanager.storage.sqlPanacheImpl;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.panache.common.Sort;
 import org.bf2.srs.fleetmanager.operation.logging.Logged;
+import org.bf2.srs.fleetmanager.storage.RegistryCountLimitReachedException;
 import org.bf2.srs.fleetmanager.storage.RegistryDeploymentNotFoundException;
 import org.bf2.srs.fleetmanager.storage.RegistryDeploymentStorageConflictException;
 import org.bf2.srs.fleetmanager.storage.RegistryNotFoundException;
 import org.bf2.srs.fleetmanager.storage.RegistryStorageConflictException;
 import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryCounterData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryCounterKey;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryView;
 import org.bf2.srs.fleetmanager.util.SearchQuery;
 import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +55,9 @@ public class PanacheResourceStorage implements ResourceStorage {
     @Inject
     PanacheRegistryDeploymentRepository deploymentRepository;
 
+    @Inject
+    PanacheRegistryCounterRepository counterRepository;
+
     @Inject
     EntityManager em;
 
@@ -60,9 +69,31 @@ public class PanacheResourceStorage implements ResourceStorage {
             //TODO investigate using locks, such as optimistic locks
             existing = registryRepository.findByIdOptional(registry.getId());
         }
+        if (existing.isEmpty()) {
+            // No limits, so the counters are always incremented
+            incrementCounters(registry, Map.of());
+        }
+        persistRegistry(registry, existing.isEmpty());
+        return existing.isEmpty();
+    }
+
+    @Override
+    @Transactional(rollbackOn = RegistryCountLimitReachedException.class)
+    public void createRegistry(RegistryData registry, Map<RegistryCounterKey, Long> limits) throws RegistryStorageConflictException, RegistryCountLimitReachedException {
+        requireNonNull(registry);
+        requireNonNull(registry.getId());
+        requireNonNull(limits);
+        var exceeded = incrementCounters(registry, limits);
+        if (exceeded.isPresent()) {
+            throw new RegistryCountLimitReachedException(exceeded.get());
+        }
+        persistRegistry(registry, true);
+    }
+
+    private void persistRegistry(RegistryData registry, boolean created) throws RegistryStorageConflictException {
         try {
             final Instant now = Instant.now();
-            if (existing.isEmpty()) {
+            if (created) {
                 registry.setCreatedAt(now);
             }
             registry.setUpdatedAt(now);
@@ -75,7 +106,37 @@ public class PanacheResourceStorage implements ResourceStorage {
                 throw ex;
             }
         }
-        return existing.isEmpty();
+    }
+
+    /**
+     * @return the key of the first counter that would exceed its limit, in which case the transaction must be rolled back
+     */
+    private Optional<RegistryCounterKey> incrementCounters(RegistryData registry, Map<RegistryCounterKey, Long> limits) {
+        for (RegistryCounterKey key : getCounterKeys(registry)) {
+            long limit = limits.getOrDefault(key, Long.MAX_VALUE);
+            if (!counterRepository.increment(key, limit)) {
+                if (counterRepository.findByIdOptional(key).isPresent()) {
+                    return Optional.of(key);
+                }
+                counterRepository.createIfAbsent(key);
+                if (!counterRepository.increment(key, limit)) {
+                    return Optional.of(key);
+                }
+            }
+        }
+        return empty();
+    }
+
+    private static List<RegistryCounterKey> getCounterKeys(RegistryData registry) {
+        var keys = new ArrayList<RegistryCounterKey>(3);
+        keys.add(RegistryCounterKey.total());
+        if (registry.getOwner() != null) {
+            keys.add(RegistryCounterKey.owner(registry.getOwner(), registry.getInstanceType()));
+        }
+        if (registry.getOrgId() != null) {
+            keys.add(RegistryCounterKey.organization(registry.getOrgId(), registry.getInstanceType()));
+        }
+        return keys;
     }
 
     @Override
@@ -100,6 +161,7 @@ public class PanacheResourceStorage implements ResourceStorage {
                 .orElseThrow(() -> new RegistryNotFoundException(id));
         try {
             registryRepository.delete(registry);
+            getCounterKeys(registry).forEach(counterRepository::decrement);
 
         } catch (PersistenceException ex) {
             if (ex.getCause() instanceof ConstraintViolationException) {
@@ -110,6 +172,38 @@ public class PanacheResourceStorage implements ResourceStorage {
         }
     }
 
+    @Override
+    public List<RegistryData> getRegistriesByDeployment(Long deploymentId, String afterId, int limit) {
+        requireNonNull(deploymentId);
+        var query = (afterId == null) ?
+                registryRepository.find("registryDeployment.id = ?1", Sort.by("id"), deploymentId) :
+                registryRepository.find("registryDeployment.id = ?1 and id > ?2", Sort.by("id"), deploymentId, afterId);
+        return query.range(0, limit - 1).list();
+    }
+
+    @Override
+    public List<RegistryData> getRegistriesCreatedBefore(String instanceType, Instant createdBefore,
+                                                         Collection<String> statuses, int limit) {
+        requireNonNull(instanceType);
+        requireNonNull(createdBefore);
+        requireNonNull(statuses);
+        return registryRepository.find("instanceType = ?1 and createdAt < ?2 and status in ?3",
+                        Sort.by("createdAt").and("id"), instanceType, createdBefore, statuses)
+                .range(0, limit - 1)
+                .list();
+    }
+
+    @Override
+    public int updateRegistryStatus(Collection<String> ids, Collection<String> expectedStatuses, String status) {
+        requireNonNull(ids);
+        requireNonNull(expectedStatuses);
+        requireNonNull(status);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return registryRepository.update("status = ?1 where id in ?2 and status in ?3", status, ids, expectedStatuses);
+    }
+
     //*** RegistryDeployment
 
     @Override
@@ -176,9 +270,22 @@ public class PanacheResourceStorage implements ResourceStorage {
         return this.registryRepository.find(query.getQuery(), sort, query.getArguments());
     }
 
+    @Override
+    public PanacheQuery<RegistryView> executeRegistrySearchProjectionQuery(SearchQuery query, Sort sort) {
+        return executeRegistrySearchQuery(query, sort).project(RegistryView.class);
+    }
+
     @Override
     public long getRegistryCountTotal() {
-        return this.registryRepository.count();
+        return getRegistryCount(RegistryCounterKey.total());
+    }
+
+    @Override
+    public long getRegistryCount(RegistryCounterKey key) {
+        requireNonNull(key);
+        return counterRepository.findByIdOptional(key)
+                .map(RegistryCounterData::getRegistryCount)
+                .orElse(0L);
     }
 
     @Override
@@ -209,6 +316,21 @@ public class PanacheResourceStorage implements ResourceStorage {
         return res;
     }
 
+    @Override
+    public Map<Long, Map<String, Long>> getRegistryCountPerDeploymentAndOrg() {
+        var res = new HashMap<Long, Map<String, Long>>();
+        List<Object[]> queryRes = (List<Object[]>) this.registryRepository.getEntityManager()
+                .createQuery("select r.registryDeployment.id, r.orgId, count(r) from RegistryData r where r.registryDeployment is not null group by r.registryDeployment.id, r.orgId")
+                .getResultList();
+        for (Object[] qr : queryRes) {
+            if (qr.length != 3)
+                throw new IllegalStateException("Unexpected number of columns in the result row: " + qr.length);
+            res.computeIfAbsent(((Number) qr[0]).longValue(), k -> new HashMap<>())
+                    .put((String) qr[1], ((Number) qr[2]).longValue());
+        }
+        return res;
+    }
+
     @Override
     public long getRegistryOwnerCount() {
         try {
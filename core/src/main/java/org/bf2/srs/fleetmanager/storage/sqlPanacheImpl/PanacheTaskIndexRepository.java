@@ -0,0 +1,165 @@
+package org.bf2.srs.fleetmanager.storage.sqlPanacheImpl;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.TaskIndexData;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import javax.enterprise.context.ApplicationScoped;
+import javax.transaction.Transactional;
+
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toSet;
+
+@ApplicationScoped
+public class PanacheTaskIndexRepository implements PanacheRepositoryBase<TaskIndexData, String> {
+
+    @Transactional
+    public void put(TaskIndexData entry) {
+        var existing = findByIdOptional(entry.getTaskId());
+        if (existing.isPresent()) {
+            existing.get().setTaskType(entry.getTaskType());
+            existing.get().setRegistryId(entry.getRegistryId());
+            existing.get().setNextExecuteAt(entry.getNextExecuteAt());
+            existing.get().setDedupeKey(entry.getDedupeKey());
+        } else {
+            persist(entry);
+        }
+    }
+
+    /**
+     * Insert a new entry with a dedupe key. The entry is flushed, so that a concurrent insert of an entry
+     * with the same key fails here, with a {@link javax.persistence.PersistenceException} caused by
+     * a {@link org.hibernate.exception.ConstraintViolationException}, rather than when the transaction is committed.
+     */
+    @Transactional
+    public void insertUnique(TaskIndexData entry) {
+        persistAndFlush(entry);
+    }
+
+    @Transactional
+    public boolean existsByDedupeKey(String dedupeKey) {
+        return count("dedupeKey", dedupeKey) > 0;
+    }
+
+    @Transactional
+    public void putAll(List<TaskIndexData> entries) {
+        entries.forEach(this::put);
+    }
+
+    @Transactional
+    public void updateNextExecuteAt(String taskId, Instant nextExecuteAt) {
+        update("nextExecuteAt = ?1 where taskId = ?2", nextExecuteAt, taskId);
+    }
+
+    @Transactional
+    public void remove(String taskId) {
+        delete("taskId", taskId);
+    }
+
+    @Transactional
+    public Optional<TaskIndexData> get(String taskId) {
+        return findByIdOptional(taskId);
+    }
+
+    /**
+     * Entries are ordered by the next execution and ID, entries without a next execution come last.
+     *
+     * @param taskType           may be null to match any type
+     * @param registryId         may be null to match any registry
+     * @param from               may be null, inclusive lower bound of the next execution
+     * @param to                 may be null, exclusive upper bound of the next execution
+     * @param afterNextExecuteAt next execution of the entry to continue after, may be null
+     * @param afterTaskId        may be null, ID of the entry to continue after, instead of or in addition to the offset
+     */
+    @Transactional
+    public List<TaskIndexData> search(String taskType, String registryId, Instant from, Instant to,
+                                      Instant afterNextExecuteAt, String afterTaskId, int offset, int limit) {
+        var results = new ArrayList<TaskIndexData>();
+        // Entries after a position without a next execution are all without one
+        boolean scheduled = afterTaskId == null || afterNextExecuteAt != null;
+        if (scheduled) {
+            var query = new StringBuilder("nextExecuteAt is not null");
+            var params = filter(query, taskType, registryId, from, to);
+            if (afterTaskId != null) {
+                query.append(" and (nextExecuteAt > :afterAt or (nextExecuteAt = :afterAt and taskId > :afterId))");
+                params.and("afterAt", afterNextExecuteAt).and("afterId", afterTaskId);
+            }
+            results.addAll(find(query.toString(), Sort.by("nextExecuteAt").and("taskId"), params)
+                    .range(offset, last(offset, limit))
+                    .list());
+            if (results.size() == limit || from != null || to != null) {
+                return results;
+            }
+            if (results.isEmpty() && offset > 0) {
+                // The offset may reach past the scheduled entries
+                offset = (int) Math.max(0, offset - count(query.toString(), params));
+            } else {
+                offset = 0;
+            }
+        }
+        var query = new StringBuilder("nextExecuteAt is null");
+        var params = filter(query, taskType, registryId, null, null);
+        if (!scheduled) {
+            query.append(" and taskId > :afterId");
+            params.and("afterId", afterTaskId);
+        }
+        results.addAll(find(query.toString(), Sort.by("taskId"), params)
+                .range(offset, last(offset, limit - results.size()))
+                .list());
+        return results;
+    }
+
+    private static Parameters filter(StringBuilder query, String taskType, String registryId, Instant from, Instant to) {
+        var params = new Parameters();
+        if (taskType != null) {
+            query.append(" and taskType = :taskType");
+            params.and("taskType", taskType);
+        }
+        if (registryId != null) {
+            query.append(" and registryId = :registryId");
+            params.and("registryId", registryId);
+        }
+        if (from != null) {
+            query.append(" and nextExecuteAt >= :from");
+            params.and("from", from);
+        }
+        if (to != null) {
+            query.append(" and nextExecuteAt < :to");
+            params.and("to", to);
+        }
+        return params;
+    }
+
+    private static int last(int offset, int limit) {
+        return (int) Math.min((long) offset + limit - 1, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * @return a mutable set of the given task IDs that are indexed
+     */
+    @Transactional
+    public Set<String> getExistingTaskIds(Collection<String> taskIds) {
+        if (taskIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return getEntityManager().createQuery("select t.taskId from TaskIndexData t where t.taskId in :taskIds", String.class)
+                .setParameter("taskIds", taskIds)
+                .getResultStream()
+                .collect(toCollection(HashSet::new));
+    }
+
+    @Transactional
+    public Set<String> getAllTaskIds() {
+        return getEntityManager().createQuery("select t.taskId from TaskIndexData t", String.class)
+                .getResultStream()
+                .collect(toSet());
+    }
+}
@@ -0,0 +1,181 @@
+package org.bf2.srs.fleetmanager.storage.sqlPanacheImpl;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.TaskQueueData;
+import org.hibernate.LockOptions;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import javax.enterprise.context.ApplicationScoped;
+import javax.persistence.LockModeType;
+import javax.transaction.Transactional;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+@ApplicationScoped
+public class PanacheTaskQueueRepository implements PanacheRepositoryBase<TaskQueueData, String> {
+
+    private static final String LOCK_TIMEOUT_HINT = "javax.persistence.lock.timeout";
+
+    /**
+     * Insert the entries in a single transaction, skipping entries with an ID that already exists.
+     * The IDs of the entries MUST be unique.
+     *
+     * @return IDs of the skipped entries
+     */
+    @Transactional
+    public Set<String> insertNew(List<TaskQueueData> entries) {
+        var existing = new HashSet<>(getEntityManager()
+                .createQuery("select t.taskId from TaskQueueData t where t.taskId in :ids", String.class)
+                .setParameter("ids", entries.stream().map(TaskQueueData::getTaskId).collect(toList()))
+                .getResultList());
+        entries.stream()
+                .filter(e -> !existing.contains(e.getTaskId()))
+                .forEach(this::persist);
+        return existing;
+    }
+
+    /**
+     * Insert the entry, unless an entry with the same dedupe key already exists.
+     * The entry is flushed, so that a concurrent insert of an entry with the same key fails here,
+     * with a {@link javax.persistence.PersistenceException} caused by
+     * a {@link org.hibernate.exception.ConstraintViolationException}, rather than when the transaction is committed.
+     *
+     * @return false if the entry has not been inserted
+     */
+    @Transactional
+    public boolean insertUnique(TaskQueueData entry) {
+        if (count("dedupeKey", entry.getDedupeKey()) > 0) {
+            return false;
+        }
+        persistAndFlush(entry);
+        return true;
+    }
+
+    /**
+     * Claim up to the given number of tasks that are due, and not claimed by another instance,
+     * by setting a lease. Higher priority tasks are claimed first.
+     * <p>
+     * Rows locked by a concurrent claim are skipped (SELECT ... FOR UPDATE SKIP LOCKED),
+     * so instances do not wait for each other. Databases that do not support SKIP LOCKED wait for the lock instead.
+     */
+    @Transactional
+    public List<TaskQueueData> claim(String owner, Instant now, Instant leaseUntil, int limit) {
+        List<TaskQueueData> claimed = find("nextExecuteAt <= :now and (leaseUntil is null or leaseUntil < :now)",
+                Sort.descending("priority").and("nextExecuteAt"), Parameters.with("now", now))
+                .withLock(LockModeType.PESSIMISTIC_WRITE)
+                .withHint(LOCK_TIMEOUT_HINT, LockOptions.SKIP_LOCKED)
+                .page(Page.ofSize(limit))
+                .list();
+        for (TaskQueueData entry : claimed) {
+            entry.setLeaseOwner(owner);
+            entry.setLeaseUntil(leaseUntil);
+        }
+        return claimed;
+    }
+
+    /**
+     * Save the job data and the next execution of a claimed task, and release the lease.
+     *
+     * @return false if the task has been removed, or claimed by another instance after the lease expired
+     */
+    @Transactional
+    public boolean release(String taskId, String owner, byte[] jobData, Instant nextExecuteAt, int deferrals) {
+        return update("jobData = :jobData, nextExecuteAt = :next, deferrals = :deferrals, leaseOwner = null, leaseUntil = null" +
+                        " where taskId = :taskId and leaseOwner = :owner",
+                Parameters.with("jobData", jobData)
+                        .and("next", nextExecuteAt)
+                        .and("deferrals", deferrals)
+                        .and("taskId", taskId)
+                        .and("owner", owner)) > 0;
+    }
+
+    /**
+     * Extend the lease of a task claimed by the owner.
+     *
+     * @return false if the task has been released or removed, or claimed by another instance after the lease expired
+     */
+    @Transactional
+    public boolean renew(String taskId, String owner, Instant leaseUntil) {
+        return update("leaseUntil = :leaseUntil where taskId = :taskId and leaseOwner = :owner",
+                Parameters.with("leaseUntil", leaseUntil)
+                        .and("taskId", taskId)
+                        .and("owner", owner)) > 0;
+    }
+
+    @Transactional
+    public void remove(String taskId) {
+        delete("taskId", taskId);
+    }
+
+    @Transactional
+    public Optional<TaskQueueData> get(String taskId) {
+        return findByIdOptional(taskId);
+    }
+
+    @Transactional
+    public List<TaskQueueData> getAll() {
+        return listAll();
+    }
+
+    @Transactional
+    public List<TaskQueueData> getByIds(Collection<String> taskIds) {
+        if (taskIds.isEmpty()) {
+            return List.of();
+        }
+        return list("taskId in ?1", taskIds);
+    }
+
+    @Transactional
+    public List<TaskQueueData> getByType(String taskType) {
+        return list("taskType", taskType);
+    }
+
+    /**
+     * @param taskType           may be null to match any type
+     * @param registryId         may be null to match any registry
+     * @param from               may be null, inclusive lower bound of the next execution
+     * @param to                 may be null, exclusive upper bound of the next execution
+     * @param afterNextExecuteAt next execution of the entry to continue after, required if the ID is set
+     * @param afterTaskId        may be null, ID of the entry to continue after, instead of or in addition to the offset
+     */
+    @Transactional
+    public List<TaskQueueData> search(String taskType, String registryId, Instant from, Instant to,
+                                      Instant afterNextExecuteAt, String afterTaskId, int offset, int limit) {
+        var query = new StringBuilder("1 = 1");
+        var params = new Parameters();
+        if (taskType != null) {
+            query.append(" and taskType = :taskType");
+            params.and("taskType", taskType);
+        }
+        if (registryId != null) {
+            query.append(" and registryId = :registryId");
+            params.and("registryId", registryId);
+        }
+        if (from != null) {
+            query.append(" and nextExecuteAt >= :from");
+            params.and("from", from);
+        }
+        if (to != null) {
+            query.append(" and nextExecuteAt < :to");
+            params.and("to", to);
+        }
+        if (afterTaskId != null) {
+            requireNonNull(afterNextExecuteAt);
+            query.append(" and (nextExecuteAt > :afterAt or (nextExecuteAt = :afterAt and taskId > :afterId))");
+            params.and("afterAt", afterNextExecuteAt).and("afterId", afterTaskId);
+        }
+        int last = (int) Math.min((long) offset + limit - 1, Integer.MAX_VALUE - 1);
+        return find(query.toString(), Sort.by("nextExecuteAt").and("taskId"), params)
+                .range(offset, last)
+                .list();
+    }
+}
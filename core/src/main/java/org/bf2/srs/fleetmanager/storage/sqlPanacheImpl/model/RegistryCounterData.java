@@ -0,0 +1,57 @@
+package org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+/**
+ * Number of Registry instances in a given scope, maintained in the same transaction
+ * as the Registry instances are created or deleted,
+ * so the limits can be checked without counting the instances.
+ */
+@Entity
+@Table(name = "registry_counter")
+@IdClass(RegistryCounterKey.class)
+@NoArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+public class RegistryCounterData {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false)
+    @EqualsAndHashCode.Include
+    private RegistryCounterScope scope;
+
+    @Id
+    @Column(name = "scope_id", nullable = false)
+    @EqualsAndHashCode.Include
+    private String scopeId;
+
+    @Id
+    @Column(name = "instance_type", nullable = false)
+    @EqualsAndHashCode.Include
+    private String instanceType;
+
+    @Column(name = "registry_count", nullable = false)
+    private long registryCount;
+
+    public RegistryCounterData(RegistryCounterKey key) {
+        this.scope = key.getScope();
+        this.scopeId = key.getScopeId();
+        this.instanceType = key.getInstanceType();
+        this.registryCount = 0;
+    }
+}
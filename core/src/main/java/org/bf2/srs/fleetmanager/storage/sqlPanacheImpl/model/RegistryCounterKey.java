@@ -0,0 +1,60 @@
+package org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies a counter of Registry instances, see {@link RegistryCounterData}.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
+public class RegistryCounterKey implements Serializable {
+
+    private static final long serialVersionUID = -4587362310853460224L;
+
+    /**
+     * Matches any scope ID or instance type.
+     */
+    public static final String ANY = "*";
+
+    private RegistryCounterScope scope;
+
+    private String scopeId;
+
+    private String instanceType;
+
+    /**
+     * Number of all Registry instances.
+     */
+    public static RegistryCounterKey total() {
+        return new RegistryCounterKey(RegistryCounterScope.GLOBAL, ANY, ANY);
+    }
+
+    /**
+     * Number of Registry instances of the given type, owned by the given user (username).
+     */
+    public static RegistryCounterKey owner(String owner, String instanceType) {
+        requireNonNull(owner);
+        requireNonNull(instanceType);
+        return new RegistryCounterKey(RegistryCounterScope.OWNER, owner, instanceType);
+    }
+
+    /**
+     * Number of Registry instances of the given type, within the given organization.
+     */
+    public static RegistryCounterKey organization(String orgId, String instanceType) {
+        requireNonNull(orgId);
+        requireNonNull(instanceType);
+        return new RegistryCounterKey(RegistryCounterScope.ORGANIZATION, orgId, instanceType);
+    }
+}
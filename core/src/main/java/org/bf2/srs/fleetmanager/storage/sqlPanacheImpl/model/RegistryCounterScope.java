@@ -0,0 +1,10 @@
+package org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model;
+
+/**
+ * @see RegistryCounterKey
+ */
+public enum RegistryCounterScope {
+    GLOBAL,
+    ORGANIZATION,
+    OWNER
+}
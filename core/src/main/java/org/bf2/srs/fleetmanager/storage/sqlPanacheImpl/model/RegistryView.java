@@ -0,0 +1,60 @@
+package org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model;
+
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of {@link RegistryData}, used when listing Registry instances.
+ * <p>
+ * The registry deployment is selected as a plain foreign key,
+ * so the deployment and its status are not loaded.
+ */
+@Getter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+public class RegistryView {
+
+    @EqualsAndHashCode.Include
+    private final String id;
+
+    private final String name;
+
+    private final String registryUrl;
+
+    private final Long registryDeploymentId;
+
+    private final String owner;
+
+    private final Instant createdAt;
+
+    private final Instant updatedAt;
+
+    private final String description;
+
+    private final String status;
+
+    private final String orgId;
+
+    private final String instanceType;
+
+    public RegistryView(String id, String name, String registryUrl,
+                        @ProjectedFieldName("registryDeployment.id") Long registryDeploymentId,
+                        String owner, Instant createdAt, Instant updatedAt, String description,
+                        String status, String orgId, String instanceType) {
+        this.id = id;
+        this.name = name;
+        this.registryUrl = registryUrl;
+        this.registryDeploymentId = registryDeploymentId;
+        this.owner = owner;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.description = description;
+        this.status = status;
+        this.orgId = orgId;
+        this.instanceType = instanceType;
+    }
+}
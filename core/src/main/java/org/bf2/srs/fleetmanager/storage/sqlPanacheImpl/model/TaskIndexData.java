@@ -0,0 +1,51 @@
+package org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Searchable attributes of a task scheduled in Quartz,
+ * so tasks can be found without loading and deserializing the Quartz job data.
+ */
+@Entity
+@Table(name = "task_index")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+public class TaskIndexData {
+
+    @Id
+    @Column(name = "task_id")
+    @EqualsAndHashCode.Include
+    private String taskId;
+
+    @Column(name = "task_type", nullable = false)
+    private String taskType;
+
+    @Column(name = "registry_id")
+    private String registryId;
+
+    @Column(name = "next_execute_at")
+    private Instant nextExecuteAt;
+
+    /**
+     * Unique, may be null.
+     */
+    @Column(name = "dedupe_key")
+    private String dedupeKey;
+}
@@ -0,0 +1,66 @@
+package org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * A task stored in the database task queue, together with its job data (the encoded task and worker contexts).
+ * A task is claimed for execution by setting a lease, which expires if the instance executing the task fails.
+ */
+@Entity
+@Table(name = "task_queue")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(exclude = "jobData")
+public class TaskQueueData {
+
+    @Id
+    @Column(name = "task_id")
+    @EqualsAndHashCode.Include
+    private String taskId;
+
+    @Column(name = "task_type", nullable = false)
+    private String taskType;
+
+    @Column(name = "registry_id")
+    private String registryId;
+
+    @Column(name = "priority", nullable = false)
+    private int priority;
+
+    @Column(name = "next_execute_at", nullable = false)
+    private Instant nextExecuteAt;
+
+    @Column(name = "deferrals", nullable = false)
+    private int deferrals;
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+
+    /**
+     * Unique, may be null.
+     */
+    @Column(name = "dedupe_key")
+    private String dedupeKey;
+
+    @Column(name = "job_data", nullable = false)
+    private byte[] jobData;
+}
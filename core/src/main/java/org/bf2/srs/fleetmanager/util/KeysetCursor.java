@@ -0,0 +1,107 @@
+package org.bf2.srs.fleetmanager.util;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import javax.validation.ValidationException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Position in a list of entities ordered by a single column, with the entity ID as a tie-breaker.
+ * Used for keyset (cursor) pagination, so that the next page can be fetched with an indexed
+ * range condition instead of an offset scan.
+ * <p>
+ * The encoded form is opaque to the API clients.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class KeysetCursor {
+
+    private static final String SEPARATOR = ".";
+    private static final String TYPE_STRING = "s";
+    private static final String TYPE_INSTANT = "t";
+
+    /**
+     * Entity property the list is ordered by.
+     */
+    private final String column;
+
+    private final boolean ascending;
+
+    /**
+     * Value of the ordering column for the last item of the previous page. Either a String or an Instant.
+     */
+    private final Object value;
+
+    /**
+     * ID of the last item of the previous page.
+     */
+    private final String id;
+
+    public KeysetCursor(String column, boolean ascending, Object value, String id) {
+        requireNonNull(column);
+        requireNonNull(value);
+        requireNonNull(id);
+        if (!(value instanceof String) && !(value instanceof Instant)) {
+            throw new IllegalArgumentException("Unsupported cursor value type: " + value.getClass());
+        }
+        this.column = column;
+        this.ascending = ascending;
+        this.value = value;
+        this.id = id;
+    }
+
+    public String encode() {
+        return String.join(SEPARATOR,
+                encodePart(column),
+                encodePart(ascending ? "asc" : "desc"),
+                encodePart(value instanceof Instant ? TYPE_INSTANT : TYPE_STRING),
+                encodePart(value.toString()),
+                encodePart(id));
+    }
+
+    public static KeysetCursor decode(String token) {
+        requireNonNull(token);
+        var parts = token.split("\\" + SEPARATOR, -1);
+        if (parts.length != 5) {
+            throw new ValidationException("invalid cursor");
+        }
+        try {
+            var column = decodePart(parts[0]);
+            var direction = decodePart(parts[1]);
+            var type = decodePart(parts[2]);
+            var rawValue = decodePart(parts[3]);
+            var id = decodePart(parts[4]);
+
+            if (!"asc".equals(direction) && !"desc".equals(direction)) {
+                throw new ValidationException("invalid cursor");
+            }
+            Object value;
+            if (TYPE_STRING.equals(type)) {
+                value = rawValue;
+            } else if (TYPE_INSTANT.equals(type)) {
+                value = Instant.parse(rawValue);
+            } else {
+                throw new ValidationException("invalid cursor");
+            }
+            return new KeysetCursor(column, "asc".equals(direction), value, id);
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new ValidationException("invalid cursor");
+        }
+    }
+
+    private static String encodePart(String part) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(part.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePart(String part) {
+        return new String(Base64.getUrlDecoder().decode(part), StandardCharsets.UTF_8);
+    }
+}
@@ -15,9 +15,18 @@ public class SearchQuery {
     private String query;
     private Object[] arguments;
     private List<Pair<String, Object>> search;
+    private KeysetCursor after;
 
     public SearchQuery(List<Pair<String, Object>> search) {
+        this(search, null);
+    }
+
+    /**
+     * @param after (Optional) Only match the entities positioned after the cursor, in the cursor ordering.
+     */
+    public SearchQuery(List<Pair<String, Object>> search, KeysetCursor after) {
         this.search = search;
+        this.after = after;
         this.query = "";
         buildQuery();
     }
@@ -38,6 +47,18 @@ public class SearchQuery {
             args.add(pair.getValue());
             index++;
         }
+        if (after != null) {
+            var op = after.isAscending() ? " > " : " < ";
+            if ("id".equals(after.getColumn())) {
+                this.query += " and id" + op + "?" + index;
+                args.add(after.getId());
+            } else {
+                this.query += " and (" + after.getColumn() + op + "?" + index +
+                        " or (" + after.getColumn() + " = ?" + index + " and id" + op + "?" + (index + 1) + "))";
+                args.add(after.getValue());
+                args.add(after.getId());
+            }
+        }
         this.arguments = args.toArray();
     }
 
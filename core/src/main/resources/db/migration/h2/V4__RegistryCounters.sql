@@ -0,0 +1,20 @@
+-- Registry Counters
+
+create table if not exists registry_counter
+(
+    scope varchar(32) not null,
+    scope_id varchar(255) not null,
+    instance_type varchar(255) not null,
+    registry_count bigint not null
+);
+
+alter table registry_counter add constraint pk_registry_counter primary key (scope, scope_id, instance_type);
+
+insert into registry_counter (scope, scope_id, instance_type, registry_count)
+select 'GLOBAL', '*', '*', count(*) from registry;
+
+insert into registry_counter (scope, scope_id, instance_type, registry_count)
+select 'OWNER', owner, instance_type, count(*) from registry where owner is not null group by owner, instance_type;
+
+insert into registry_counter (scope, scope_id, instance_type, registry_count)
+select 'ORGANIZATION', org_id, instance_type, count(*) from registry group by org_id, instance_type;
@@ -0,0 +1,20 @@
+-- Task Queue, used when srs-fleet-manager.task-manager.store=database
+
+create table if not exists task_queue
+(
+    task_id varchar(255) not null,
+    task_type varchar(255) not null,
+    registry_id varchar(255),
+    priority int not null,
+    next_execute_at timestamp not null,
+    deferrals int not null,
+    lease_owner varchar(255),
+    lease_until timestamp,
+    job_data bytea not null
+);
+
+alter table task_queue add constraint pk_task_queue primary key (task_id);
+
+create index idx_task_queue_1 on task_queue (next_execute_at);
+create index idx_task_queue_2 on task_queue (task_type);
+create index idx_task_queue_3 on task_queue (registry_id);
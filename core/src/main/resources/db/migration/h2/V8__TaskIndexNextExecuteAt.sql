@@ -0,0 +1,3 @@
+-- Paged task search ordered by the next execution, see TaskManager#searchTasks(TaskQuery)
+
+create index idx_task_index_4 on task_index (next_execute_at, task_id);
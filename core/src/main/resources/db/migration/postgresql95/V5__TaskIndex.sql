@@ -0,0 +1,16 @@
+-- Task Index
+
+create table if not exists task_index
+(
+    task_id varchar(255) not null,
+    task_type varchar(255) not null,
+    registry_id varchar(255),
+    next_execute_at timestamp
+);
+
+alter table task_index add constraint pk_task_index primary key (task_id);
+
+create index idx_task_index_1 on task_index (task_type);
+create index idx_task_index_2 on task_index (registry_id);
+
+-- Existing tasks are indexed on startup
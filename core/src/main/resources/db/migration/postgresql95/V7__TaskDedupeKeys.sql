@@ -0,0 +1,7 @@
+-- Dedupe keys of pending tasks, see TaskManager#submit(Task, String)
+
+alter table task_index add column dedupe_key varchar(255);
+create unique index idx_task_index_3 on task_index (dedupe_key);
+
+alter table task_queue add column dedupe_key varchar(255);
+create unique index idx_task_queue_4 on task_queue (dedupe_key);
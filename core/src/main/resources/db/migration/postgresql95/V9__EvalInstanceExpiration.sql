@@ -0,0 +1,3 @@
+-- Expired eval instances are found by their creation time, see EvalInstanceExpirationSweepWorker
+
+create index idx_registry_5 on registry (instance_type, created_at);
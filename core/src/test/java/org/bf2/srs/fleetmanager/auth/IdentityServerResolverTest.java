@@ -0,0 +1,172 @@
+package org.bf2.srs.fleetmanager.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.oidc.OidcTenantConfig;
+import io.smallrye.mutiny.Uni;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdentityServerResolverTest {
+
+    private ExecutorService executor;
+
+    private SimpleMeterRegistry metrics;
+
+    private StubResolver resolver;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @BeforeEach
+    void setup() {
+        executor = Executors.newCachedThreadPool();
+        metrics = new SimpleMeterRegistry();
+        resolver = new StubResolver();
+        resolver.resolveIdentityServer = true;
+        resolver.cacheTtlSeconds = 300L;
+        resolver.retryDelaySeconds = 30L;
+        resolver.nanoTime = nanoTime::get;
+        resolver.metrics = metrics;
+        resolver.executor = executor;
+    }
+
+    @AfterEach
+    void cleanup() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentMissesAreCoalesced() throws Exception {
+        resolver.latch = new CountDownLatch(1);
+        resolver.initCache(); // Warm up fetch is blocked
+
+        List<Uni<OidcTenantConfig>> pending = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            pending.add(resolver.resolveCached());
+        }
+        resolver.latch.countDown();
+        for (var uni : pending) {
+            assertEquals("issuer-1", uni.await().atMost(Duration.ofSeconds(5)).getAuthServerUrl().get());
+        }
+        assertEquals(1, resolver.fetches.get());
+
+        // Served from the cache
+        for (int i = 0; i < 10; i++) {
+            assertEquals("issuer-1", resolver.resolveCached().await().indefinitely().getAuthServerUrl().get());
+        }
+        assertEquals(1, resolver.fetches.get());
+        assertEquals(10, metrics.counter(Constants.IDENTITY_SERVER_RESOLVER_CACHE, Constants.TAG_CACHE_RESULT, "miss").count());
+        assertEquals(10, metrics.counter(Constants.IDENTITY_SERVER_RESOLVER_CACHE, Constants.TAG_CACHE_RESULT, "hit").count());
+        assertEquals(1, metrics.timer(Constants.IDENTITY_SERVER_RESOLVER_REFRESH_TIMER, Constants.TAG_ERROR, "false").count());
+    }
+
+    @Test
+    void testStaleValueIsServedWhenRefreshFails() throws Exception {
+        resolver.initCache();
+        assertEquals("issuer-1", resolver.resolveCached().await().indefinitely().getAuthServerUrl().get());
+
+        tick(301);
+        resolver.fail = true;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("issuer-1", resolver.resolveCached().await().indefinitely().getAuthServerUrl().get());
+        }
+        waitFor(() -> metrics.timer(Constants.IDENTITY_SERVER_RESOLVER_REFRESH_TIMER, Constants.TAG_ERROR, "true").count() > 0);
+
+        // The failed refresh is not repeated before the retry delay
+        for (int i = 0; i < 5; i++) {
+            assertEquals("issuer-1", resolver.resolveCached().await().indefinitely().getAuthServerUrl().get());
+        }
+        assertEquals(2, resolver.attempts.get());
+
+        resolver.fail = false;
+        tick(31);
+        waitFor(() -> "issuer-2".equals(resolver.resolveCached().await().indefinitely().getAuthServerUrl().get()));
+        assertEquals(3, resolver.attempts.get());
+    }
+
+    @Test
+    void testFailureWithEmptyCache() {
+        resolver.fail = true;
+        resolver.initCache();
+        assertThrows(IllegalStateException.class, () -> resolver.resolveCached().await().indefinitely());
+    }
+
+    @Test
+    void testFailedFetchIsNotRepeatedBeforeRetryDelay() throws Exception {
+        resolver.fail = true;
+        resolver.initCache();
+        waitFor(() -> metrics.timer(Constants.IDENTITY_SERVER_RESOLVER_REFRESH_TIMER, Constants.TAG_ERROR, "true").count() > 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(IllegalStateException.class, () -> resolver.resolveCached().await().indefinitely());
+        }
+        tick(29);
+        assertThrows(IllegalStateException.class, () -> resolver.resolveCached().await().indefinitely());
+        assertEquals(1, resolver.attempts.get());
+
+        resolver.fail = false;
+        tick(2);
+        assertEquals("issuer-1", resolver.resolveCached().await().indefinitely().getAuthServerUrl().get());
+        assertEquals(2, resolver.attempts.get());
+    }
+
+    private void tick(long seconds) {
+        nanoTime.addAndGet(Duration.ofSeconds(seconds).toNanos());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static class StubResolver extends IdentityServerResolver {
+
+        private final AtomicInteger fetches = new AtomicInteger();
+
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private volatile CountDownLatch latch;
+
+        private volatile boolean fail;
+
+        @Override
+        OidcTenantConfig resolveIdentityServer() {
+            try {
+                if (latch != null) {
+                    latch.await(5, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            attempts.incrementAndGet();
+            if (fail) {
+                throw new IllegalStateException("SSO providers endpoint is not available");
+            }
+            var config = new OidcTenantConfig();
+            config.setAuthServerUrl("issuer-" + fetches.incrementAndGet());
+            return config;
+        }
+    }
+}
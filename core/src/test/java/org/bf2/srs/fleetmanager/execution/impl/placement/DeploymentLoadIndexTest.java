@@ -0,0 +1,119 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeploymentLoadIndexTest {
+
+    private static final int DEPLOYMENTS = 100;
+
+    private static final int PLACEMENTS = 100_000;
+
+    private static final String ORG_ID = "org";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Test
+    void testLeastLoaded() {
+        var index = new DeploymentLoadIndex();
+        index.reset(Map.of(1L, Map.of("a", 2L, "b", 3L), 2L, Map.of("a", 3L), 3L, Map.of("b", 1L)),
+                Map.of(1L, "one", 2L, "two"), orgId -> "a".equals(orgId) ? 10 : 1);
+        assertEquals(Optional.of(2L), index.leastLoaded());
+        assertEquals(List.of(2L, 1L), index.getEligible());
+        assertEquals(23L, index.getUsage(1L));
+        assertEquals(3L, index.getOrgCount(1L, "b"));
+        assertEquals("one", index.getName(1L));
+
+        index.increment(2L, "b", 1);
+        index.increment(2L, "b", 1);
+        assertEquals(Optional.of(1L), index.leastLoaded()); // Same count, lower ID first
+        assertEquals(2L, index.getOrgCount(2L, "b"));
+        assertEquals(32L, index.getUsage(2L));
+
+        index.setEligible(3L, true);
+        assertEquals(Optional.of(3L), index.leastLoaded());
+
+        index.setEligible(3L, false);
+        index.setEligible(1L, false);
+        index.decrement(2L, "a", 10);
+        assertEquals(Optional.of(2L), index.leastLoaded());
+        assertEquals(4L, index.getCount(2L));
+        assertEquals(2L, index.getOrgCount(2L, "a"));
+        assertEquals(22L, index.getUsage(2L));
+
+        index.setEligible(2L, false);
+        assertTrue(index.leastLoaded().isEmpty());
+    }
+
+    /**
+     * Simulates placements and deletions of Registry instances, and compares the load skew
+     * (difference between the most and the least loaded eligible deployment) with random placement.
+     */
+    @Test
+    void testSimulatedSkew() {
+        var random = new Random(42);
+        // Some deployments are not available, and some already have instances
+        var eligible = LongStream.range(0, DEPLOYMENTS).filter(id -> id % 10 != 0).boxed()
+                .collect(Collectors.toMap(id -> id, id -> "deployment-" + id));
+        var initial = new HashMap<Long, Map<String, Long>>();
+        for (long id = 0; id < DEPLOYMENTS; id += 7) {
+            initial.put(id, Map.of(ORG_ID, (long) random.nextInt(50)));
+        }
+
+        var index = new DeploymentLoadIndex();
+        index.reset(initial, eligible, orgId -> 1);
+        long start = System.nanoTime();
+        long indexSkew = simulate(index, random, () -> index.leastLoaded().get());
+        long nanosPerPlacement = (System.nanoTime() - start) / PLACEMENTS;
+
+        var randomIndex = new DeploymentLoadIndex();
+        randomIndex.reset(initial, eligible, orgId -> 1);
+        var eligibleList = new ArrayList<>(eligible.keySet());
+        long randomSkew = simulate(randomIndex, random, () -> eligibleList.get(random.nextInt(eligibleList.size())));
+
+        log.info("Load skew after {} placements on {} deployments: least loaded = {} ({} ns per placement), random = {}",
+                PLACEMENTS, eligible.size(), indexSkew, nanosPerPlacement, randomSkew);
+
+        // A deletion can only make a deployment one instance behind, before it is placed on again
+        assertTrue(indexSkew <= 2, "Least loaded skew " + indexSkew + " is too large");
+        assertTrue(indexSkew < randomSkew);
+    }
+
+    private static long simulate(DeploymentLoadIndex index, Random random, Supplier<Long> placement) {
+        List<Long> placed = new ArrayList<>();
+        for (int i = 0; i < PLACEMENTS; i++) {
+            if (!placed.isEmpty() && random.nextInt(10) < 3) {
+                // Some instances are deleted
+                index.decrement(placed.remove(random.nextInt(placed.size())), ORG_ID, 1);
+            }
+            long id = placement.get();
+            index.increment(id, ORG_ID, 1);
+            placed.add(id);
+        }
+        var counts = index.getCounts();
+        long max = Long.MIN_VALUE;
+        long min = Long.MAX_VALUE;
+        for (long id = 0; id < DEPLOYMENTS; id++) {
+            if (id % 10 != 0) {
+                long count = counts.getOrDefault(id, 0L);
+                max = Math.max(max, count);
+                min = Math.min(min, count);
+            }
+        }
+        return max - min;
+    }
+}
@@ -0,0 +1,83 @@
+package org.bf2.srs.fleetmanager.execution.impl.placement;
+
+import io.smallrye.config.SmallRyeConfigBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PlacementStrategyTest {
+
+    @Test
+    void testWeightedCapacity() {
+        var strategy = new WeightedCapacityPlacementStrategy();
+        strategy.config = new SmallRyeConfigBuilder()
+                .withDefaultValue("srs-fleet-manager.execution.placement.weight.big", "3")
+                .withDefaultValue("srs-fleet-manager.execution.placement.weight.drained", "0")
+                .build();
+        strategy.defaultWeight = 1;
+
+        var index = new DeploymentLoadIndex();
+        index.reset(Map.of(), Map.of(1L, "small", 2L, "big", 3L, "drained"), orgId -> 1);
+        var placed = new HashMap<Long, Integer>();
+        for (int i = 0; i < 400; i++) {
+            long id = strategy.select(request("org", 1), index).get();
+            index.increment(id, "org", 1);
+            placed.merge(id, 1, Integer::sum);
+        }
+        assertEquals(100, placed.get(1L));
+        assertEquals(300, placed.get(2L));
+        assertEquals(null, placed.get(3L));
+    }
+
+    @Test
+    void testOrgSpread() {
+        var strategy = new OrgSpreadPlacementStrategy();
+        var index = new DeploymentLoadIndex();
+        index.reset(Map.of(1L, Map.of("other", 10L), 2L, Map.of("org", 1L)),
+                Map.of(1L, "one", 2L, "two", 3L, "three"), orgId -> 1);
+
+        // Least loaded deployment without an instance of the organization
+        assertEquals(Optional.of(3L), strategy.select(request("org", 1), index));
+        index.increment(3L, "org", 1);
+        assertEquals(Optional.of(1L), strategy.select(request("org", 1), index));
+        index.increment(1L, "org", 1);
+        // Every deployment has one instance of the organization, the least loaded wins
+        assertEquals(Optional.of(2L), strategy.select(request("org", 1), index));
+        assertEquals(Optional.of(2L), strategy.select(request("other", 1), index));
+    }
+
+    @Test
+    void testBinPack() {
+        var strategy = new BinPackPlacementStrategy();
+        strategy.config = new SmallRyeConfigBuilder()
+                .withDefaultValue("srs-fleet-manager.execution.placement.capacity.small", "10")
+                .build();
+        strategy.defaultCapacity = 100;
+
+        var index = new DeploymentLoadIndex();
+        index.reset(Map.of(1L, Map.of("org", 8L), 2L, Map.of("org", 50L)),
+                Map.of(1L, "small", 2L, "large", 3L, "empty"), orgId -> 1);
+
+        // The fullest deployment with enough capacity
+        assertEquals(Optional.of(2L), strategy.select(request("org", 10), index));
+        assertEquals(Optional.of(3L), strategy.select(request("org", 60), index));
+        index.increment(2L, "org", 45);
+        assertEquals(Optional.of(2L), strategy.select(request("org", 2), index));
+        // The large deployment is full, the small one is the fullest with enough capacity
+        index.increment(2L, "org", 4);
+        assertEquals(Optional.of(1L), strategy.select(request("org", 2), index));
+        assertEquals(Optional.empty(), strategy.select(request("org", 101), index));
+    }
+
+    private static PlacementRequest request(String orgId, long units) {
+        return PlacementRequest.builder()
+                .registryId("registry")
+                .orgId(orgId)
+                .units(units)
+                .build();
+    }
+}
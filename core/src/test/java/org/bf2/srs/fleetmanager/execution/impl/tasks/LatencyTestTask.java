@@ -0,0 +1,40 @@
+package org.bf2.srs.fleetmanager.execution.impl.tasks;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
+import org.bf2.srs.fleetmanager.operation.OperationContextData;
+
+import java.util.UUID;
+
+/**
+ * Task that only takes some time to execute, used to measure how long tasks wait before they are started.
+ */
+@NoArgsConstructor
+@Getter
+@ToString
+public class LatencyTestTask implements Task {
+
+    private String id;
+
+    private String type;
+
+    private TaskSchedule schedule;
+
+    @Setter
+    private OperationContextData operationContextData;
+
+    private long workMillis;
+
+    @Builder
+    public LatencyTestTask(int priority, long workMillis) {
+        this.id = UUID.randomUUID().toString();
+        this.type = "LATENCY_TEST_T";
+        this.schedule = TaskSchedule.builder().priority(priority).build();
+        this.workMillis = workMillis;
+    }
+}
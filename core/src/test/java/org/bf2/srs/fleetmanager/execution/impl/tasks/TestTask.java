@@ -118,6 +118,46 @@ public class TestTask implements Task {
         }
     }
 
+    /**
+     * Keeps the task executing for a while, then completes, fails or stops it.
+     */
+    @NoArgsConstructor
+    @Getter
+    public static class SleepCommand implements Command {
+
+        private int times;
+
+        private long millis;
+        private boolean throwNPE;
+        private boolean stop;
+
+        @Builder
+        public SleepCommand(long millis, boolean throwNPE, boolean stop) {
+            this.millis = millis;
+            this.throwNPE = throwNPE;
+            this.stop = stop;
+        }
+
+        @Override
+        public void execute(WorkerContext ctx, Task aTask) {
+            times++;
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (throwNPE)
+                throw new NullPointerException();
+            if (stop)
+                ctx.stop();
+        }
+
+        @Override
+        public boolean done() {
+            return times > 0;
+        }
+    }
+
     @NoArgsConstructor
     @Getter
     public static class BasicCommand implements Command {
@@ -0,0 +1,70 @@
+package org.bf2.srs.fleetmanager.execution.impl.workers;
+
+import org.bf2.srs.fleetmanager.execution.impl.tasks.LatencyTestTask;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.Worker;
+import org.bf2.srs.fleetmanager.execution.manager.WorkerContext;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Records the start latency of {@link LatencyTestTask}s, i.e. the time between
+ * the scheduled first execution and the actual start, for each priority.
+ */
+@ApplicationScoped
+public class LatencyRecordingWorker implements Worker {
+
+    private final Map<Integer, List<Long>> latencies = new ConcurrentHashMap<>();
+
+    @Override
+    public String getType() {
+        return "LATENCY_TEST_W";
+    }
+
+    @Override
+    public boolean supports(Task task) {
+        return "LATENCY_TEST_T".equals(task.getType());
+    }
+
+    @Override
+    public void execute(Task aTask, WorkerContext ctl) throws Exception {
+        var task = (LatencyTestTask) aTask;
+        var latency = Duration.between(task.getSchedule().getFirstExecuteAt(), Instant.now()).toMillis();
+        latencies.computeIfAbsent(task.getSchedule().getPriority(), k -> new CopyOnWriteArrayList<>()).add(latency);
+        Thread.sleep(task.getWorkMillis());
+    }
+
+    @Override
+    public void finallyExecute(Task aTask, WorkerContext ctl, Optional<Exception> error) {
+        // NOOP
+    }
+
+    public int getCount(int priority) {
+        return latencies.getOrDefault(priority, List.of()).size();
+    }
+
+    /**
+     * @return the latency in milliseconds, below which the given fraction of the recorded latencies are
+     */
+    public long getPercentile(int priority, double fraction) {
+        var sorted = new ArrayList<>(latencies.getOrDefault(priority, List.of()));
+        if (sorted.isEmpty()) {
+            throw new IllegalStateException("No latencies recorded for priority " + priority + ".");
+        }
+        sorted.sort(null);
+        int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    public void reset() {
+        latencies.clear();
+    }
+}
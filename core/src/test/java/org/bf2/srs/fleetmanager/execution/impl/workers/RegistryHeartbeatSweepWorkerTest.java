@@ -0,0 +1,187 @@
+package org.bf2.srs.fleetmanager.execution.impl.workers;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryHeartbeatSweepTask;
+import org.bf2.srs.fleetmanager.execution.manager.WorkerContext;
+import org.bf2.srs.fleetmanager.rest.service.RegistryDeploymentService;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryDeploymentCreate;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto;
+import org.bf2.srs.fleetmanager.spi.mockImpl.MockTenantManagerService;
+import org.bf2.srs.fleetmanager.spi.tenants.model.TenantManagerConfig;
+import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.DEPROVISIONING_DELETING;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.FAILED;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.PROVISIONING;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.READY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Executes the worker directly, against a Tenant Manager that answers each ping as set up by the test.
+ */
+@QuarkusTest
+public class RegistryHeartbeatSweepWorkerTest {
+
+    @Inject
+    ResourceStorage storage;
+
+    @Inject
+    RegistryDeploymentService deploymentService;
+
+    private final Map<String, Supplier<Boolean>> pings = new ConcurrentHashMap<>();
+
+    private final Set<String> pinged = ConcurrentHashMap.newKeySet();
+
+    private final List<String> registryIds = new ArrayList<>();
+
+    private ExecutorService executor;
+
+    private RegistryDeploymentData deployment;
+
+    private RegistryHeartbeatSweepWorker worker;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        pings.clear();
+        pinged.clear();
+        registryIds.clear();
+        executor = Executors.newFixedThreadPool(2);
+
+        var created = deploymentService.createRegistryDeployment(RegistryDeploymentCreate.builder()
+                .name("heartbeat-sweep-" + UUID.randomUUID())
+                .registryDeploymentUrl("https://registry.example.com")
+                .tenantManagerUrl("https://tenant-manager.example.com")
+                .build());
+        deployment = storage.getRegistryDeploymentById(created.getId()).orElseThrow();
+
+        worker = new RegistryHeartbeatSweepWorker();
+        worker.storage = storage;
+        worker.tms = new MockTenantManagerService() {
+            @Override
+            public boolean pingTenant(TenantManagerConfig tm, String tenantId) {
+                pinged.add(tenantId);
+                return pings.get(tenantId).get();
+            }
+        };
+        // Several pages, and several ping batches per page
+        worker.pageSize = 3;
+        worker.parallelism = 2;
+        worker.executor = executor;
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        executor.shutdownNow();
+        for (String id : registryIds) {
+            storage.deleteRegistry(id);
+        }
+        deploymentService.deleteRegistryDeployment(deployment.getId());
+    }
+
+    @Test
+    void testSweep() throws Exception {
+        var unavailable = registry(READY, () -> false);
+        var provisioned = registry(PROVISIONING, () -> true);
+        var ready = registry(READY, () -> true);
+        var provisioningError = registry(PROVISIONING, () -> {
+            throw new IllegalStateException("Simulated ping failure");
+        });
+        var readyError = registry(READY, () -> {
+            throw new IllegalStateException("Simulated ping failure");
+        });
+        var failed = registry(FAILED, () -> true);
+
+        sweep();
+
+        assertEquals(FAILED.value(), status(unavailable));
+        assertEquals(READY.value(), status(provisioned));
+        assertEquals(READY.value(), status(ready));
+        // The status is unknown, so it is not changed
+        assertEquals(PROVISIONING.value(), status(provisioningError));
+        assertEquals(READY.value(), status(readyError));
+        // Only provisioning and ready instances are checked
+        assertEquals(FAILED.value(), status(failed));
+        assertFalse(pinged.contains(failed));
+        assertEquals(5, pinged.size());
+    }
+
+    @Test
+    void testConcurrentDeprovisioningIsNotOverwritten() throws Exception {
+        // Deprovisioning starts while the instances are pinged
+        var unavailable = registry(READY, null);
+        pings.put(unavailable, () -> {
+            startDeprovisioning(unavailable);
+            return false;
+        });
+        var provisioned = registry(PROVISIONING, null);
+        pings.put(provisioned, () -> {
+            startDeprovisioning(provisioned);
+            return true;
+        });
+
+        sweep();
+
+        assertEquals(DEPROVISIONING_DELETING.value(), status(unavailable));
+        assertEquals(DEPROVISIONING_DELETING.value(), status(provisioned));
+    }
+
+    private void sweep() {
+        worker.execute(RegistryHeartbeatSweepTask.builder().deploymentId(deployment.getId()).build(), unexpectedControl());
+    }
+
+    private String registry(RegistryStatusValueDto status, Supplier<Boolean> ping) throws Exception {
+        var registry = RegistryData.builder()
+                .id(UUID.randomUUID().toString())
+                .name("heartbeat-sweep")
+                .instanceType(RegistryInstanceTypeValueDto.STANDARD.value())
+                .status(status.value())
+                .registryDeployment(deployment)
+                .owner("test_user")
+                .ownerId(42L)
+                .orgId("test_org")
+                .build();
+        storage.createOrUpdateRegistry(registry);
+        registryIds.add(registry.getId());
+        if (ping != null) {
+            pings.put(registry.getId(), ping);
+        }
+        return registry.getId();
+    }
+
+    private void startDeprovisioning(String registryId) {
+        storage.updateRegistryStatus(List.of(registryId), Set.of(PROVISIONING.value(), READY.value()), DEPROVISIONING_DELETING.value());
+    }
+
+    private String status(String registryId) {
+        return storage.getRegistryById(registryId).orElseThrow().getStatus();
+    }
+
+    /**
+     * The worker only controls its execution if the deployment is not found.
+     */
+    private static WorkerContext unexpectedControl() {
+        return (WorkerContext) Proxy.newProxyInstance(WorkerContext.class.getClassLoader(),
+                new Class<?>[]{WorkerContext.class}, (proxy, method, args) -> {
+                    throw new IllegalStateException("Unexpected call of " + method.getName());
+                });
+    }
+}
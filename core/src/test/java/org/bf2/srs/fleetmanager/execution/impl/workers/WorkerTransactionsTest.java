@@ -0,0 +1,240 @@
+package org.bf2.srs.fleetmanager.execution.impl.workers;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.bf2.srs.fleetmanager.execution.impl.placement.PlacementEngine;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.ProvisionRegistryTenantTask;
+import org.bf2.srs.fleetmanager.execution.impl.workers.deprovision.DeprovisionRegistryWorker;
+import org.bf2.srs.fleetmanager.execution.impl.workers.deprovision.EvalInstanceExpirationSweepWorker;
+import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.bf2.srs.fleetmanager.execution.manager.WorkerContext;
+import org.bf2.srs.fleetmanager.operation.OperationContext;
+import org.bf2.srs.fleetmanager.rest.service.RegistryDeploymentService;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryDeploymentCreate;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto;
+import org.bf2.srs.fleetmanager.service.QuotaPlansService;
+import org.bf2.srs.fleetmanager.spi.ams.AccountManagementService;
+import org.bf2.srs.fleetmanager.spi.mockImpl.MockTenantManagerService;
+import org.bf2.srs.fleetmanager.spi.tenants.model.CreateTenantRequest;
+import org.bf2.srs.fleetmanager.spi.tenants.model.Tenant;
+import org.bf2.srs.fleetmanager.spi.tenants.model.TenantManagerConfig;
+import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.SystemException;
+import javax.transaction.TransactionManager;
+import javax.transaction.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that {@link WorkerTransactions} commits and rolls back like `@Transactional`,
+ * and that workers make remote calls outside of a transaction.
+ */
+@QuarkusTest
+public class WorkerTransactionsTest {
+
+    @Inject
+    WorkerTransactions txs;
+
+    @Inject
+    TransactionManager tm;
+
+    @Inject
+    ResourceStorage storage;
+
+    @Inject
+    OperationContext opCtx;
+
+    @Inject
+    ScheduleRegistryWorker worker;
+
+    @Inject
+    RegistryDeploymentService deploymentService;
+
+    @Inject
+    QuotaPlansService plansService;
+
+    @Inject
+    TaskManager tasks;
+
+    @Inject
+    AccountManagementService accountManagementService;
+
+    @Inject
+    PlacementEngine placement;
+
+    @BeforeEach
+    void beforeEach() {
+        if (!opCtx.isContextDataLoaded()) {
+            opCtx.loadNewContextData();
+        }
+    }
+
+    @Test
+    void testCommit() throws Exception {
+        var registry = registry(null);
+        txs.run(worker, () -> storage.createOrUpdateRegistry(registry));
+        assertEquals(Status.STATUS_NO_TRANSACTION, tm.getStatus());
+        assertTrue(storage.getRegistryById(registry.getId()).isPresent());
+        storage.deleteRegistry(registry.getId());
+    }
+
+    @Test
+    void testRollbackOnUncheckedException() throws Exception {
+        var registry = registry(null);
+        assertThrows(IllegalStateException.class, () -> txs.run(worker, () -> {
+            storage.createOrUpdateRegistry(registry);
+            throw new IllegalStateException("test");
+        }));
+        assertEquals(Status.STATUS_NO_TRANSACTION, tm.getStatus());
+        assertFalse(storage.getRegistryById(registry.getId()).isPresent());
+    }
+
+    @Test
+    void testCommitOnCheckedException() throws Exception {
+        var registry = registry(null);
+        assertThrows(TestException.class, () -> txs.run(worker, () -> {
+            storage.createOrUpdateRegistry(registry);
+            throw new TestException();
+        }));
+        assertEquals(Status.STATUS_NO_TRANSACTION, tm.getStatus());
+        assertTrue(storage.getRegistryById(registry.getId()).isPresent());
+        storage.deleteRegistry(registry.getId());
+    }
+
+    @Test
+    void testJoinActiveTransaction() throws Exception {
+        var registry = registry(null);
+        tm.begin();
+        try {
+            txs.run(worker, () -> storage.createOrUpdateRegistry(registry));
+            // The enclosing transaction is neither committed nor rolled back by the step
+            assertEquals(Status.STATUS_ACTIVE, tm.getStatus());
+        } finally {
+            tm.rollback();
+        }
+        assertFalse(storage.getRegistryById(registry.getId()).isPresent());
+
+        tm.begin();
+        try {
+            assertThrows(IllegalStateException.class, () -> txs.run(worker, () -> {
+                throw new IllegalStateException("test");
+            }));
+            assertEquals(Status.STATUS_MARKED_ROLLBACK, tm.getStatus());
+        } finally {
+            tm.rollback();
+        }
+    }
+
+    @Test
+    void testRemoteCallOutsideOfTransaction() throws Exception {
+        var deployment = deploymentService.createRegistryDeployment(RegistryDeploymentCreate.builder()
+                .name("worker-transactions-" + UUID.randomUUID())
+                .registryDeploymentUrl("https://registry.example.com")
+                .tenantManagerUrl("https://tenant-manager.example.com")
+                .build());
+        var registry = registry(storage.getRegistryDeploymentById(deployment.getId()).orElseThrow());
+        storage.createOrUpdateRegistry(registry);
+
+        // Records the transaction status during the remote call
+        var statuses = new ArrayList<Integer>();
+        var provisionWorker = new ProvisionRegistryTenantWorker();
+        provisionWorker.storage = storage;
+        provisionWorker.plansService = plansService;
+        provisionWorker.tasks = tasks;
+        provisionWorker.accountManagementService = accountManagementService;
+        provisionWorker.txs = txs;
+        provisionWorker.placement = placement;
+        provisionWorker.tmClient = new MockTenantManagerService() {
+            @Override
+            public Tenant createTenant(TenantManagerConfig tmc, CreateTenantRequest req) {
+                statuses.add(status());
+                return super.createTenant(tmc, req);
+            }
+        };
+
+        provisionWorker.execute(ProvisionRegistryTenantTask.builder().registryId(registry.getId()).build(), new NoopWorkerContext());
+
+        assertEquals(List.of(Status.STATUS_NO_TRANSACTION), statuses);
+        assertEquals(RegistryStatusValueDto.READY.value(), storage.getRegistryById(registry.getId()).orElseThrow().getStatus());
+
+        storage.deleteRegistry(registry.getId());
+        deploymentService.deleteRegistryDeployment(deployment.getId());
+    }
+
+    @Test
+    void testWorkersAreNotTransactional() throws Exception {
+        for (Class<?> workerClass : List.of(ScheduleRegistryWorker.class, ProvisionRegistryTenantWorker.class, DeprovisionRegistryWorker.class,
+                EvalInstanceExpirationSweepWorker.class)) {
+            assertNull(workerClass.getAnnotation(Transactional.class), workerClass.getName());
+            for (var method : workerClass.getDeclaredMethods()) {
+                assertNull(method.getAnnotation(Transactional.class), method.toString());
+            }
+        }
+    }
+
+    private int status() {
+        try {
+            return tm.getStatus();
+        } catch (SystemException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static RegistryData registry(RegistryDeploymentData deployment) {
+        return RegistryData.builder()
+                .id(UUID.randomUUID().toString())
+                .name("worker-transactions")
+                .instanceType(RegistryInstanceTypeValueDto.STANDARD.value())
+                .status(RegistryStatusValueDto.PROVISIONING.value())
+                .registryDeployment(deployment)
+                .owner("test_user")
+                .ownerId(42L)
+                .orgId("test_org")
+                .build();
+    }
+
+    private static class TestException extends Exception {
+    }
+
+    private static class NoopWorkerContext implements WorkerContext {
+
+        @Override
+        public void delay(Runnable action) {
+            // NOOP
+        }
+
+        @Override
+        public void retry() {
+            throw new IllegalStateException("Unexpected retry");
+        }
+
+        @Override
+        public void retry(int minRetries) {
+            retry();
+        }
+
+        @Override
+        public void forceRetry() {
+            retry();
+        }
+
+        @Override
+        public void stop() {
+            throw new IllegalStateException("Unexpected stop");
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.bf2.srs.fleetmanager.execution.impl.workers.deprovision;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.DeprovisionRegistryTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.EvalInstanceExpirationSweepTask;
+import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.bf2.srs.fleetmanager.execution.manager.WorkerContext;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto;
+import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.UserTransaction;
+
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto.EVAL;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto.STANDARD;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.DEPROVISIONING_DELETING;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.FAILED;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.PROVISIONING;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.READY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The sweep is disabled in the test profile, so the worker is executed directly,
+ * with a task manager that records the submitted deprovisioning tasks.
+ */
+@QuarkusTest
+public class EvalInstanceExpirationSweepWorkerTest {
+
+    /**
+     * Only the registries created by this test are old enough to expire.
+     */
+    private static final Instant CREATED_AT = Instant.parse("2000-01-01T00:00:00Z");
+
+    @Inject
+    ResourceStorage storage;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    UserTransaction transaction;
+
+    private final List<String> dedupeKeys = new ArrayList<>();
+
+    private final List<String> registryIds = new ArrayList<>();
+
+    private boolean failSubmit;
+
+    private EvalInstanceExpirationSweepWorker worker;
+
+    @BeforeEach
+    void beforeEach() {
+        dedupeKeys.clear();
+        registryIds.clear();
+        failSubmit = false;
+
+        worker = new EvalInstanceExpirationSweepWorker();
+        worker.storage = storage;
+        worker.tasks = recordingTaskManager();
+        worker.enabled = true;
+        worker.batchSize = 10;
+        worker.evalLifetimeSeconds = (int) Duration.between(CREATED_AT.plus(Duration.ofDays(1)), Instant.now()).toSeconds();
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        for (String id : registryIds) {
+            if (storage.getRegistryById(id).isPresent()) {
+                storage.deleteRegistry(id);
+            }
+        }
+    }
+
+    @Test
+    void testExpiredInstancesDeprovisioned() throws Exception {
+        var ready = registry(EVAL, READY);
+        var failed = registry(EVAL, FAILED);
+        var provisioning = registry(EVAL, PROVISIONING);
+        var standard = registry(STANDARD, READY);
+
+        sweep();
+
+        assertEquals(Set.of(dedupeKey(ready), dedupeKey(failed)), new HashSet<>(dedupeKeys));
+        assertEquals(DEPROVISIONING_DELETING.value(), status(ready));
+        assertEquals(DEPROVISIONING_DELETING.value(), status(failed));
+        assertEquals(PROVISIONING.value(), status(provisioning));
+        assertEquals(READY.value(), status(standard));
+
+        // Instances being deprovisioned are not selected again
+        dedupeKeys.clear();
+        sweep();
+        assertTrue(dedupeKeys.isEmpty());
+    }
+
+    @Test
+    void testSubmitFailureLeavesStatus() throws Exception {
+        var ready = registry(EVAL, READY);
+        failSubmit = true;
+
+        assertThrows(IllegalStateException.class, this::sweep);
+        assertEquals(READY.value(), status(ready));
+
+        // The next execution finds the instance again
+        failSubmit = false;
+        sweep();
+        assertEquals(List.of(dedupeKey(ready)), dedupeKeys);
+        assertEquals(DEPROVISIONING_DELETING.value(), status(ready));
+    }
+
+    @Test
+    void testInstanceDeletedConcurrently() throws Exception {
+        var ready = registry(EVAL, READY);
+        // The deprovisioning task may complete before the status is changed
+        worker.tasks = (TaskManager) Proxy.newProxyInstance(TaskManager.class.getClassLoader(),
+                new Class<?>[]{TaskManager.class}, (proxy, method, args) -> {
+                    storage.deleteRegistry(((DeprovisionRegistryTask) args[0]).getRegistryId());
+                    return true;
+                });
+
+        sweep();
+        assertTrue(storage.getRegistryById(ready).isEmpty());
+    }
+
+    private void sweep() {
+        worker.execute(EvalInstanceExpirationSweepTask.builder().build(), unexpectedControl());
+    }
+
+    private String registry(RegistryInstanceTypeValueDto instanceType, RegistryStatusValueDto status) throws Exception {
+        var registry = RegistryData.builder()
+                .id(UUID.randomUUID().toString())
+                .name("eval-expiration-sweep")
+                .instanceType(instanceType.value())
+                .status(status.value())
+                .owner("test_user")
+                .ownerId(42L)
+                .orgId("test_org")
+                .build();
+        storage.createOrUpdateRegistry(registry);
+        registryIds.add(registry.getId());
+
+        // The creation time is set by the storage
+        transaction.begin();
+        try {
+            em.createQuery("update RegistryData set createdAt = :createdAt where id = :id")
+                    .setParameter("createdAt", CREATED_AT)
+                    .setParameter("id", registry.getId())
+                    .executeUpdate();
+            transaction.commit();
+        } catch (Exception ex) {
+            transaction.rollback();
+            throw ex;
+        }
+        return registry.getId();
+    }
+
+    private String status(String registryId) {
+        return storage.getRegistryById(registryId).orElseThrow().getStatus();
+    }
+
+    private static String dedupeKey(String registryId) {
+        return RegistryTask.dedupeKey(DeprovisionRegistryTask.builder().registryId(registryId).build());
+    }
+
+    private TaskManager recordingTaskManager() {
+        return (TaskManager) Proxy.newProxyInstance(TaskManager.class.getClassLoader(),
+                new Class<?>[]{TaskManager.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("submit") || args.length != 2) {
+                        throw new UnsupportedOperationException(method.toString());
+                    }
+                    if (failSubmit) {
+                        throw new IllegalStateException("Simulated submit failure.");
+                    }
+                    dedupeKeys.add((String) args[1]);
+                    return true;
+                });
+    }
+
+    /**
+     * The worker does not control its execution unless it is disabled.
+     */
+    private static WorkerContext unexpectedControl() {
+        return (WorkerContext) Proxy.newProxyInstance(WorkerContext.class.getClassLoader(),
+                new Class<?>[]{WorkerContext.class}, (proxy, method, args) -> {
+                    throw new IllegalStateException("Unexpected call of " + method.getName());
+                });
+    }
+}
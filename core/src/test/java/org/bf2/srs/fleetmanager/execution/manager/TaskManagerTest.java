@@ -4,25 +4,47 @@ import static java.lang.Long.valueOf;
 import static java.time.Duration.ofMillis;
 import static java.time.Duration.ofSeconds;
 import static java.time.Instant.now;
+import static java.util.stream.Collectors.toList;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.inject.Inject;
+import javax.transaction.UserTransaction;
 
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.LatencyTestTask;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.TestTask;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.TestTask.BasicCommand;
 import org.bf2.srs.fleetmanager.execution.impl.tasks.TestTask.RetryCommand;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.TestTask.SleepCommand;
+import org.bf2.srs.fleetmanager.execution.impl.workers.LatencyRecordingWorker;
+import org.bf2.srs.fleetmanager.execution.manager.impl.TaskContinuations;
+import org.bf2.srs.fleetmanager.execution.manager.impl.TaskMetrics;
 import org.bf2.srs.fleetmanager.operation.OperationContext;
 import org.bf2.srs.fleetmanager.util.TestTags;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.test.junit.QuarkusTest;
 
 /**
@@ -31,15 +53,32 @@ import io.quarkus.test.junit.QuarkusTest;
 @QuarkusTest
 public class TaskManagerTest {
 
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
     @Inject
     TaskManager tasks;
 
+    @Inject
+    LatencyRecordingWorker latencies;
+
     @Inject
     DataCollector data;
 
     @Inject
     OperationContext opCtx;
 
+    @Inject
+    MeterRegistry meters;
+
+    @Inject
+    UserTransaction transaction;
+
+    @Inject
+    TaskContinuations continuations;
+
+    @ConfigProperty(name = "quarkus.quartz.thread-count", defaultValue = "25")
+    int threadCount;
+
     @BeforeEach
     void beforeEach() {
         // Activate Operation Context
@@ -363,4 +402,323 @@ public class TaskManagerTest {
         assertThat(data.getFinallyExecuteSuccess(), equalTo(0));
         data.reset();
     }
+
+    @Test
+    void testMetrics() {
+        double errors = executeCount(TaskMetrics.OUTCOME_ERROR);
+        double successes = executeCount(TaskMetrics.OUTCOME_SUCCESS);
+        long lags = meters.timer(Constants.TASK_LAG, Constants.TAG_TASK_TYPE, "TEST_T").count();
+        long completed = retriesPerTask().count();
+        double retries = retriesPerTask().totalAmount();
+        long finallyExecutions = finallyExecuteTimer().count();
+
+        var task = TestTask.builder().schedule(TaskSchedule.builder().build()).build()
+                .andThen(BasicCommand.builder().throwNPE(true).build())
+                .andThen(BasicCommand.builder().increment(true).build());
+
+        tasks.submit(task);
+        data.awaitFinished();
+        data.reset();
+
+        // Recorded after finallyExecute returns
+        await().atMost(ofSeconds(5)).until(() -> finallyExecuteTimer().count() > finallyExecutions);
+        assertThat(executeCount(TaskMetrics.OUTCOME_ERROR), greaterThan(errors));
+        assertThat(executeCount(TaskMetrics.OUTCOME_SUCCESS), greaterThan(successes));
+        assertThat(meters.timer(Constants.TASK_LAG, Constants.TAG_TASK_TYPE, "TEST_T").count(), greaterThan(lags + 1));
+        assertThat(retriesPerTask().count(), greaterThan(completed));
+        // The retry counter is reset by the successful execution
+        assertThat(retriesPerTask().totalAmount(), equalTo(retries));
+    }
+
+    private Timer finallyExecuteTimer() {
+        return meters.timer(Constants.TASK_FINALLY_EXECUTE_TIMER, Constants.TAG_TASK_TYPE, "TEST_T",
+                Constants.TAG_WORKER_TYPE, "TEST_W", Constants.TAG_ERROR, "false");
+    }
+
+    private double executeCount(String outcome) {
+        return meters.timer(Constants.TASK_EXECUTE_TIMER, Constants.TAG_TASK_TYPE, "TEST_T",
+                Constants.TAG_WORKER_TYPE, "TEST_W", Constants.TAG_TASK_OUTCOME, outcome).count();
+    }
+
+    private DistributionSummary retriesPerTask() {
+        return meters.summary(Constants.TASK_RETRIES_PER_TASK, Constants.TAG_TASK_TYPE, "TEST_T", Constants.TAG_WORKER_TYPE, "TEST_W");
+    }
+
+    /**
+     * TEST_T tasks are limited to one concurrent execution in the test profile.
+     * A task that can not be executed because of the limit is rescheduled, and executed after the permit is released,
+     * whether the running task fails or stops.
+     */
+    @Test
+    void testConcurrencyLimit() {
+        // Error path
+        double rejected = rejectedCount();
+        var failing = TestTask.builder().schedule(TaskSchedule.builder().minRetries(0).build()).build()
+                .andThen(SleepCommand.builder().millis(3000).throwNPE(true).build());
+        var waiting = TestTask.builder().schedule(TaskSchedule.builder().minRetries(0).build()).build()
+                .andThen(BasicCommand.builder().increment(true).build());
+
+        tasks.submit(failing);
+        await().atMost(ofSeconds(10)).until(() -> inFlight() == 1);
+        tasks.submit(waiting);
+        await().atMost(ofSeconds(10)).until(() -> rejectedCount() > rejected);
+        // Rescheduled, not executed
+        assertThat(inFlight(), equalTo(1.0));
+        assertThat(data.getFinallyExecuteAttempts(), equalTo(0));
+        assertThat(tasks.getTaskById(waiting.getId()).isPresent(), equalTo(true));
+
+        await().atMost(ofSeconds(20)).until(() -> data.getFinallyExecuteAttempts() == 2);
+        await().atMost(ofSeconds(10)).until(() -> tasks.searchTasks("TEST_T", null).isEmpty());
+        assertThat(data.getExecutions(), equalTo(2));
+        assertThat(data.getCounter(), equalTo(1));
+        assertThat(inFlight(), equalTo(0.0));
+        data.reset();
+
+        // Stop path
+        double stopRejected = rejectedCount();
+        var stopping = TestTask.builder().build()
+                .andThen(SleepCommand.builder().millis(3000).stop(true).build());
+        waiting = TestTask.builder().schedule(TaskSchedule.builder().minRetries(0).build()).build()
+                .andThen(BasicCommand.builder().increment(true).build());
+
+        tasks.submit(stopping);
+        await().atMost(ofSeconds(10)).until(() -> inFlight() == 1);
+        tasks.submit(waiting);
+        await().atMost(ofSeconds(10)).until(() -> rejectedCount() > stopRejected);
+        assertThat(data.getFinallyExecuteAttempts(), equalTo(0));
+
+        await().atMost(ofSeconds(20)).until(() -> data.getFinallyExecuteAttempts() == 2);
+        await().atMost(ofSeconds(10)).until(() -> tasks.searchTasks("TEST_T", null).isEmpty());
+        assertThat(data.getCounter(), equalTo(1));
+        assertThat(inFlight(), equalTo(0.0));
+        data.reset();
+    }
+
+    private double rejectedCount() {
+        return meters.counter(Constants.TASK_REJECTED, Constants.TAG_TASK_TYPE, "TEST_T").count();
+    }
+
+    private double inFlight() {
+        Gauge gauge = meters.find(Constants.TASK_IN_FLIGHT).tag(Constants.TAG_TASK_TYPE, "TEST_T").gauge();
+        return gauge != null ? gauge.value() : 0;
+    }
+
+    @Test
+    void testTaskIndex() {
+        // Scheduled far enough in the future, so it is not executed during the test
+        var at = now().plus(ofSeconds(3600)).truncatedTo(ChronoUnit.SECONDS);
+        var task = TestTask.builder().schedule(TaskSchedule.builder().firstExecuteAt(at).build()).build();
+        tasks.submit(task);
+
+        var loaded = tasks.getTaskById(task.getId());
+        assertThat(loaded.isPresent(), equalTo(true));
+        assertThat(loaded.get().getId(), equalTo(task.getId()));
+
+        var found = tasks.searchTasks("TEST_T", null);
+        assertThat(found.stream().map(TaskSummary::getId).collect(toList()), contains(task.getId()));
+        assertThat(found.get(0).getNextExecuteAt(), equalTo(at));
+        assertThat(tasks.searchTasks("TEST_T", "registry"), empty());
+
+        tasks.remove(task);
+        assertThat(tasks.getTaskById(task.getId()).isPresent(), equalTo(false));
+        assertThat(tasks.searchTasks("TEST_T", null), empty());
+
+        // Index entries are removed when the task finishes
+        task = TestTask.builder().schedule(TaskSchedule.builder().minRetries(1).build()).build()
+                .andThen(BasicCommand.builder().increment(true).build());
+        tasks.submit(task);
+        data.awaitFinished();
+        await().atMost(ofSeconds(10)).until(() -> tasks.searchTasks("TEST_T", null).isEmpty());
+        data.reset();
+    }
+
+    /**
+     * The job and the task index entry are changed in the caller's transaction.
+     */
+    @Test
+    void testTransaction() throws Exception {
+        var at = now().plus(ofSeconds(3600));
+        var task = TestTask.builder().schedule(TaskSchedule.builder().firstExecuteAt(at).build()).build();
+
+        transaction.begin();
+        tasks.submit(task);
+        transaction.rollback();
+        assertThat(tasks.getTaskById(task.getId()).isPresent(), equalTo(false));
+        assertThat(tasks.getTasksByType("TEST_T"), empty());
+        assertThat(tasks.searchTasks("TEST_T", null), empty());
+
+        tasks.submit(task);
+        transaction.begin();
+        tasks.remove(task);
+        transaction.rollback();
+        assertThat(tasks.getTaskById(task.getId()).isPresent(), equalTo(true));
+        assertThat(tasks.searchTasks("TEST_T", null).size(), equalTo(1));
+
+        tasks.remove(task);
+        assertThat(tasks.getTasksByType("TEST_T"), empty());
+        assertThat(tasks.searchTasks("TEST_T", null), empty());
+
+        var batch = List.<Task>of(
+                TestTask.builder().schedule(TaskSchedule.builder().firstExecuteAt(at).build()).build(),
+                TestTask.builder().schedule(TaskSchedule.builder().firstExecuteAt(at).build()).build());
+        transaction.begin();
+        tasks.submitAll(batch);
+        transaction.rollback();
+        for (Task t : batch) {
+            assertThat(tasks.getTaskById(t.getId()).isPresent(), equalTo(false));
+        }
+        assertThat(tasks.getTasksByType("TEST_T"), empty());
+        assertThat(tasks.searchTasks("TEST_T", null), empty());
+    }
+
+    @Test
+    void testSearchTasksPage() {
+        var at = now().plus(ofSeconds(3600)).truncatedTo(ChronoUnit.SECONDS);
+        var batch = new ArrayList<Task>();
+        for (int i = 0; i < 5; i++) {
+            batch.add(TestTask.builder().schedule(TaskSchedule.builder().firstExecuteAt(at.plus(ofSeconds(60L * i))).build()).build());
+        }
+        tasks.submitAll(batch);
+        var ids = batch.stream().map(Task::getId).collect(toList());
+
+        var page = tasks.searchTasks(TaskQuery.builder().taskType("TEST_T").offset(1).limit(2).build());
+        assertThat(page.stream().map(TaskSummary::getId).collect(toList()), contains(ids.get(1), ids.get(2)));
+
+        var window = tasks.searchTasks(TaskQuery.builder().taskType("TEST_T")
+                .nextExecuteFrom(at.plus(ofSeconds(60))).nextExecuteTo(at.plus(ofSeconds(180))).build());
+        assertThat(window.stream().map(TaskSummary::getId).collect(toList()), contains(ids.get(1), ids.get(2)));
+
+        var next = tasks.searchTasks(TaskQuery.builder().taskType("TEST_T").after(page.get(1)).limit(2).build());
+        assertThat(next.stream().map(TaskSummary::getId).collect(toList()), contains(ids.get(3), ids.get(4)));
+        assertThat(tasks.loadTasks(next).stream().map(Task::getId).collect(toList()), contains(ids.get(3), ids.get(4)));
+
+        batch.forEach(tasks::remove);
+        assertThat(tasks.searchTasks("TEST_T", null), empty());
+    }
+
+    @Test
+    void testSubmitAll() {
+        var at = now().plus(ofSeconds(3600));
+        var batch = new ArrayList<Task>();
+        for (int i = 0; i < 250; i++) {
+            batch.add(TestTask.builder().schedule(TaskSchedule.builder().firstExecuteAt(at).build()).build());
+        }
+        // Duplicate within the batch
+        batch.add(batch.get(0));
+
+        var results = tasks.submitAll(batch);
+        assertThat(results.size(), equalTo(batch.size()));
+        for (int i = 0; i < 250; i++) {
+            assertThat(results.get(i).isSubmitted(), equalTo(true));
+            assertThat(results.get(i).getTask(), equalTo(batch.get(i)));
+        }
+        assertThat(results.get(250).isSubmitted(), equalTo(false));
+        assertThat(tasks.searchTasks("TEST_T", null).size(), equalTo(250));
+
+        // Already submitted
+        results = tasks.submitAll(List.of(batch.get(1)));
+        assertThat(results.get(0).isSubmitted(), equalTo(false));
+
+        batch.subList(0, 250).forEach(tasks::remove);
+        assertThat(tasks.searchTasks("TEST_T", null), empty());
+    }
+
+    @Test
+    void testDedupe() {
+        var at = now().plus(ofSeconds(3600));
+        var first = TestTask.builder().schedule(TaskSchedule.builder().firstExecuteAt(at).build()).build();
+        var second = TestTask.builder().schedule(TaskSchedule.builder().firstExecuteAt(at).build()).build();
+        double deduplicated = meters.counter(Constants.TASK_DEDUPLICATED, Constants.TAG_TASK_TYPE, "TEST_T").count();
+
+        assertThat(tasks.submit(first, "TEST_T/dedupe"), equalTo(true));
+        assertThat(tasks.submit(second, "TEST_T/dedupe"), equalTo(false));
+        assertThat(tasks.searchTasks("TEST_T", null).size(), equalTo(1));
+        assertThat(tasks.getTaskById(second.getId()).isPresent(), equalTo(false));
+        assertThat(meters.counter(Constants.TASK_DEDUPLICATED, Constants.TAG_TASK_TYPE, "TEST_T").count(),
+                equalTo(deduplicated + 1));
+
+        // The key can be used again after the task is removed
+        tasks.remove(first);
+        assertThat(tasks.submit(second, "TEST_T/dedupe"), equalTo(true));
+        tasks.remove(second);
+        assertThat(tasks.searchTasks("TEST_T", null), empty());
+    }
+
+    @Test
+    void testContinuation() {
+        double inProcess = meters.counter(Constants.TASK_CONTINUATIONS, Constants.TAG_TASK_TYPE, "TEST_T",
+                Constants.TAG_CONTINUATION_RESULT, "in_process").count();
+        var task = TestTask.builder().build()
+                .andThen(BasicCommand.builder().increment(true).build());
+        tasks.submitContinuation(task);
+        data.awaitFinished();
+        await().atMost(ofSeconds(10)).until(() -> tasks.searchTasks("TEST_T", null).isEmpty());
+        assertThat(meters.counter(Constants.TASK_CONTINUATIONS, Constants.TAG_TASK_TYPE, "TEST_T",
+                Constants.TAG_CONTINUATION_RESULT, "in_process").count(), equalTo(inProcess + 1));
+        data.reset();
+    }
+
+    /**
+     * The job store must not execute a continuation again while its in-process execution is still running.
+     */
+    @Test
+    void testContinuationOutlivesGracePeriod() throws InterruptedException {
+        var gracePeriod = continuations.getGracePeriod();
+        continuations.setGracePeriod(ofSeconds(1));
+        try {
+            double rejected = rejectedCount();
+            var task = TestTask.builder().build()
+                    .andThen(SleepCommand.builder().millis(4000).build());
+            tasks.submitContinuation(task);
+
+            Thread.sleep(2500);
+            // The claim has been renewed
+            var found = tasks.searchTasks("TEST_T", null);
+            assertThat(found.stream().map(TaskSummary::getId).collect(toList()), contains(task.getId()));
+            assertThat(found.get(0).getNextExecuteAt(), greaterThan(now()));
+
+            data.awaitFinished();
+            await().atMost(ofSeconds(10)).until(() -> tasks.searchTasks("TEST_T", null).isEmpty());
+            // Long enough for a stale trigger to fire
+            Thread.sleep(2000);
+            assertThat(data.getExecutions(), equalTo(1));
+            assertThat(data.getFinallyExecuteAttempts(), equalTo(1));
+            // Not even attempted by the job store
+            assertThat(rejectedCount(), equalTo(rejected));
+            data.reset();
+        } finally {
+            continuations.setGracePeriod(gracePeriod);
+        }
+    }
+
+    /**
+     * High priority tasks must start quickly even if there is a backlog of low priority tasks.
+     */
+    @Test
+    @Tag(TestTags.SLOW)
+    void testPriorityLanesLoad() throws InterruptedException {
+        latencies.reset();
+
+        var backlog = new ArrayList<Task>();
+        for (int i = 0; i < 400; i++) {
+            backlog.add(LatencyTestTask.builder().priority(TaskSchedule.PRIORITY_LOW).workMillis(100).build());
+        }
+        tasks.submitAll(backlog);
+
+        for (int i = 0; i < 40; i++) {
+            tasks.submit(LatencyTestTask.builder().priority(TaskSchedule.PRIORITY_HIGH).workMillis(10).build());
+            Thread.sleep(50);
+        }
+
+        await().atMost(ofSeconds(120)).until(() -> latencies.getCount(TaskSchedule.PRIORITY_HIGH) == 40
+                && latencies.getCount(TaskSchedule.PRIORITY_LOW) == 400);
+
+        long highP99 = latencies.getPercentile(TaskSchedule.PRIORITY_HIGH, 0.99);
+        long lowP99 = latencies.getPercentile(TaskSchedule.PRIORITY_LOW, 0.99);
+        log.info("Start latency p99: high priority {} ms, low priority {} ms", highP99, lowP99);
+        assertThat(highP99, lessThan(lowP99));
+        // Without the reserved threads, a high priority task submitted early waits until the backlog is drained
+        long drainMillis = 400L * 100 / threadCount;
+        assertThat(highP99, lessThan(drainMillis / 2));
+    }
 }
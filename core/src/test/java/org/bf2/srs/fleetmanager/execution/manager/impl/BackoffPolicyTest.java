@@ -0,0 +1,97 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.time.Duration.ZERO;
+import static java.time.Duration.ofSeconds;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BackoffPolicyTest {
+
+    private static final Duration MAX_DELAY = ofSeconds(600);
+
+    @Test
+    void testExponential() {
+        var policy = new ExponentialBackoffPolicy();
+        assertEquals(ofSeconds(4), policy.delay(0, ZERO, MAX_DELAY));
+        assertEquals(ofSeconds(8), policy.delay(1, ZERO, MAX_DELAY));
+        assertEquals(ofSeconds(512), policy.delay(7, ZERO, MAX_DELAY));
+        assertEquals(MAX_DELAY, policy.delay(8, ZERO, MAX_DELAY));
+        assertEquals(MAX_DELAY, policy.delay(Integer.MAX_VALUE, ZERO, MAX_DELAY));
+    }
+
+    @Test
+    void testDecorrelatedJitter() {
+        var base = ofSeconds(1);
+        var policy = new DecorrelatedJitterBackoffPolicy(base);
+        Set<Duration> first = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            var delay = ZERO;
+            for (int retries = 0; retries < 20; retries++) {
+                var previous = delay;
+                delay = policy.delay(retries, previous, MAX_DELAY);
+                assertTrue(delay.compareTo(base) >= 0);
+                assertTrue(delay.compareTo(MAX_DELAY) <= 0);
+                assertTrue(delay.compareTo(previous.multipliedBy(3).plus(base.multipliedBy(3))) <= 0);
+                if (retries == 0) {
+                    first.add(delay);
+                }
+            }
+        }
+        // Retries of tasks that failed at the same time are spread out
+        assertTrue(first.size() > 10);
+        // Maximum delay shorter than the base delay
+        assertEquals(Duration.ofMillis(500), policy.delay(10, ofSeconds(600), Duration.ofMillis(500)));
+    }
+
+    @Test
+    void testSuppressedDelay() {
+        var random = new Random(0);
+        Set<Duration> delays = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            var delay = TaskRetries.suppressedDelay(ofSeconds(4), MAX_DELAY, random);
+            assertTrue(delay.compareTo(ofSeconds(4)) >= 0);
+            assertTrue(delay.compareTo(MAX_DELAY) <= 0);
+            delays.add(delay);
+        }
+        // Suppressed retries of tasks that failed at the same time are spread out
+        assertTrue(delays.size() > 90);
+        assertEquals(MAX_DELAY, TaskRetries.suppressedDelay(MAX_DELAY, MAX_DELAY, random));
+        assertEquals(MAX_DELAY, TaskRetries.suppressedDelay(ofSeconds(1000), MAX_DELAY, random));
+    }
+
+    @Test
+    void testRetryBudget() {
+        var now = new AtomicLong();
+        var budget = new RetryBudget(10, now::get);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(budget.tryAcquire());
+        }
+        assertFalse(budget.tryAcquire());
+
+        now.addAndGet(Duration.ofMillis(250).toNanos());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        // Does not accumulate more than one second worth of permits
+        now.addAndGet(ofSeconds(60).toNanos());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(budget.tryAcquire());
+        }
+        assertFalse(budget.tryAcquire());
+
+        var unlimited = new RetryBudget(0, now::get);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(unlimited.tryAcquire());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import org.bf2.srs.fleetmanager.common.SerDesObjectMapperProducer;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.ProvisionRegistryTenantTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryDeploymentHeartbeatTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryHeartbeatTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.ScheduleRegistryTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.DeprovisionRegistryTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.EvalInstanceExpirationRegistryTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.StartDeprovisionRegistryTask;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
+import org.bf2.srs.fleetmanager.operation.OperationContextData;
+import org.bf2.srs.fleetmanager.util.TestTags;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JobDataCodecTest {
+
+    private static final int ITERATIONS = 10_000;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Test
+    void testRoundTrip() {
+        for (Task task : tasks()) {
+            var decoded = JobDataCodec.decode(JobDataCodec.encode(task), Task.class);
+            assertEquals(task.getClass(), decoded.getClass());
+            assertEquals(task.getId(), decoded.getId());
+            assertEquals(task.getSchedule(), decoded.getSchedule());
+            assertEquals(task.getOperationContextData(), decoded.getOperationContextData());
+        }
+
+        var ctx = WorkerContextImpl.builder().minRetries(3).build();
+        ctx.setRetryAttempts(2);
+        var decodedCtx = JobDataCodec.decode(JobDataCodec.encode(ctx), WorkerContextImpl.class);
+        assertEquals(ctx.getMinRetries(), decodedCtx.getMinRetries());
+        assertEquals(ctx.getRetryAttempts(), decodedCtx.getRetryAttempts());
+    }
+
+    @Test
+    void testLegacyJson() throws Exception {
+        for (Task task : tasks()) {
+            String legacy = SerDesObjectMapperProducer.getMapper().writeValueAsString(task);
+            var decoded = JobDataCodec.decode(legacy, Task.class);
+            assertEquals(task.getClass(), decoded.getClass());
+            assertEquals(task.getId(), decoded.getId());
+            assertEquals(task.getOperationContextData(), decoded.getOperationContextData());
+        }
+    }
+
+    /**
+     * Instances of a previous version read the converted value as a legacy JSON string.
+     */
+    @Test
+    void testToLegacy() throws Exception {
+        var json = SerDesObjectMapperProducer.getMapper();
+        for (Task task : tasks()) {
+            String legacy = JobDataCodec.toLegacy(JobDataCodec.encode(task));
+            var decoded = json.readValue(legacy, Task.class);
+            assertEquals(task.getClass(), decoded.getClass());
+            assertEquals(task.getId(), decoded.getId());
+            assertEquals(task.getSchedule(), decoded.getSchedule());
+            assertEquals(task.getOperationContextData(), decoded.getOperationContextData());
+        }
+    }
+
+    @Test
+    void testUnknownVersion() {
+        var encoded = JobDataCodec.encode(tasks().get(0));
+        encoded[0] = 42;
+        assertThrows(IllegalArgumentException.class, () -> JobDataCodec.decode(encoded, Task.class));
+    }
+
+    /**
+     * Not a rigorous benchmark, but gives an idea of the size and cost for each task type.
+     */
+    @Test
+    @Tag(TestTags.SLOW)
+    void testSizeAndCost() throws Exception {
+        var json = SerDesObjectMapperProducer.getMapper();
+        for (Task task : tasks()) {
+            String legacy = json.writeValueAsString(task);
+            byte[] encoded = JobDataCodec.encode(task);
+            assertTrue(encoded.length < legacy.getBytes().length,
+                    "Encoded " + task.getType() + " is not smaller than JSON");
+
+            long jsonNanos = measure(() -> json.readValue(json.writeValueAsString(task), Task.class));
+            long codecNanos = measure(() -> JobDataCodec.decode(JobDataCodec.encode(task), Task.class));
+
+            log.info("{}: JSON {} B, {} ns per round trip; encoded {} B, {} ns per round trip",
+                    task.getType(), legacy.getBytes().length, jsonNanos, encoded.length, codecNanos);
+        }
+    }
+
+    private static long measure(ThrowingRunnable action) throws Exception {
+        // Warm up
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static List<Task> tasks() {
+        var registryId = UUID.randomUUID().toString();
+        List<Task> tasks = List.of(
+                ScheduleRegistryTask.builder().registryId(registryId).build(),
+                ProvisionRegistryTenantTask.builder().registryId(registryId).build(),
+                RegistryHeartbeatTask.builder().registryId(registryId).build(),
+                RegistryDeploymentHeartbeatTask.builder().deploymentId(1L).build(),
+                StartDeprovisionRegistryTask.builder().registryId(registryId).build(),
+                DeprovisionRegistryTask.builder().registryId(registryId).build(),
+                EvalInstanceExpirationRegistryTask.builder().registryId(registryId)
+                        .schedule(TaskSchedule.builder()
+                                .firstExecuteAt(Instant.now().plus(Duration.ofHours(48)))
+                                .build())
+                        .build()
+        );
+        for (Task task : tasks) {
+            var ctxData = new OperationContextData();
+            ctxData.setOperationId(UUID.randomUUID().toString());
+            ctxData.getTraceData().put("registry_id", registryId);
+            ctxData.getTraceData().put("task_type", task.getType());
+            task.setOperationContextData(ctxData);
+        }
+        return tasks;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,174 @@
+package org.bf2.srs.fleetmanager.execution.manager.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.arc.Arc;
+import io.quarkus.test.junit.QuarkusTest;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.LatencyTestTask;
+import org.bf2.srs.fleetmanager.execution.impl.workers.LatencyRecordingWorker;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSubmitResult;
+import org.bf2.srs.fleetmanager.operation.OperationContext;
+import org.bf2.srs.fleetmanager.util.TestTags;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.inject.Inject;
+
+import static java.time.Duration.ofSeconds;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the throughput of {@link QuartzTaskManager} (started by the application)
+ * and {@link DatabaseTaskManager}, which share the same task executor.
+ */
+@QuarkusTest
+public class TaskStoreThroughputTest {
+
+    private static final String TASK_TYPE = "LATENCY_TEST_T";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Inject
+    QuartzTaskManager quartzTaskManager;
+
+    @Inject
+    DatabaseTaskManager databaseTaskManager;
+
+    @Inject
+    LatencyRecordingWorker latencies;
+
+    @Inject
+    OperationContext opCtx;
+
+    @Inject
+    MeterRegistry meters;
+
+    @BeforeEach
+    void beforeEach() {
+        if (!opCtx.isContextDataLoaded()) {
+            opCtx.loadNewContextData();
+        }
+        latencies.reset();
+        databaseTaskManager.start();
+    }
+
+    @AfterEach
+    void afterEach() {
+        databaseTaskManager.stop();
+    }
+
+    @Test
+    void testDatabaseTaskManager() {
+        var task = LatencyTestTask.builder().priority(TaskSchedule.PRIORITY_DEFAULT).build();
+        databaseTaskManager.submit(task);
+        assertThrows(IllegalStateException.class, () -> databaseTaskManager.submit(task));
+
+        await().atMost(ofSeconds(10)).until(() -> latencies.getCount(TaskSchedule.PRIORITY_DEFAULT) == 1);
+        // The task is removed after its only execution
+        await().atMost(ofSeconds(10)).until(() -> databaseTaskManager.searchTasks(TASK_TYPE, null).isEmpty());
+        assertFalse(databaseTaskManager.getTaskById(task.getId()).isPresent());
+
+        var results = databaseTaskManager.submitAll(List.of(task, task));
+        assertTrue(results.get(0).isSubmitted());
+        assertFalse(results.get(1).isSubmitted());
+        await().atMost(ofSeconds(10)).until(() -> latencies.getCount(TaskSchedule.PRIORITY_DEFAULT) == 2);
+
+        // The first task exists until its execution is finished
+        var first = LatencyTestTask.builder().priority(TaskSchedule.PRIORITY_DEFAULT).workMillis(2000).build();
+        var second = LatencyTestTask.builder().priority(TaskSchedule.PRIORITY_DEFAULT).build();
+        assertTrue(databaseTaskManager.submit(first, "LATENCY_TEST_T/dedupe"));
+        assertFalse(databaseTaskManager.submit(second, "LATENCY_TEST_T/dedupe"));
+        await().atMost(ofSeconds(10)).until(() -> databaseTaskManager.searchTasks(TASK_TYPE, null).isEmpty());
+        assertEquals(3, latencies.getCount(TaskSchedule.PRIORITY_DEFAULT));
+    }
+
+    /**
+     * Concurrent submissions with the same dedupe key may all pass the existence check,
+     * then all but one fail on the unique constraint and are ignored.
+     */
+    @Test
+    void testConcurrentDedupe() throws Exception {
+        assertConcurrentDedupe(quartzTaskManager, "quartz");
+        assertConcurrentDedupe(databaseTaskManager, "database");
+    }
+
+    private void assertConcurrentDedupe(TaskManager tasks, String name) throws Exception {
+        final int keys = 5;
+        double deduplicated = meters.counter(Constants.TASK_DEDUPLICATED, Constants.TAG_TASK_TYPE, TASK_TYPE).count();
+
+        var executor = Executors.newFixedThreadPool(2 * keys);
+        try {
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 2 * keys; i++) {
+                var dedupeKey = TASK_TYPE + "/" + name + "-" + (i % keys);
+                futures.add(executor.submit((Callable<Boolean>) () -> {
+                    var ctx = Arc.container().requestContext();
+                    ctx.activate();
+                    try {
+                        opCtx.loadNewContextData();
+                        // Executed long enough for the other submission to find the key
+                        var task = LatencyTestTask.builder().priority(TaskSchedule.PRIORITY_DEFAULT).workMillis(3000).build();
+                        start.await();
+                        return tasks.submit(task, dedupeKey);
+                    } finally {
+                        ctx.terminate();
+                    }
+                }));
+            }
+            start.countDown();
+
+            int submitted = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get()) {
+                    submitted++;
+                }
+            }
+            assertEquals(keys, submitted, name);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(deduplicated + keys, meters.counter(Constants.TASK_DEDUPLICATED, Constants.TAG_TASK_TYPE, TASK_TYPE).count(), name);
+        await().atMost(ofSeconds(30)).until(() -> tasks.searchTasks(TASK_TYPE, null).isEmpty());
+    }
+
+    @Test
+    @Tag(TestTags.SLOW)
+    void testThroughput() {
+        int count = 2000;
+        long quartzMillis = measure(quartzTaskManager, count);
+        long databaseMillis = measure(databaseTaskManager, count);
+        log.info("Executed {} tasks: Quartz in {} ms ({} tasks/s), database in {} ms ({} tasks/s)",
+                count, quartzMillis, count * 1000 / quartzMillis, databaseMillis, count * 1000 / databaseMillis);
+    }
+
+    private long measure(TaskManager tasks, int count) {
+        latencies.reset();
+        List<Task> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(LatencyTestTask.builder().priority(TaskSchedule.PRIORITY_DEFAULT).build());
+        }
+        long start = System.currentTimeMillis();
+        assertEquals(count, tasks.submitAll(batch).stream().filter(TaskSubmitResult::isSubmitted).count());
+        await().atMost(ofSeconds(300)).until(() -> latencies.getCount(TaskSchedule.PRIORITY_DEFAULT) == count);
+        await().atMost(ofSeconds(60)).until(() -> tasks.searchTasks(TASK_TYPE, null).isEmpty());
+        return Math.max(1, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,99 @@
+package org.bf2.srs.fleetmanager.execution.simulation;
+
+import org.bf2.srs.fleetmanager.spi.mockImpl.MockTenantManagerService;
+import org.bf2.srs.fleetmanager.spi.tenants.TenantManagerService;
+import org.bf2.srs.fleetmanager.spi.tenants.TenantManagerServiceException;
+import org.bf2.srs.fleetmanager.spi.tenants.TenantNotFoundServiceException;
+import org.bf2.srs.fleetmanager.spi.tenants.model.CreateTenantRequest;
+import org.bf2.srs.fleetmanager.spi.tenants.model.Tenant;
+import org.bf2.srs.fleetmanager.spi.tenants.model.TenantLimit;
+import org.bf2.srs.fleetmanager.spi.tenants.model.TenantManagerConfig;
+import org.bf2.srs.fleetmanager.spi.tenants.model.UpdateTenantRequest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+
+/**
+ * Mock Tenant Manager that fails a fraction of create and delete calls,
+ * so the simulated task engine has to retry them.
+ * Failures are drawn from a seeded random generator, which keeps the simulation deterministic.
+ * <p>
+ * Enabled by {@link SimulationTestProfile}.
+ */
+@Alternative
+@ApplicationScoped
+public class FlakyTenantManagerService implements TenantManagerService {
+
+    private final TenantManagerService delegate = new MockTenantManagerService();
+
+    private Random random = new Random(0);
+
+    private double failureRate;
+
+    private long failures;
+
+    /**
+     * Testing support.
+     */
+    public synchronized void setFailureRate(double failureRate, long seed) {
+        this.failureRate = failureRate;
+        this.random = new Random(seed);
+        this.failures = 0;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    private synchronized void maybeFail(String operation) throws TenantManagerServiceException {
+        if (random.nextDouble() < failureRate) {
+            failures++;
+            throw new TenantManagerServiceException("Simulated failure of the " + operation + " operation.", null);
+        }
+    }
+
+    @Override
+    public Tenant createTenant(TenantManagerConfig tm, CreateTenantRequest req) throws TenantManagerServiceException {
+        maybeFail("create tenant");
+        return delegate.createTenant(tm, req);
+    }
+
+    @Override
+    public Optional<Tenant> getTenantById(TenantManagerConfig tm, String tenantId) throws TenantManagerServiceException {
+        return delegate.getTenantById(tm, tenantId);
+    }
+
+    @Override
+    public List<Tenant> getAllTenants(TenantManagerConfig tm) throws TenantManagerServiceException {
+        return delegate.getAllTenants(tm);
+    }
+
+    @Override
+    public void updateTenant(TenantManagerConfig tm, UpdateTenantRequest req) throws TenantNotFoundServiceException, TenantManagerServiceException {
+        delegate.updateTenant(tm, req);
+    }
+
+    @Override
+    public void deleteTenant(TenantManagerConfig tm, String tenantId) throws TenantNotFoundServiceException, TenantManagerServiceException {
+        maybeFail("delete tenant");
+        delegate.deleteTenant(tm, tenantId);
+    }
+
+    @Override
+    public boolean pingTenantManager(TenantManagerConfig tm) {
+        return delegate.pingTenantManager(tm);
+    }
+
+    @Override
+    public boolean pingTenant(TenantManagerConfig tm, String tenantId) {
+        return delegate.pingTenant(tm, tenantId);
+    }
+
+    @Override
+    public void validateConfig(List<TenantLimit> limits) {
+        delegate.validateConfig(limits);
+    }
+}
@@ -0,0 +1,423 @@
+package org.bf2.srs.fleetmanager.execution.simulation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.ToString;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.RegistryTask;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.bf2.srs.fleetmanager.execution.manager.TaskQuery;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSubmitResult;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSummary;
+import org.bf2.srs.fleetmanager.execution.manager.impl.JobDataCodec;
+import org.bf2.srs.fleetmanager.execution.manager.impl.TaskExecution;
+import org.bf2.srs.fleetmanager.execution.manager.impl.TaskExecutor;
+import org.bf2.srs.fleetmanager.execution.manager.impl.TaskMetrics;
+import org.bf2.srs.fleetmanager.execution.manager.impl.TaskRetries;
+import org.bf2.srs.fleetmanager.operation.OperationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+import javax.inject.Inject;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.bf2.srs.fleetmanager.execution.manager.impl.QuartzIDs.jobDetailKeyForTask;
+
+/**
+ * In-memory task manager that executes tasks one at a time, in the order of their scheduled execution,
+ * with the real {@link TaskExecutor} and workers, while advancing a {@link VirtualClock}.
+ * Retry delays and task intervals therefore take no wall-clock time,
+ * and a simulation with the same inputs executes the tasks in the same order.
+ * <p>
+ * Tasks are only executed by {@link #runUntil(BooleanSupplier, Instant)},
+ * on a dedicated thread, so the Operation Context of the caller is not affected.
+ * Continuations are executed at the current virtual time, with the other due tasks.
+ * <p>
+ * Enabled by {@link SimulationTestProfile}.
+ */
+@Alternative
+@ApplicationScoped
+public class SimulatedTaskManager implements TaskManager {
+
+    private static final Comparator<Entry> EXECUTION_ORDER = Comparator
+            .comparing((Entry e) -> e.nextExecuteAt)
+            .thenComparing(e -> -e.priority)
+            .thenComparingLong(e -> e.seq);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Inject
+    TaskExecutor executor;
+
+    @Inject
+    TaskRetries retries;
+
+    @Inject
+    TaskMetrics taskMetrics;
+
+    @Inject
+    OperationContext opCtx;
+
+    @Getter
+    private final VirtualClock clock = new VirtualClock(Instant.now());
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(EXECUTION_ORDER);
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private final Map<String, String> dedupeKeys = new HashMap<>();
+
+    private final List<Completion> completions = new ArrayList<>();
+
+    private long seq;
+
+    private long executions;
+
+    private ExecutorService thread;
+
+    @Override
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Task manager is already started.");
+        }
+        executor.setClock(clock);
+        retries.setClock(clock);
+        retries.setRandom(new Random(0));
+        thread = Executors.newSingleThreadExecutor();
+        log.info("Simulated task manager started at virtual time {}.", clock.instant());
+    }
+
+    /**
+     * Execute due tasks one at a time, advancing the clock to the scheduled time of each,
+     * until the condition holds, or there are no more tasks scheduled before the deadline.
+     * The clock is not advanced past the scheduled time of the last executed task.
+     *
+     * @return true if the condition holds
+     */
+    @SneakyThrows
+    public boolean runUntil(BooleanSupplier condition, Instant deadline) {
+        requireNonNull(condition);
+        requireNonNull(deadline);
+        while (!condition.getAsBoolean()) {
+            Entry entry;
+            synchronized (this) {
+                entry = queue.peek();
+                if (entry == null || entry.nextExecuteAt.isAfter(deadline)) {
+                    return false;
+                }
+                queue.poll();
+                clock.advanceTo(entry.nextExecuteAt);
+                executions++;
+                entry.executions++;
+            }
+            var execution = new SimulatedExecution(entry);
+            thread.submit(() -> executor.execute(execution)).get();
+            execution.complete();
+        }
+        return true;
+    }
+
+    /**
+     * @return number of task executions, including executions deferred by the task executor
+     */
+    public synchronized long getExecutions() {
+        return executions;
+    }
+
+    /**
+     * @return tasks that have been removed, in the order of removal
+     */
+    public synchronized List<Completion> getCompletions() {
+        return new ArrayList<>(completions);
+    }
+
+    /**
+     * Remove all tasks and records, without resetting the clock.
+     */
+    public synchronized void reset() {
+        queue.clear();
+        entries.clear();
+        dedupeKeys.clear();
+        completions.clear();
+        executions = 0;
+    }
+
+    @SneakyThrows
+    @Override
+    public void submit(Task task) {
+        var result = submitAll(List.of(task)).get(0);
+        if (!result.isSubmitted()) {
+            throw result.getError().get();
+        }
+    }
+
+    @Override
+    public synchronized boolean submit(Task task, String dedupeKey) {
+        requireNonNull(dedupeKey);
+        if (dedupeKeys.containsKey(dedupeKey)) {
+            log.debug("Task {} has not been submitted, a task with the dedupe key {} already exists.", task, dedupeKey);
+            taskMetrics.recordDeduplicated(task);
+            return false;
+        }
+        submit(task);
+        entries.get(task.getId()).dedupeKey = dedupeKey;
+        dedupeKeys.put(dedupeKey, task.getId());
+        return true;
+    }
+
+    @Override
+    public void submitContinuation(Task task) {
+        submit(task);
+    }
+
+    @Override
+    public synchronized List<TaskSubmitResult> submitAll(Collection<? extends Task> tasks) {
+        requireNonNull(tasks);
+        var results = new ArrayList<TaskSubmitResult>(tasks.size());
+        for (Task task : tasks) {
+            if (entries.containsKey(task.getId())) {
+                results.add(TaskSubmitResult.failed(task,
+                        new IllegalStateException("Task with ID " + task.getId() + " already exists.")));
+                continue;
+            }
+            // Include Operation Context to newly created tasks
+            task.setOperationContextData(opCtx.getContextData());
+            var entry = new Entry();
+            entry.taskId = task.getId();
+            entry.taskType = task.getType();
+            entry.registryId = task instanceof RegistryTask ? ((RegistryTask) task).getRegistryId() : null;
+            entry.priority = task.getSchedule().getPriority();
+            entry.submittedAt = clock.instant();
+            // The first execution defaults to the wall-clock time, which may be behind the virtual clock
+            var first = task.getSchedule().getFirstExecuteAt();
+            entry.nextExecuteAt = first.isAfter(entry.submittedAt) ? first : entry.submittedAt;
+            entry.data.put(jobDetailKeyForTask(), JobDataCodec.encode(task));
+            entry.seq = seq++;
+            entries.put(entry.taskId, entry);
+            queue.add(entry);
+            results.add(TaskSubmitResult.submitted(task));
+        }
+        return results;
+    }
+
+    @Override
+    public synchronized Set<Task> getAllTasks() {
+        return entries.values().stream()
+                .map(Entry::loadTask)
+                .collect(toSet());
+    }
+
+    @Override
+    public synchronized Set<Task> getTasksByType(String taskType) {
+        return entries.values().stream()
+                .filter(e -> e.taskType.equals(taskType))
+                .map(Entry::loadTask)
+                .collect(toSet());
+    }
+
+    @Override
+    public synchronized Optional<Task> getTaskById(String taskId) {
+        requireNonNull(taskId);
+        return Optional.ofNullable(entries.get(taskId)).map(Entry::loadTask);
+    }
+
+    @Override
+    public synchronized List<TaskSummary> searchTasks(TaskQuery query) {
+        return entries.values().stream()
+                .filter(e -> query.getTaskType() == null || query.getTaskType().equals(e.taskType))
+                .filter(e -> query.getRegistryId() == null || query.getRegistryId().equals(e.registryId))
+                .filter(e -> query.getNextExecuteFrom() == null || !e.nextExecuteAt.isBefore(query.getNextExecuteFrom()))
+                .filter(e -> query.getNextExecuteTo() == null || e.nextExecuteAt.isBefore(query.getNextExecuteTo()))
+                .filter(e -> query.getAfter() == null || isAfter(e, query.getAfter()))
+                .sorted(Comparator.comparing((Entry e) -> e.nextExecuteAt).thenComparing(e -> e.taskId))
+                .skip(query.getOffset())
+                .limit(query.getLimit())
+                .map(e -> TaskSummary.builder()
+                        .id(e.taskId)
+                        .type(e.taskType)
+                        .registryId(e.registryId)
+                        .nextExecuteAt(e.nextExecuteAt)
+                        .build())
+                .collect(toList());
+    }
+
+    /**
+     * All tasks have a next execution, so none come after a task without one.
+     */
+    private static boolean isAfter(Entry e, TaskSummary after) {
+        if (after.getNextExecuteAt() == null) {
+            return false;
+        }
+        int c = e.nextExecuteAt.compareTo(after.getNextExecuteAt());
+        return c > 0 || (c == 0 && e.taskId.compareTo(after.getId()) > 0);
+    }
+
+    @Override
+    public synchronized void remove(Task task) {
+        var entry = entries.remove(task.getId());
+        if (entry != null) {
+            queue.remove(entry);
+            if (entry.dedupeKey != null) {
+                dedupeKeys.remove(entry.dedupeKey);
+            }
+            completions.add(new Completion(entry.taskId, entry.taskType, entry.registryId,
+                    entry.submittedAt, clock.instant(), entry.executions));
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        thread.shutdown();
+        thread = null;
+        executor.setClock(Clock.systemUTC());
+        retries.setClock(Clock.systemUTC());
+        retries.setRandom(null);
+    }
+
+    /**
+     * A task that has been removed, after it finished or was stopped.
+     */
+    @AllArgsConstructor
+    @Getter
+    @ToString
+    public static class Completion {
+
+        private final String taskId;
+
+        private final String taskType;
+
+        /**
+         * May be null.
+         */
+        private final String registryId;
+
+        private final Instant submittedAt;
+
+        private final Instant completedAt;
+
+        private final int executions;
+
+        public Duration getLatency() {
+            return Duration.between(submittedAt, completedAt);
+        }
+    }
+
+    private static class Entry {
+
+        private String taskId;
+
+        private String taskType;
+
+        private String registryId;
+
+        private int priority;
+
+        private Instant submittedAt;
+
+        private Instant nextExecuteAt;
+
+        private int deferrals;
+
+        private String dedupeKey;
+
+        private int executions;
+
+        private long seq;
+
+        private final Map<String, Object> data = new HashMap<>();
+
+        private Task loadTask() {
+            return JobDataCodec.decode(data.get(jobDetailKeyForTask()), Task.class);
+        }
+    }
+
+    private class SimulatedExecution implements TaskExecution {
+
+        private final Entry entry;
+
+        private final Instant scheduledAt;
+
+        private Instant next;
+
+        private int deferrals;
+
+        private SimulatedExecution(Entry entry) {
+            this.entry = entry;
+            this.scheduledAt = entry.nextExecuteAt;
+        }
+
+        @Override
+        public Object getData(String key) {
+            return entry.data.get(key);
+        }
+
+        @Override
+        public void putData(String key, byte[] encoded) {
+            entry.data.put(key, encoded);
+        }
+
+        @Override
+        public Optional<Instant> getScheduledAt() {
+            return Optional.of(scheduledAt);
+        }
+
+        @Override
+        public int getDeferrals() {
+            return entry.deferrals;
+        }
+
+        @Override
+        public void reschedule(Task task, Instant at, int deferrals) {
+            this.next = at;
+            this.deferrals = deferrals;
+        }
+
+        @Override
+        public void remove(Task task) {
+            SimulatedTaskManager.this.remove(task);
+        }
+
+        /**
+         * Reschedule the task, or remove it if it has not been rescheduled.
+         */
+        private void complete() {
+            synchronized (SimulatedTaskManager.this) {
+                if (!entries.containsKey(entry.taskId)) {
+                    return;
+                }
+                if (next == null) {
+                    SimulatedTaskManager.this.remove(entry.loadTask());
+                    return;
+                }
+                entry.nextExecuteAt = next;
+                entry.deferrals = deferrals;
+                entry.seq = seq++;
+                queue.add(entry);
+            }
+        }
+    }
+}
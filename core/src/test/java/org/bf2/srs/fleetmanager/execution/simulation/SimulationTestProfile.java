@@ -0,0 +1,28 @@
+package org.bf2.srs.fleetmanager.execution.simulation;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces the task manager with {@link SimulatedTaskManager}, and the Tenant Manager with {@link FlakyTenantManagerService}.
+ */
+public class SimulationTestProfile implements QuarkusTestProfile {
+
+    @Override
+    public Set<Class<?>> getEnabledAlternatives() {
+        return Set.of(SimulatedTaskManager.class, FlakyTenantManagerService.class);
+    }
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of(
+                // Workers read the wall clock, so eval instances expire as soon as they are ready
+                "srs-fleet-manager.registry.instances.eval.expiration.enabled", "true",
+                "srs-fleet-manager.registry.instances.eval.lifetime-seconds", "0",
+                // Production retry delays, they take no time in the simulation
+                "srs-fleet-manager.max-retries-delay-seconds", "600"
+        );
+    }
+}
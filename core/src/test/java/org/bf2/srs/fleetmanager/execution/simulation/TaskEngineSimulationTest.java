@@ -0,0 +1,282 @@
+package org.bf2.srs.fleetmanager.execution.simulation;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.ScheduleRegistryTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.TestTask;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.TestTask.BasicCommand;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.StartDeprovisionRegistryTask;
+import org.bf2.srs.fleetmanager.execution.manager.DataCollector;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.TaskQuery;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSubmitResult;
+import org.bf2.srs.fleetmanager.execution.simulation.SimulatedTaskManager.Completion;
+import org.bf2.srs.fleetmanager.operation.OperationContext;
+import org.bf2.srs.fleetmanager.rest.service.RegistryDeploymentService;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryDeploymentCreate;
+import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.bf2.srs.fleetmanager.util.TestTags;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import javax.inject.Inject;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.DEPROVISION_REGISTRY_T;
+import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.PROVISION_REGISTRY_TENANT_T;
+import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.SCHEDULE_REGISTRY_T;
+import static org.bf2.srs.fleetmanager.execution.impl.tasks.TaskType.START_DEPROVISION_REGISTRY_T;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto.EVAL;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto.STANDARD;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.ACCEPTED;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.FAILED;
+import static org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto.READY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives provisioning, deprovisioning and eval instance expiration flows through the real workers,
+ * executed by {@link SimulatedTaskManager} on a virtual clock, against a Tenant Manager that fails a fraction of the calls.
+ * Reports the throughput, retries and latency of each task type,
+ * and checks that the p99 latency of provisioning a registry stays within a bound.
+ */
+@QuarkusTest
+@TestProfile(SimulationTestProfile.class)
+public class TaskEngineSimulationTest {
+
+    private static final long SEED = 42;
+
+    /**
+     * Retries of a spike of 100 registries stay within the retry budget,
+     * so provisioning is only delayed by a few short backoffs.
+     */
+    private static final Duration P99_LATENCY_LIMIT = Duration.ofMinutes(2);
+
+    /**
+     * Retries of a larger spike exhaust the retry budget, and are spread out up to the maximum retry delay,
+     * see {@link SimulationTestProfile}.
+     */
+    private static final Duration P99_LATENCY_LIMIT_AT_SCALE = Duration.ofMinutes(12);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    @Inject
+    SimulatedTaskManager tasks;
+
+    @Inject
+    FlakyTenantManagerService tms;
+
+    @Inject
+    ResourceStorage storage;
+
+    @Inject
+    RegistryDeploymentService deploymentService;
+
+    @Inject
+    OperationContext opCtx;
+
+    @Inject
+    DataCollector data;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        if (!opCtx.isContextDataLoaded()) {
+            opCtx.loadNewContextData();
+        }
+        if (storage.getAllRegistryDeployments().isEmpty()) {
+            for (int i = 0; i < 2; i++) {
+                deploymentService.createRegistryDeployment(RegistryDeploymentCreate.builder()
+                        .name("simulation-" + i)
+                        .registryDeploymentUrl("https://registry-" + i + ".example.com")
+                        .tenantManagerUrl("https://tenant-manager-" + i + ".example.com")
+                        .build());
+            }
+        }
+    }
+
+    @Test
+    void testSimulation() throws Exception {
+        simulate(100, 0.1, P99_LATENCY_LIMIT);
+    }
+
+    @Test
+    @Tag(TestTags.SLOW)
+    void testSimulationAtScale() throws Exception {
+        simulate(2000, 0.1, P99_LATENCY_LIMIT_AT_SCALE);
+    }
+
+    /**
+     * The simulated task manager executes tasks with the same semantics as the real ones,
+     * see TaskManagerTest, but the retry delays take virtual time only.
+     */
+    @Test
+    void testRetrySemantics() {
+        data.reset();
+        var start = tasks.getClock().instant();
+        var task = TestTask.builder().schedule(TaskSchedule.builder().minRetries(3).build()).build()
+                .andThen(BasicCommand.builder().throwNPE(true).build())
+                .andThen(BasicCommand.builder().throwNPE(true).build())
+                .andThen(BasicCommand.builder().increment(true).build())
+                .andThen(BasicCommand.builder().increment(true).build());
+
+        tasks.submit(task);
+        assertTrue(tasks.runUntil(data::isFinished, start.plus(Duration.ofDays(1))));
+        assertEquals(3, data.getExecutions());
+        assertEquals(1, data.getCounter());
+        assertEquals(1, data.getFinallyExecuteAttempts());
+
+        var completion = tasks.getCompletions().stream()
+                .filter(c -> task.getId().equals(c.getTaskId()))
+                .findFirst().orElseThrow();
+        assertEquals(3, completion.getExecutions());
+        // Exponential backoff of 4 and 8 seconds, or longer if the retry budget is exhausted
+        assertTrue(completion.getLatency().compareTo(Duration.ofSeconds(12)) >= 0, completion.toString());
+        data.reset();
+    }
+
+    /**
+     * Submits a spike of `count` new registries, half of them eval instances.
+     * Standard instances are deprovisioned once all instances are provisioned,
+     * eval instances expire.
+     *
+     * @param p99LatencyLimit of provisioning a registry, from the submission of the schedule task
+     *                        until the provisioning task completes
+     */
+    private void simulate(int count, double failureRate, Duration p99LatencyLimit) throws Exception {
+        tms.setFailureRate(failureRate, SEED);
+        int completionsBefore = tasks.getCompletions().size();
+        long executionsBefore = tasks.getExecutions();
+        var start = tasks.getClock().instant();
+        var deadline = start.plus(Duration.ofDays(1));
+        long wallStart = System.currentTimeMillis();
+
+        var standard = new ArrayList<String>();
+        var eval = new ArrayList<String>();
+        var schedule = new ArrayList<Task>(count);
+        for (int i = 0; i < count; i++) {
+            var instanceType = i % 2 == 0 ? STANDARD : EVAL;
+            var registry = RegistryData.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name("simulation-" + i)
+                    .instanceType(instanceType.value())
+                    .status(ACCEPTED.value())
+                    .owner("simulation_user")
+                    .ownerId(42L)
+                    .orgId("simulation_org_" + i % 10)
+                    // Workers read the wall clock
+                    .createdAt(Instant.now())
+                    .build();
+            storage.createOrUpdateRegistry(registry);
+            (instanceType == STANDARD ? standard : eval).add(registry.getId());
+            schedule.add(ScheduleRegistryTask.builder().registryId(registry.getId()).build());
+        }
+        assertEquals(count, tasks.submitAll(schedule).stream().filter(TaskSubmitResult::isSubmitted).count());
+
+        // Eval instances may expire in the meantime
+        assertTrue(tasks.runUntil(() -> noTasks(SCHEDULE_REGISTRY_T.name(), PROVISION_REGISTRY_TENANT_T.name()), deadline));
+        for (String id : standard) {
+            assertEquals(READY.value(), storage.getRegistryById(id).orElseThrow().getStatus());
+        }
+
+        var deprovision = standard.stream()
+                .map(id -> StartDeprovisionRegistryTask.builder().registryId(id).build())
+                .collect(toList());
+        assertEquals(standard.size(), tasks.submitAll(deprovision).stream().filter(TaskSubmitResult::isSubmitted).count());
+
+        assertTrue(tasks.runUntil(() -> noTasks(START_DEPROVISION_REGISTRY_T.name(), DEPROVISION_REGISTRY_T.name())
+                && storage.getRegistriesCreatedBefore(EVAL.value(), deadline, Set.of(READY.value(), FAILED.value()), 1).isEmpty(), deadline));
+        for (String id : standard) {
+            assertFalse(storage.getRegistryById(id).isPresent());
+        }
+        for (String id : eval) {
+            assertFalse(storage.getRegistryById(id).isPresent());
+        }
+
+        var registryIds = new HashSet<String>(standard);
+        registryIds.addAll(eval);
+        var completions = tasks.getCompletions().subList(completionsBefore, tasks.getCompletions().size()).stream()
+                .filter(c -> registryIds.contains(c.getRegistryId()))
+                .collect(toList());
+        long retries = completions.stream().mapToLong(c -> c.getExecutions() - 1).sum();
+        if (failureRate > 0) {
+            assertTrue(tms.getFailures() > 0);
+            assertTrue(retries >= tms.getFailures());
+        }
+        // All schedule tasks are submitted at the start
+        var provisioned = completions.stream()
+                .filter(c -> PROVISION_REGISTRY_TENANT_T.name().equals(c.getTaskType()))
+                .collect(toList());
+        assertEquals(count, provisioned.size());
+        var p99Latency = percentile(provisioned, c -> Duration.between(start, c.getCompletedAt()), 0.99);
+        assertTrue(p99Latency.compareTo(p99LatencyLimit) <= 0,
+                "Provisioning p99 latency " + p99Latency + " exceeds the limit " + p99LatencyLimit + ".");
+        report(count, start, System.currentTimeMillis() - wallStart, tasks.getExecutions() - executionsBefore, completions, eval);
+    }
+
+    private boolean noTasks(String... taskTypes) {
+        for (String taskType : taskTypes) {
+            if (!tasks.searchTasks(TaskQuery.builder().taskType(taskType).limit(1).build()).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void report(int count, Instant start, long wallMillis, long executions, List<Completion> completions, List<String> eval) {
+        var virtual = Duration.between(start, tasks.getClock().instant());
+        log.info("Simulated {} registries in {} of virtual time and {} ms of wall-clock time: " +
+                        "{} task executions ({} per second), {} Tenant Manager failures.",
+                count, virtual, wallMillis, executions, executions * 1000 / Math.max(1, wallMillis), tms.getFailures());
+
+        var byType = new TreeMap<String, List<Completion>>(completions.stream().collect(groupingBy(Completion::getTaskType)));
+        byType.forEach((type, cs) -> log.info("{}: completed = {}, retries = {}, latency p50 = {}, p99 = {}, max = {}",
+                type, cs.size(), cs.stream().mapToLong(c -> c.getExecutions() - 1).sum(),
+                percentile(cs, Completion::getLatency, 0.5),
+                percentile(cs, Completion::getLatency, 0.99),
+                percentile(cs, Completion::getLatency, 1.0)));
+
+        // Eval instance lifetime, from the end of provisioning until the end of deprovisioning
+        Map<String, Instant> provisioned = new HashMap<>();
+        completions.stream()
+                .filter(c -> PROVISION_REGISTRY_TENANT_T.name().equals(c.getTaskType()))
+                .forEach(c -> provisioned.put(c.getRegistryId(), c.getCompletedAt()));
+        var evalIds = new HashSet<>(eval);
+        var expirations = completions.stream()
+                .filter(c -> DEPROVISION_REGISTRY_T.name().equals(c.getTaskType()) && evalIds.contains(c.getRegistryId()))
+                .map(c -> Duration.between(provisioned.get(c.getRegistryId()), c.getCompletedAt()))
+                .collect(toList());
+        log.info("Eval instance expiration: expired = {}, delay p50 = {}, p99 = {}, max = {}",
+                expirations.size(),
+                percentile(expirations, d -> d, 0.5),
+                percentile(expirations, d -> d, 0.99),
+                percentile(expirations, d -> d, 1.0));
+    }
+
+    private static <T> Duration percentile(List<T> values, Function<T, Duration> duration, double p) {
+        if (values.isEmpty()) {
+            return Duration.ZERO;
+        }
+        var sorted = values.stream().map(duration).sorted(Comparator.naturalOrder()).collect(toList());
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+}
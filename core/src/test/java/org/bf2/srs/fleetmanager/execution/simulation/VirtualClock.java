@@ -0,0 +1,46 @@
+package org.bf2.srs.fleetmanager.execution.simulation;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A clock that only moves when it is advanced by the simulation, see {@link SimulatedTaskManager}.
+ */
+public class VirtualClock extends Clock {
+
+    private volatile Instant instant;
+
+    public VirtualClock(Instant start) {
+        requireNonNull(start);
+        this.instant = start;
+    }
+
+    /**
+     * The clock never moves backwards, so advancing to an earlier time does nothing.
+     */
+    public void advanceTo(Instant at) {
+        requireNonNull(at);
+        if (at.isAfter(instant)) {
+            instant = at;
+        }
+    }
+
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -5,7 +5,7 @@ import org.bf2.srs.fleetmanager.execution.impl.tasks.deprovision.StartDeprovisio
 import org.bf2.srs.fleetmanager.execution.impl.workers.deprovision.DeprovisionRegistryWorker;
 import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
 import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
-import org.bf2.srs.fleetmanager.execution.manager.impl.JobWrapper;
+import org.bf2.srs.fleetmanager.execution.manager.impl.TaskExecutor;
 import org.bf2.srs.fleetmanager.operation.OperationContext;
 import org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto;
 import org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto;
@@ -49,7 +49,7 @@ public class DeprovisioningTest {
     DeprovisionRegistryTestWorker testWorker;
 
     @Inject
-    JobWrapper jobWrapper;
+    TaskExecutor taskExecutor;
 
     @BeforeEach
     void beforeEach() {
@@ -62,7 +62,7 @@ public class DeprovisioningTest {
     @Test
     @Tag(TestTags.SLOW)
     void testForcedDeprovisioning() throws RegistryStorageConflictException {
-        jobWrapper.getWorkerExclusions().add(DeprovisionRegistryWorker.class);
+        taskExecutor.excludeWorker(DeprovisionRegistryWorker.class);
         DeprovisionRegistryTestWorker.getEnabled().set(true);
 
         log.debug("Test start: org.bf2.srs.fleetmanager.execution.workflows.DeprovisionRegistryTestWorker.hasBeenExecuted = " + testWorker.getHasBeenExecuted());
@@ -110,6 +110,6 @@ public class DeprovisioningTest {
         // Cleanup
         DeprovisionRegistryTestWorker.getHasBeenExecuted().set(false);
         DeprovisionRegistryTestWorker.getEnabled().set(false);
-        jobWrapper.getWorkerExclusions().clear();
+        taskExecutor.clearWorkerExclusions();
     }
 }
@@ -3,7 +3,8 @@ package org.bf2.srs.fleetmanager.rest;
 import com.fasterxml.jackson.databind.JsonNode;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
-import org.bf2.srs.fleetmanager.execution.manager.impl.JobWrapper;
+import org.bf2.srs.fleetmanager.execution.manager.impl.TaskContinuations;
+import org.bf2.srs.fleetmanager.execution.manager.impl.TaskExecutor;
 import org.bf2.srs.fleetmanager.execution.workflows.DeprovisionRegistryTestWorker;
 import org.bf2.srs.fleetmanager.operation.OperationContext;
 import org.bf2.srs.fleetmanager.rest.privateapi.beans.RegistryDeploymentCreateRest;
@@ -12,27 +13,42 @@ import org.bf2.srs.fleetmanager.rest.publicapi.beans.Registry;
 import org.bf2.srs.fleetmanager.rest.publicapi.beans.RegistryCreate;
 import org.bf2.srs.fleetmanager.rest.publicapi.beans.RegistryList;
 import org.bf2.srs.fleetmanager.rest.publicapi.beans.RegistryStatusValue;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto;
 import org.bf2.srs.fleetmanager.spi.tenants.TenantManagerService;
 import org.bf2.srs.fleetmanager.spi.tenants.model.TenantManagerConfig;
+import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.PanacheRegistryCounterRepository;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.PanacheRegistryDeploymentRepository;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.PanacheRegistryRepository;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.bf2.srs.fleetmanager.util.KeysetCursor;
+import org.bf2.srs.fleetmanager.util.SecurityUtil;
+import org.bf2.srs.fleetmanager.util.TestTags;
 import org.bf2.srs.fleetmanager.util.TestUtil;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 
 import static io.restassured.RestAssured.given;
 import static java.net.HttpURLConnection.*;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
 import static java.util.stream.Collectors.toList;
+import static org.awaitility.Awaitility.await;
 import static org.bf2.srs.fleetmanager.util.TestUtil.delay;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -59,16 +75,25 @@ public class RegistriesResourceV1Test {
     @Inject
     PanacheRegistryDeploymentRepository deploymentRepo;
 
+    @Inject
+    PanacheRegistryCounterRepository counterRepo;
+
+    @Inject
+    ResourceStorage storage;
+
     @Inject
     OperationContext opCtx;
 
     @Inject
-    JobWrapper jobWrapper;
+    TaskExecutor taskExecutor;
+
+    @Inject
+    TaskContinuations continuations;
 
     @BeforeAll
     void beforeAll() {
         // Exclude test worker
-        jobWrapper.getWorkerExclusions().add(DeprovisionRegistryTestWorker.class);
+        taskExecutor.excludeWorker(DeprovisionRegistryTestWorker.class);
     }
 
     @BeforeEach
@@ -77,6 +102,7 @@ public class RegistriesResourceV1Test {
         log.warn("Cleaning the database");
         registryRepo.deleteAll();
         deploymentRepo.deleteAll();
+        counterRepo.deleteAll();
         // Activate Operation Context
         if (opCtx.isContextDataLoaded())
             throw new IllegalStateException("Unexpected state: Operation Context is already loaded");
@@ -226,6 +252,143 @@ public class RegistriesResourceV1Test {
                 .then().statusCode(HTTP_NO_CONTENT);
     }
 
+    @Test
+    void testGetRegistriesWithCursor() {
+        var deployment = new RegistryDeploymentCreateRest();
+        deployment.setName("a");
+        deployment.setTenantManagerUrl("https://tenant-manager");
+        deployment.setRegistryDeploymentUrl("https://registry");
+
+        Integer deploymentId = given()
+                .log().all()
+                .when().contentType(ContentType.JSON).body(deployment).post("/api/serviceregistry_mgmt/v1/admin/registryDeployments")
+                .then().statusCode(HTTP_OK)
+                .extract().as(RegistryDeploymentRest.class).getId();
+
+        // Create
+        List<Registry> registries = List.of("e", "d", "c", "b", "a").stream().map(name -> {
+            var data = new RegistryCreate();
+            data.setName(name);
+            return given()
+                    .log().all()
+                    .when().contentType(ContentType.JSON).body(data).post(BASE)
+                    .then().statusCode(HTTP_OK)
+                    .extract().as(Registry.class);
+        }).collect(toList());
+
+        // Follow the cursor
+        var names = new ArrayList<String>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = given()
+                    .log().all()
+                    .queryParam("size", 2)
+                    .queryParam("orderBy", "name asc")
+                    .queryParam("skipTotal", true);
+            if (cursor != null) {
+                request.queryParam("cursor", cursor);
+            }
+            var res = request
+                    .when().get(BASE)
+                    .then().statusCode(HTTP_OK)
+                    .extract().as(RegistryList.class);
+            assertNull(res.getTotal());
+            res.getItems().forEach(r -> names.add(r.getName()));
+            cursor = res.getNext();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of("a", "b", "c", "d", "e"), names);
+
+        // The total is still available
+        var res = given()
+                .log().all()
+                .queryParam("size", 2)
+                .queryParam("orderBy", "name desc")
+                .when().get(BASE)
+                .then().statusCode(HTTP_OK)
+                .extract().as(RegistryList.class);
+        assertEquals(5, res.getTotal());
+        assertEquals(List.of("e", "d"), res.getItems().stream().map(Registry::getName).collect(toList()));
+
+        // Cursor must match the ordering
+        given()
+                .log().all()
+                .queryParam("orderBy", "name asc")
+                .queryParam("cursor", res.getNext())
+                .when().get(BASE)
+                .then().statusCode(HTTP_BAD_REQUEST);
+
+        given()
+                .log().all()
+                .queryParam("cursor", "invalid")
+                .when().get(BASE)
+                .then().statusCode(HTTP_BAD_REQUEST);
+
+        registries = TestUtil.waitForReady(registries);
+
+        // Delete
+        registries.forEach(r -> {
+            given()
+                    .log().all()
+                    .when().delete(BASE + "/" + r.getId())
+                    .then().statusCode(HTTP_NO_CONTENT);
+        });
+
+        TestUtil.waitForDeletion(tms, TenantManagerConfig.builder()
+                        .tenantManagerUrl(deployment.getTenantManagerUrl())
+                        .registryDeploymentUrl(deployment.getRegistryDeploymentUrl()).build(),
+                registries);
+
+        given()
+                .log().all()
+                .when().contentType(ContentType.JSON).delete("/api/serviceregistry_mgmt/v1/admin/registryDeployments/" + deploymentId)
+                .then().statusCode(HTTP_NO_CONTENT);
+    }
+
+    @Test
+    void testGetRegistriesOrderedByNullableColumn() throws Exception {
+        // Registries with a null owner, e.g. created before the column was populated
+        for (String owner : Arrays.asList("b", null, "a")) {
+            storage.createOrUpdateRegistry(RegistryData.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name("registry-" + owner)
+                    .instanceType(RegistryInstanceTypeValueDto.STANDARD.value())
+                    .status(RegistryStatusValueDto.READY.value())
+                    .owner(owner)
+                    .ownerId(SecurityUtil.OWNER_ID_PLACEHOLDER)
+                    .orgId("test_org")
+                    .build());
+        }
+
+        // No cursor is returned, the items are paged with an offset
+        var names = new ArrayList<String>();
+        for (int page = 1; page <= 2; page++) {
+            var res = given()
+                    .log().all()
+                    .queryParam("size", 2)
+                    .queryParam("page", page)
+                    .queryParam("orderBy", "owner asc")
+                    .when().get(BASE)
+                    .then().statusCode(HTTP_OK)
+                    .extract().as(RegistryList.class);
+            assertEquals(3, res.getTotal());
+            assertNull(res.getNext());
+            res.getItems().forEach(r -> names.add(r.getName()));
+        }
+        assertThat(names, containsInAnyOrder("registry-a", "registry-b", "registry-null"));
+
+        var cursor = new KeysetCursor("owner", true, "a", UUID.randomUUID().toString()).encode();
+        given()
+                .log().all()
+                .queryParam("orderBy", "owner asc")
+                .queryParam("cursor", cursor)
+                .when().get(BASE)
+                .then().statusCode(HTTP_BAD_REQUEST);
+    }
+
     @Test
     void testGetRegistry() {
         // Error 404
@@ -346,6 +509,53 @@ public class RegistriesResourceV1Test {
                 .then().statusCode(HTTP_NO_CONTENT);
     }
 
+    /**
+     * Compares the time until a new Registry instance is ready, with and without in-process continuations.
+     */
+    @Test
+    @Tag(TestTags.SLOW)
+    void testCreateToReadyLatency() {
+        var deployment = new RegistryDeploymentCreateRest();
+        deployment.setName("a");
+        deployment.setTenantManagerUrl("https://tenant-manager");
+        deployment.setRegistryDeploymentUrl("https://registry");
+
+        given()
+                .when().contentType(ContentType.JSON).body(deployment).post("/api/serviceregistry_mgmt/v1/admin/registryDeployments")
+                .then().statusCode(HTTP_OK);
+
+        long withoutContinuations = measureCreateToReady(false, 10);
+        long withContinuations = measureCreateToReady(true, 10);
+        log.info("Average create-to-READY latency: {} ms without continuations, {} ms with continuations",
+                withoutContinuations, withContinuations);
+        assertTrue(withContinuations <= withoutContinuations);
+    }
+
+    private long measureCreateToReady(boolean enabled, int count) {
+        continuations.setEnabled(enabled);
+        try {
+            long total = 0;
+            for (int i = 0; i < count; i++) {
+                var create = new RegistryCreate();
+                create.setName("latency-" + enabled + "-" + i);
+                long start = System.currentTimeMillis();
+                var registry = given()
+                        .when().contentType(ContentType.JSON).body(create).post(BASE)
+                        .then().statusCode(HTTP_OK)
+                        .extract().as(Registry.class);
+                await().atMost(ofSeconds(30)).pollInterval(ofMillis(10))
+                        .until(() -> RegistryStatusValue.ready.equals(given()
+                                .when().get(BASE + "/" + registry.getId())
+                                .then().statusCode(HTTP_OK)
+                                .extract().as(Registry.class).getStatus()));
+                total += System.currentTimeMillis() - start;
+            }
+            return total / count;
+        } finally {
+            continuations.setEnabled(true);
+        }
+    }
+
     @Test
     void testDeleteRegistry() {
 
@@ -357,6 +567,6 @@ public class RegistriesResourceV1Test {
 
     @AfterAll
     void afterAll() {
-        jobWrapper.getWorkerExclusions().clear();
+        taskExecutor.clearWorkerExclusions();
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package org.bf2.srs.fleetmanager.rest;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.common.mapper.TypeRef;
+import io.restassured.specification.RequestSpecification;
+import org.bf2.srs.fleetmanager.execution.impl.tasks.TestTask;
+import org.bf2.srs.fleetmanager.execution.manager.Task;
+import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.bf2.srs.fleetmanager.execution.manager.TaskSchedule;
+import org.bf2.srs.fleetmanager.operation.OperationContext;
+import org.bf2.srs.fleetmanager.rest.privateapi.beans.TaskRest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+
+import static io.restassured.RestAssured.given;
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.time.Duration.ofSeconds;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItems;
+
+@QuarkusTest
+class TasksResourceV1Test {
+
+    private static final String BASE = "/api/serviceregistry_mgmt/v1/admin/tasks";
+
+    @Inject
+    TaskManager tasks;
+
+    @Inject
+    OperationContext opCtx;
+
+    private final List<Task> submitted = new ArrayList<>();
+
+    private Instant at;
+
+    @BeforeEach
+    void beforeEach() {
+        if (!opCtx.isContextDataLoaded()) {
+            opCtx.loadNewContextData();
+        }
+        // Scheduled far enough in the future, so they are not executed during the test
+        at = Instant.now().plus(ofSeconds(3600)).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 5; i++) {
+            submitted.add(TestTask.builder()
+                    .schedule(TaskSchedule.builder().firstExecuteAt(at.plus(ofSeconds(60L * i))).build()).build());
+        }
+        tasks.submitAll(submitted);
+    }
+
+    @AfterEach
+    void afterEach() {
+        submitted.forEach(tasks::remove);
+        submitted.clear();
+    }
+
+    @Test
+    void testGetTasks() {
+        var ids = submitted.stream().map(Task::getId).collect(toList());
+
+        // All tasks
+        assertThat(getTaskIds(given().queryParam("type", "TEST_T")), contains(ids.toArray()));
+
+        // Page
+        assertThat(getTaskIds(given()
+                        .queryParam("type", "TEST_T")
+                        .queryParam("page", 2)
+                        .queryParam("size", 2)),
+                contains(ids.get(2), ids.get(3)));
+
+        // Next execution window
+        assertThat(getTaskIds(given()
+                        .queryParam("nextExecuteFrom", at.plus(ofSeconds(60)).toString())
+                        .queryParam("nextExecuteTo", at.plus(ofSeconds(180)).toString())),
+                hasItems(ids.get(1), ids.get(2)));
+
+        given().queryParam("size", 501).when().get(BASE).then().statusCode(HTTP_BAD_REQUEST);
+        given().queryParam("nextExecuteFrom", "tomorrow").when().get(BASE).then().statusCode(HTTP_BAD_REQUEST);
+        given().queryParam("nextExecuteFrom", at.toString()).queryParam("nextExecuteTo", at.toString())
+                .when().get(BASE).then().statusCode(HTTP_BAD_REQUEST);
+    }
+
+    private List<String> getTaskIds(RequestSpecification request) {
+        return request
+                .when().get(BASE)
+                .then().statusCode(HTTP_OK)
+                .extract().as(new TypeRef<List<TaskRest>>() {
+                }).stream().map(TaskRest::getId).collect(toList());
+    }
+}
@@ -0,0 +1,115 @@
+package org.bf2.srs.fleetmanager.rest.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryDeploymentStatusValue;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryDto;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryStatusValueDto;
+import org.bf2.srs.fleetmanager.storage.RegistryDeploymentNotFoundException;
+import org.bf2.srs.fleetmanager.storage.RegistryDeploymentStorageConflictException;
+import org.bf2.srs.fleetmanager.storage.RegistryNotFoundException;
+import org.bf2.srs.fleetmanager.storage.RegistryStorageConflictException;
+import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentData;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentStatusData;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+
+import static org.bf2.srs.fleetmanager.util.SecurityUtil.OWNER_ID_PLACEHOLDER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that listing Registry instances does not load the entities and their associations.
+ */
+@QuarkusTest
+public class RegistryListQueryTest {
+
+    @Inject
+    RegistryService registryService;
+
+    @Inject
+    ResourceStorage storage;
+
+    @Inject
+    EntityManagerFactory emf;
+
+    @BeforeEach
+    void cleanup() {
+        storage.getAllRegistries()
+                .forEach(d -> {
+                    try {
+                        storage.deleteRegistry(d.getId());
+                    } catch (RegistryNotFoundException | RegistryStorageConflictException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+        storage.getAllRegistryDeployments()
+                .forEach(d -> {
+                    try {
+                        storage.deleteRegistryDeployment(d.getId());
+                    } catch (RegistryDeploymentNotFoundException | RegistryDeploymentStorageConflictException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+    }
+
+    @Test
+    public void testListingStatementCount() throws Exception {
+        var deployment = RegistryDeploymentData.builder()
+                .name("test")
+                .registryDeploymentUrl("registry")
+                .tenantManagerUrl("tenantmanager")
+                .status(RegistryDeploymentStatusData.builder().value(RegistryDeploymentStatusValue.AVAILABLE.value()).build())
+                .build();
+        storage.createOrUpdateRegistryDeployment(deployment);
+
+        for (int i = 0; i < 150; i++) {
+            var registry = RegistryData.builder()
+                    .id(UUID.randomUUID().toString())
+                    .name(String.format("registry-%03d", i))
+                    .registryUrl("registry/" + i)
+                    .registryDeployment(deployment)
+                    .owner("owner")
+                    .ownerId(OWNER_ID_PLACEHOLDER)
+                    .orgId("org")
+                    .status(RegistryStatusValueDto.READY.value())
+                    .instanceType(RegistryInstanceTypeValueDto.STANDARD.value())
+                    .build();
+            storage.createOrUpdateRegistry(registry);
+        }
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        var page = registryService.getRegistries(1, 100, "name asc", null, null, null);
+
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "Expected at most 2 statements, got " + statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        assertEquals(100, page.getItems().size());
+        assertEquals(150L, page.getTotal());
+        RegistryDto first = page.getItems().get(0);
+        assertEquals("registry-000", first.getName());
+        assertEquals(deployment.getId(), first.getRegistryDeploymentId());
+        assertEquals(RegistryStatusValueDto.READY, first.getStatus());
+
+        statistics.clear();
+
+        var next = registryService.getRegistries(null, 100, "name asc", null, page.getNext(), true);
+
+        assertTrue(statistics.getPrepareStatementCount() <= 1,
+                "Expected at most 1 statement, got " + statistics.getPrepareStatementCount());
+
+        assertEquals(50, next.getItems().size());
+        assertEquals("registry-100", next.getItems().get(0).getName());
+    }
+}
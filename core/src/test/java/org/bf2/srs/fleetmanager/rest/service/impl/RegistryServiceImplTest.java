@@ -0,0 +1,179 @@
+package org.bf2.srs.fleetmanager.rest.service.impl;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.bf2.srs.fleetmanager.auth.AuthService;
+import org.bf2.srs.fleetmanager.execution.manager.TaskManager;
+import org.bf2.srs.fleetmanager.operation.OperationContext;
+import org.bf2.srs.fleetmanager.rest.service.convert.ConvertRegistry;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryCreateDto;
+import org.bf2.srs.fleetmanager.rest.service.model.RegistryInstanceTypeValueDto;
+import org.bf2.srs.fleetmanager.spi.ams.AccountManagementService;
+import org.bf2.srs.fleetmanager.spi.common.TooManyEvalInstancesForUserException;
+import org.bf2.srs.fleetmanager.spi.common.TooManyInstancesException;
+import org.bf2.srs.fleetmanager.spi.common.model.AccountInfo;
+import org.bf2.srs.fleetmanager.spi.common.model.ResourceType;
+import org.bf2.srs.fleetmanager.storage.ResourceStorage;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryCounterKey;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.inject.Inject;
+
+import static org.bf2.srs.fleetmanager.util.SecurityUtil.OWNER_ID_PLACEHOLDER;
+import static org.bf2.srs.fleetmanager.util.SecurityUtil.OWNER_PLACEHOLDER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies that the AMS subscription is released when the registry count limit is reached
+ * after the fast check has passed, i.e. when another registry has been created concurrently.
+ */
+@QuarkusTest
+public class RegistryServiceImplTest {
+
+    private static final String SUBSCRIPTION_ID = "subscription-1";
+
+    @Inject
+    ResourceStorage storage;
+
+    @Inject
+    ConvertRegistry convertRegistry;
+
+    @Inject
+    AuthService authService;
+
+    @Inject
+    TaskManager tasks;
+
+    @Inject
+    OperationContext opCtx;
+
+    private final List<String> deletedSubscriptions = new ArrayList<>();
+
+    private final List<String> registryIds = new ArrayList<>();
+
+    private RegistryServiceImpl service;
+
+    @BeforeEach
+    void beforeEach() {
+        if (!opCtx.isContextDataLoaded()) {
+            opCtx.loadNewContextData();
+        }
+        deletedSubscriptions.clear();
+        registryIds.clear();
+
+        service = new RegistryServiceImpl();
+        service.storage = staleCounts(storage);
+        service.convertRegistry = convertRegistry;
+        service.authService = authService;
+        service.tasks = tasks;
+        service.evalInstancesEnabled = true;
+        service.evalInstancesOnlyEnabled = false;
+        service.maxEvalInstancesPerUser = 1000;
+        service.maxInstances = 1000;
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        for (String id : registryIds) {
+            storage.deleteRegistry(id);
+        }
+    }
+
+    @Test
+    void testEvalLimitReleasesSubscription() throws Exception {
+        service.accountManagementService = new TestAccountManagementService(ResourceType.REGISTRY_INSTANCE_EVAL);
+        var ownerKey = RegistryCounterKey.owner(OWNER_PLACEHOLDER, RegistryInstanceTypeValueDto.EVAL.value());
+        createRegistry(RegistryInstanceTypeValueDto.EVAL);
+        long count = storage.getRegistryCount(ownerKey);
+        service.maxEvalInstancesPerUser = (int) count;
+
+        assertThrows(TooManyEvalInstancesForUserException.class, () -> service.createRegistry(registryCreate()));
+
+        assertEquals(List.of(SUBSCRIPTION_ID), deletedSubscriptions);
+        assertEquals(count, storage.getRegistryCount(ownerKey));
+    }
+
+    @Test
+    void testTotalLimitReleasesSubscription() throws Exception {
+        service.accountManagementService = new TestAccountManagementService(ResourceType.REGISTRY_INSTANCE_STANDARD);
+        createRegistry(RegistryInstanceTypeValueDto.STANDARD);
+        long count = storage.getRegistryCountTotal();
+        service.maxInstances = (int) count;
+
+        assertThrows(TooManyInstancesException.class, () -> service.createRegistry(registryCreate()));
+
+        assertEquals(List.of(SUBSCRIPTION_ID), deletedSubscriptions);
+        assertEquals(count, storage.getRegistryCountTotal());
+    }
+
+    private void createRegistry(RegistryInstanceTypeValueDto instanceType) throws Exception {
+        var accountInfo = authService.extractAccountInfo();
+        var registry = RegistryData.builder()
+                .id(UUID.randomUUID().toString())
+                .name("registry-service-" + UUID.randomUUID())
+                .instanceType(instanceType.value())
+                .status("accepted")
+                .owner(OWNER_PLACEHOLDER)
+                .ownerId(OWNER_ID_PLACEHOLDER)
+                .orgId(accountInfo.getOrganizationId())
+                .build();
+        storage.createOrUpdateRegistry(registry);
+        registryIds.add(registry.getId());
+    }
+
+    private static RegistryCreateDto registryCreate() {
+        return RegistryCreateDto.builder()
+                .name("registry-service-" + UUID.randomUUID())
+                .build();
+    }
+
+    /**
+     * Reports no registries, as if they were created concurrently after the fast check,
+     * so the limits are only enforced when the registry is stored.
+     */
+    private static ResourceStorage staleCounts(ResourceStorage delegate) {
+        return (ResourceStorage) Proxy.newProxyInstance(ResourceStorage.class.getClassLoader(),
+                new Class<?>[]{ResourceStorage.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getRegistryCountTotal") || method.getName().equals("getRegistryCount")) {
+                        return 0L;
+                    }
+                    try {
+                        return method.invoke(delegate, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+    }
+
+    private class TestAccountManagementService implements AccountManagementService {
+
+        private final ResourceType resourceType;
+
+        TestAccountManagementService(ResourceType resourceType) {
+            this.resourceType = resourceType;
+        }
+
+        @Override
+        public ResourceType determineAllowedResourceType(AccountInfo accountInfo) {
+            return resourceType;
+        }
+
+        @Override
+        public String createResource(AccountInfo accountInfo, ResourceType resourceType) {
+            return SUBSCRIPTION_ID;
+        }
+
+        @Override
+        public void deleteSubscription(String subscriptionId) {
+            deletedSubscriptions.add(subscriptionId);
+        }
+    }
+}
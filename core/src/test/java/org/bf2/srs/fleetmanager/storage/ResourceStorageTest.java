@@ -19,13 +19,31 @@ package org.bf2.srs.fleetmanager.storage;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.transaction.UserTransaction;
 
 import org.bf2.srs.fleetmanager.rest.service.model.RegistryDeploymentStatusValue;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryCounterKey;
+import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryData;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentData;
 import org.bf2.srs.fleetmanager.storage.sqlPanacheImpl.model.RegistryDeploymentStatusData;
 import org.junit.jupiter.api.BeforeEach;
@@ -106,6 +124,209 @@ public class ResourceStorageTest {
 
     }
 
+    @Test
+    public void testRegistriesByDeployment() throws Exception {
+
+        var rd = RegistryDeploymentData.builder()
+            .name("test")
+            .registryDeploymentUrl("url")
+            .tenantManagerUrl("tenantmanager")
+            .status(RegistryDeploymentStatusData.builder().value(RegistryDeploymentStatusValue.AVAILABLE.value()).build())
+            .build();
+        storage.createOrUpdateRegistryDeployment(rd);
+
+        for (int i = 0; i < 5; i++) {
+            storage.createOrUpdateRegistry(RegistryData.builder()
+                .id("registry-" + i)
+                .name("test-" + i)
+                .orgId("aaa")
+                .ownerId(42L)
+                .instanceType("standard")
+                .status(i == 4 ? "deprovision" : "provisioning")
+                .registryDeployment(rd)
+                .build());
+        }
+
+        var ids = new ArrayList<String>();
+        String afterId = null;
+        List<RegistryData> page;
+        do {
+            page = storage.getRegistriesByDeployment(rd.getId(), afterId, 2);
+            page.forEach(r -> ids.add(r.getId()));
+            afterId = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        } while (page.size() == 2);
+        assertEquals(List.of("registry-0", "registry-1", "registry-2", "registry-3", "registry-4"), ids);
+
+        // Registry instances with a different status are skipped
+        int updated = storage.updateRegistryStatus(List.of("registry-0", "registry-1", "registry-4"), Set.of("provisioning"), "ready");
+        assertEquals(2, updated);
+        assertEquals("ready", storage.getRegistryById("registry-0").get().getStatus());
+        assertEquals("ready", storage.getRegistryById("registry-1").get().getStatus());
+        assertEquals("provisioning", storage.getRegistryById("registry-2").get().getStatus());
+        assertEquals("deprovision", storage.getRegistryById("registry-4").get().getStatus());
+        assertEquals(0, storage.updateRegistryStatus(List.of(), Set.of("provisioning"), "ready"));
+    }
+
+    @Test
+    public void testCountersDecrementedOnDelete() throws Exception {
+        storage.createOrUpdateRegistry(registry("registry-a", "owner-a", "org-a", "eval"));
+        storage.createOrUpdateRegistry(registry("registry-b", "owner-a", "org-a", "eval"));
+        storage.createOrUpdateRegistry(registry("registry-c", null, "org-a", "standard"));
+
+        assertEquals(3, storage.getRegistryCountTotal());
+        assertEquals(2, storage.getRegistryCount(RegistryCounterKey.owner("owner-a", "eval")));
+        assertEquals(2, storage.getRegistryCount(RegistryCounterKey.organization("org-a", "eval")));
+        assertEquals(1, storage.getRegistryCount(RegistryCounterKey.organization("org-a", "standard")));
+
+        storage.deleteRegistry("registry-a");
+        storage.deleteRegistry("registry-c");
+
+        assertEquals(1, storage.getRegistryCountTotal());
+        assertEquals(1, storage.getRegistryCount(RegistryCounterKey.owner("owner-a", "eval")));
+        assertEquals(1, storage.getRegistryCount(RegistryCounterKey.organization("org-a", "eval")));
+        assertEquals(0, storage.getRegistryCount(RegistryCounterKey.organization("org-a", "standard")));
+    }
+
+    @Test
+    public void testCountLimit() throws Exception {
+        var ownerKey = RegistryCounterKey.owner("owner-a", "eval");
+        var limits = Map.of(RegistryCounterKey.total(), 10L, ownerKey, 2L);
+        storage.createRegistry(registry("registry-a", "owner-a", "org-a", "eval"), limits);
+        storage.createRegistry(registry("registry-b", "owner-a", "org-a", "eval"), limits);
+
+        var ex = assertThrows(RegistryCountLimitReachedException.class,
+            () -> storage.createRegistry(registry("registry-c", "owner-a", "org-a", "eval"), limits));
+        assertEquals(ownerKey, ex.getKey());
+        // The transaction is rolled back, including the counters incremented before the limit was reached
+        assertFalse(storage.getRegistryById("registry-c").isPresent());
+        assertEquals(2, storage.getRegistryCountTotal());
+        assertEquals(2, storage.getRegistryCount(ownerKey));
+        assertEquals(2, storage.getRegistryCount(RegistryCounterKey.organization("org-a", "eval")));
+
+        // Other owners are not limited
+        storage.createRegistry(registry("registry-d", "owner-b", "org-a", "eval"), Map.of(RegistryCounterKey.owner("owner-b", "eval"), 2L));
+
+        // Deleting a registry frees the slot
+        storage.deleteRegistry("registry-a");
+        storage.createRegistry(registry("registry-c", "owner-a", "org-a", "eval"), limits);
+        assertEquals(2, storage.getRegistryCount(ownerKey));
+
+        var totalEx = assertThrows(RegistryCountLimitReachedException.class,
+            () -> storage.createRegistry(registry("registry-e", "owner-c", "org-a", "eval"), Map.of(RegistryCounterKey.total(), 3L)));
+        assertEquals(RegistryCounterKey.total(), totalEx.getKey());
+        assertEquals(3, storage.getRegistryCountTotal());
+    }
+
+    @Test
+    public void testConcurrentCreateWithinLimit() throws Exception {
+        final int threads = 8;
+        final long limit = 3;
+        var ownerKey = RegistryCounterKey.owner("owner-a", "eval");
+        var limits = Map.of(ownerKey, limit);
+
+        var executor = Executors.newFixedThreadPool(threads);
+        try {
+            var start = new CountDownLatch(1);
+            var futures = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < threads; i++) {
+                var registry = registry("registry-" + i, "owner-a", "org-a", "eval");
+                futures.add(executor.submit((Callable<Boolean>) () -> {
+                    start.await();
+                    try {
+                        storage.createRegistry(registry, limits);
+                        return true;
+                    } catch (RegistryCountLimitReachedException ex) {
+                        assertEquals(ownerKey, ex.getKey());
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (future.get()) {
+                        created++;
+                    }
+                } catch (ExecutionException ex) {
+                    throw new AssertionError("Unexpected failure", ex.getCause());
+                }
+            }
+            assertEquals(limit, created);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(limit, storage.getRegistriesByOwner("owner-a").size());
+        assertEquals(limit, storage.getRegistryCount(ownerKey));
+        assertEquals(limit, storage.getRegistryCountTotal());
+    }
+
+    @Test
+    public void testCounterBackfill() throws Exception {
+        storage.createOrUpdateRegistry(registry("registry-a", "owner-a", "org-a", "eval"));
+        storage.createOrUpdateRegistry(registry("registry-b", "owner-a", "org-b", "eval"));
+        storage.createOrUpdateRegistry(registry("registry-c", "owner-a", "org-a", "standard"));
+        storage.createOrUpdateRegistry(registry("registry-d", "owner-b", "org-a", "eval"));
+        storage.createOrUpdateRegistry(registry("registry-e", null, "org-a", "standard"));
+
+        var keys = List.of(
+            RegistryCounterKey.total(),
+            RegistryCounterKey.owner("owner-a", "eval"),
+            RegistryCounterKey.owner("owner-a", "standard"),
+            RegistryCounterKey.owner("owner-b", "eval"),
+            RegistryCounterKey.organization("org-a", "eval"),
+            RegistryCounterKey.organization("org-a", "standard"),
+            RegistryCounterKey.organization("org-b", "eval"));
+        var expected = List.of(5L, 2L, 1L, 1L, 2L, 2L, 1L);
+        assertEquals(expected, counts(keys));
+
+        // Recreate the counters the same way the migration does
+        var statements = migrationInserts("db/migration/h2/V4__RegistryCounters.sql");
+        assertEquals(3, statements.size());
+        transaction.begin();
+        try {
+            em.createNativeQuery("delete from registry_counter").executeUpdate();
+            statements.forEach(sql -> em.createNativeQuery(sql).executeUpdate());
+            transaction.commit();
+        } catch (Exception ex) {
+            transaction.rollback();
+            throw ex;
+        }
+
+        assertEquals(expected, counts(keys));
+    }
+
+    private List<Long> counts(List<RegistryCounterKey> keys) {
+        return keys.stream().map(storage::getRegistryCount).collect(Collectors.toList());
+    }
+
+    private static List<String> migrationInserts(String resource) throws IOException {
+        try (InputStream in = ResourceStorageTest.class.getClassLoader().getResourceAsStream(resource)) {
+            assertNotNull(in, resource);
+            var script = Arrays.stream(new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n"))
+                .filter(line -> !line.trim().startsWith("--"))
+                .collect(Collectors.joining("\n"));
+            return Arrays.stream(script.split(";"))
+                .map(String::trim)
+                .filter(sql -> sql.startsWith("insert"))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static RegistryData registry(String id, String owner, String orgId, String instanceType) {
+        return RegistryData.builder()
+            .id(id)
+            .name(id)
+            .owner(owner)
+            .ownerId(42L)
+            .orgId(orgId)
+            .instanceType(instanceType)
+            .status("accepted")
+            .build();
+    }
+
 //    @Test
 //    public void testUdateRegistry() throws Exception {
 //
@@ -17,6 +17,7 @@ import io.apicurio.rest.client.auth.exception.AuthErrorHandler;
 import io.apicurio.rest.client.config.ApicurioClientConfig;
 import io.apicurio.rest.client.spi.ApicurioHttpClient;
 import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.arc.profile.UnlessBuildProfile;
 import org.bf2.srs.fleetmanager.common.metrics.Constants;
 import org.bf2.srs.fleetmanager.common.operation.auditing.Audited;
@@ -36,6 +37,7 @@ import org.eclipse.microprofile.faulttolerance.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -43,10 +45,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 
 import static org.bf2.srs.fleetmanager.common.operation.auditing.AuditingConstants.KEY_TENANT_ID;
 
@@ -71,11 +73,19 @@ public class RestClientTenantManagerServiceImpl implements TenantManagerService
     @ConfigProperty(name = "srs-fleet-manager.tenant-manager.ssl.ca.path")
     Optional<String> tenantManagerCAFilePath;
 
+    @ConfigProperty(name = "srs-fleet-manager.tenant-manager.client-pool.max-size", defaultValue = "50")
+    int clientPoolMaxSize;
+
+    @ConfigProperty(name = "srs-fleet-manager.tenant-manager.client-pool.idle-timeout-seconds", defaultValue = "1800")
+    long clientPoolIdleTimeoutSeconds;
+
+    @Inject
+    MeterRegistry metrics;
+
     private Auth auth;
     private Map<String, Object> clientConfigs;
 
-    // TODO Data is never deleted! Prevent OOM error.
-    private Map<String, TenantManagerClientImpl> pool = new ConcurrentHashMap<String, TenantManagerClientImpl>();
+    private TenantManagerClientPool pool;
 
     @PostConstruct
     void init() {
@@ -92,12 +102,14 @@ public class RestClientTenantManagerServiceImpl implements TenantManagerService
         if (tenantManagerCAFilePath.isPresent() && !tenantManagerCAFilePath.get().isBlank()) {
             clientConfigs.put(ApicurioClientConfig.APICURIO_REQUEST_CA_BUNDLE_LOCATION, tenantManagerCAFilePath.get());
         }
+        // The auth (and its token cache) is shared by all clients
+        this.pool = new TenantManagerClientPool(clientPoolMaxSize, Duration.ofSeconds(clientPoolIdleTimeoutSeconds),
+                url -> new TenantManagerClientImpl(url, clientConfigs, auth));
+        pool.bindTo(metrics);
     }
 
     private TenantManagerClient getClient(TenantManagerConfig tm) {
-        return pool.computeIfAbsent(tm.getTenantManagerUrl(), k -> {
-            return new TenantManagerClientImpl(tm.getTenantManagerUrl(), clientConfigs, auth);
-        });
+        return pool.get(tm.getTenantManagerUrl());
     }
 
     private Tenant convert(RegistryTenant data) {
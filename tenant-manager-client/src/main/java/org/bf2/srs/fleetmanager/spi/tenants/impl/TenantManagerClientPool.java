@@ -0,0 +1,124 @@
+package org.bf2.srs.fleetmanager.spi.tenants.impl;
+
+import io.apicurio.multitenant.client.TenantManagerClient;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bounded cache of Tenant Manager clients, keyed by the Tenant Manager URL.
+ * <p>
+ * When the cache is full, the least recently used client is evicted.
+ * Clients that have not been used for longer than the idle timeout are evicted on the next access.
+ * Evicted clients are not closed, since they may still be used by a concurrent request,
+ * and are released when no longer referenced.
+ * <p>
+ * This class is thread safe.
+ */
+class TenantManagerClientPool implements MeterBinder {
+
+    private final int maxSize;
+
+    private final long idleTimeoutNanos;
+
+    private final Function<String, TenantManagerClient> factory;
+
+    private final LongSupplier nanoTime;
+
+    /**
+     * Access-ordered, so the least recently used client is first.
+     */
+    private final LinkedHashMap<String, PooledClient> clients = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long evictions;
+
+    TenantManagerClientPool(int maxSize, Duration idleTimeout, Function<String, TenantManagerClient> factory) {
+        this(maxSize, idleTimeout, factory, System::nanoTime);
+    }
+
+    TenantManagerClientPool(int maxSize, Duration idleTimeout, Function<String, TenantManagerClient> factory, LongSupplier nanoTime) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive.");
+        }
+        requireNonNull(idleTimeout);
+        requireNonNull(factory);
+        requireNonNull(nanoTime);
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.factory = factory;
+        this.nanoTime = nanoTime;
+    }
+
+    synchronized TenantManagerClient get(String tenantManagerUrl) {
+        requireNonNull(tenantManagerUrl);
+        long now = nanoTime.getAsLong();
+        evictIdle(now);
+        var pooled = clients.get(tenantManagerUrl);
+        if (pooled == null) {
+            pooled = new PooledClient(factory.apply(tenantManagerUrl));
+            clients.put(tenantManagerUrl, pooled);
+            evictOverflow();
+        }
+        pooled.lastUsed = now;
+        return pooled.client;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(Constants.TENANT_MANAGER_CLIENT_POOL_SIZE, this, TenantManagerClientPool::size)
+                .description(Constants.TENANT_MANAGER_CLIENT_POOL_SIZE_DESCRIPTION)
+                .register(registry);
+        FunctionCounter.builder(Constants.TENANT_MANAGER_CLIENT_POOL_EVICTIONS, this, TenantManagerClientPool::getEvictions)
+                .description(Constants.TENANT_MANAGER_CLIENT_POOL_EVICTIONS_DESCRIPTION)
+                .register(registry);
+    }
+
+    synchronized int size() {
+        return clients.size();
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private void evictIdle(long now) {
+        var iterator = clients.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastUsed <= idleTimeoutNanos) {
+                // The rest was used more recently
+                break;
+            }
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private void evictOverflow() {
+        var iterator = clients.values().iterator();
+        while (clients.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private static class PooledClient {
+
+        private final TenantManagerClient client;
+
+        private long lastUsed;
+
+        private PooledClient(TenantManagerClient client) {
+            this.client = client;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.bf2.srs.fleetmanager.spi.tenants.impl;
+
+import io.apicurio.multitenant.client.TenantManagerClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bf2.srs.fleetmanager.common.metrics.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TenantManagerClientPoolTest {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private final List<String> created = new ArrayList<>();
+
+    private TenantManagerClientPool pool;
+
+    @BeforeEach
+    void beforeEach() {
+        nanoTime.set(0);
+        created.clear();
+        pool = new TenantManagerClientPool(2, IDLE_TIMEOUT, url -> {
+            created.add(url);
+            return client();
+        }, nanoTime::get);
+    }
+
+    @Test
+    void testReuse() {
+        var a = pool.get("a");
+        assertSame(a, pool.get("a"));
+        assertEquals(List.of("a"), created);
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void testEvictLeastRecentlyUsed() {
+        var a = pool.get("a");
+        pool.get("b");
+        // Using a makes b the least recently used client
+        tick(1);
+        assertSame(a, pool.get("a"));
+        tick(1);
+        pool.get("c");
+
+        assertEquals(2, pool.size());
+        assertEquals(1, pool.getEvictions());
+        assertSame(a, pool.get("a"));
+        pool.get("b");
+        assertEquals(List.of("a", "b", "c", "b"), created);
+    }
+
+    @Test
+    void testEvictIdle() {
+        var a = pool.get("a");
+        tick(IDLE_TIMEOUT.toSeconds());
+        // Not idle for longer than the timeout yet
+        assertSame(a, pool.get("a"));
+
+        tick(IDLE_TIMEOUT.toSeconds() + 1);
+        var b = pool.get("b");
+        assertEquals(1, pool.size());
+        assertEquals(1, pool.getEvictions());
+        assertSame(b, pool.get("b"));
+        assertNotSame(a, pool.get("a"));
+        assertEquals(List.of("a", "b", "a"), created);
+    }
+
+    @Test
+    void testMetrics() {
+        var metrics = new SimpleMeterRegistry();
+        pool.bindTo(metrics);
+
+        pool.get("a");
+        pool.get("b");
+        pool.get("c");
+        assertEquals(2, metrics.get(Constants.TENANT_MANAGER_CLIENT_POOL_SIZE).gauge().value());
+        assertEquals(1, metrics.get(Constants.TENANT_MANAGER_CLIENT_POOL_EVICTIONS).functionCounter().count());
+
+        tick(IDLE_TIMEOUT.toSeconds() + 1);
+        pool.get("a");
+        assertEquals(1, metrics.get(Constants.TENANT_MANAGER_CLIENT_POOL_SIZE).gauge().value());
+        assertEquals(3, metrics.get(Constants.TENANT_MANAGER_CLIENT_POOL_EVICTIONS).functionCounter().count());
+    }
+
+    @Test
+    void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new TenantManagerClientPool(0, IDLE_TIMEOUT, url -> client()));
+    }
+
+    private void tick(long seconds) {
+        nanoTime.addAndGet(Duration.ofSeconds(seconds).toNanos());
+    }
+
+    /**
+     * The pool does not call the client, only its identity matters.
+     */
+    private static TenantManagerClient client() {
+        return (TenantManagerClient) Proxy.newProxyInstance(TenantManagerClient.class.getClassLoader(),
+                new Class<?>[]{TenantManagerClient.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException();
+                });
+    }
+}